@@ -1,18 +1,23 @@
 package at.kocmana.filerename.controller;
 
 import at.kocmana.filerename.model.CommandLineArguments;
-import at.kocmana.filerename.service.FileRenameTask;
+import at.kocmana.filerename.model.ExecutionStrategy;
+import at.kocmana.filerename.service.FileRenameTaskFactory;
+import at.kocmana.filerename.service.execution.JobExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import picocli.CommandLine;
 import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.ITypeConverter;
 import picocli.CommandLine.Option;
+import picocli.CommandLine.TypeConversionException;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
 
 @Command(mixinStandardHelpOptions = true, versionProvider = VersionInformationController.class)
 public class CliController implements Runnable {
@@ -55,19 +60,95 @@ public class CliController implements Runnable {
                     + "or ENUMERATE to append a incrementing number to the file name (e.g. \"image-01.jpg\".",
             defaultValue = "FAIL")
     private CollisionResolutionStrategy collisionResolutionStrategy = CollisionResolutionStrategy.FAIL;
+
+    @Option(names = {"-s", "--streaming"},
+            description = "Process files as soon as they are found instead of collecting all matching files first. "
+                    + "Keeps memory usage constant for large directory trees.", defaultValue = "false")
+    private boolean streaming = false;
+
+    @Option(names = {"-ix", "--index"},
+            description = "File used to remember the directories processed by previous runs of this task. "
+                    + "Directories that did not change since the last successful run are not scanned again.")
+    private Path indexFile;
+
+    @Option(names = {"-mc", "--metadataCache"},
+            description = "File used to cache metadata read from the content of files (EXIF dates, hashes) "
+                    + "across runs. Unchanged files are not read again.")
+    private Path metadataCache;
+
+    @Option(names = {"-re", "--regexEngine"},
+            description = "Engine used to match file names. JAVA supports the full java.util.regex syntax, LINEAR "
+                    + "matches in linear time and rejects patterns it can't guarantee this for (e.g. backreferences "
+                    + "or lookaround).", defaultValue = "JAVA")
+    private RegexEngine regexEngine = RegexEngine.JAVA;
+
+    @Option(names = {"-ex", "--executor"}, converter = ExecutionStrategyConverter.class,
+            description = "Executor running the jobs: forkjoin runs one job per core, fixed:<threads> the given "
+                    + "number of jobs at a time and virtual one virtual thread per job (requires a Java runtime "
+                    + "supporting virtual threads). Use fixed or virtual on high-latency storage like network "
+                    + "mounts.", defaultValue = "forkjoin")
+    private ExecutionStrategy executionStrategy = ExecutionStrategy.FORK_JOIN;
+
+    @Option(names = {"-du", "--durability"},
+            description = "Whether completed operations are flushed to disk. NONE leaves it to the operating system, "
+                    + "BATCH syncs each affected directory once per batch of operations and STRICT syncs every "
+                    + "single operation as soon as it completed.", defaultValue = "NONE")
+    private Durability durability = Durability.NONE;
+
+    @Option(names = {"-sb", "--sortBy"},
+            description = "Order in which files are enumerated (<<E>>). Options are NAME, CREATION_DATE or the "
+                    + "TIMESTAMP parsed from the file name. Not applied in streaming mode. Files picked up while "
+                    + "watching continue the numbering in order of arrival.", defaultValue = "NAME")
+    private SortOrder sortOrder = SortOrder.NAME;
+
+    @Option(names = {"-w", "--watch"},
+            description = "Keep running after all existing files were processed and rename new files as soon as "
+                    + "they arrive in the directory.", defaultValue = "false")
+    private boolean watch = false;
   }
 
   public enum CollisionResolutionStrategy {
     FAIL, ENUMERATE
   }
 
+  public enum SortOrder {
+    NAME, CREATION_DATE, TIMESTAMP
+  }
+
+  public enum RegexEngine {
+    JAVA, LINEAR
+  }
+
+  public enum Durability {
+    NONE, BATCH, STRICT
+  }
+
+  static class ExecutionStrategyConverter implements ITypeConverter<ExecutionStrategy> {
+
+    @Override
+    public ExecutionStrategy convert(String value) {
+      ExecutionStrategy executionStrategy;
+      try {
+        executionStrategy = ExecutionStrategy.parse(value);
+      } catch (IllegalArgumentException exception) {
+        throw new TypeConversionException(exception.getMessage());
+      }
+      if (executionStrategy.type() == ExecutionStrategy.Type.VIRTUAL && !JobExecutor.supportsVirtualThreads()) {
+        throw new TypeConversionException("Virtual threads are not supported by this Java runtime");
+      }
+      return executionStrategy;
+    }
+  }
+
   @Override
   public void run() {
     var arguments = mapArguments();
+    var tasks = FileRenameTaskFactory.createTasks(arguments);
+    // tasks sharing a walk wait for each other, hence every task needs a thread of its own
+    var taskExecutor = Executors.newFixedThreadPool(tasks.size());
     try {
-      var completableFutures = arguments.stream()
-              .map(FileRenameTask::new)
-              .map(task -> CompletableFuture.supplyAsync(task::call))
+      var completableFutures = tasks.stream()
+              .map(task -> CompletableFuture.supplyAsync(task::call, taskExecutor))
               .toList();
 
       var allTasksFutures = CompletableFuture.allOf(completableFutures.toArray(new CompletableFuture[0]));
@@ -77,13 +158,17 @@ public class CliController implements Runnable {
       log.info("Process finished.");
     } catch (Exception exception) {
       log.error("Encountered issue while running the application: {}.", exception.getMessage(), exception);
+    } finally {
+      taskExecutor.shutdownNow();
     }
   }
 
   List<CommandLineArguments> mapArguments() {
     return cliArguments.stream()
             .map(args -> new CommandLineArguments(args.path, args.recursive, args.inputTemplate, args.outputTemplate,
-                    args.dryRun, args.createCopy, args.collisionResolutionStrategy))
+                    args.dryRun, args.createCopy, args.collisionResolutionStrategy, args.streaming,
+                    args.indexFile, args.metadataCache, args.watch, args.sortOrder, args.regexEngine,
+                    args.executionStrategy, args.durability))
             .toList();
   }
 
@@ -1,6 +1,9 @@
 package at.kocmana.filerename.model;
 
 import at.kocmana.filerename.controller.CliController.CollisionResolutionStrategy;
+import at.kocmana.filerename.controller.CliController.Durability;
+import at.kocmana.filerename.controller.CliController.RegexEngine;
+import at.kocmana.filerename.controller.CliController.SortOrder;
 
 import java.nio.file.Path;
 
@@ -11,6 +14,14 @@ public record CommandLineArguments(
         String outputTemplate,
         boolean dryRun,
         boolean createCopy,
-        CollisionResolutionStrategy collisionResolutionStrategy
+        CollisionResolutionStrategy collisionResolutionStrategy,
+        boolean streaming,
+        Path indexFile,
+        Path metadataCache,
+        boolean watch,
+        SortOrder sortOrder,
+        RegexEngine regexEngine,
+        ExecutionStrategy executionStrategy,
+        Durability durability
 ) {
 }
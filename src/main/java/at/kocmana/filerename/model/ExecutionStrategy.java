@@ -0,0 +1,64 @@
+package at.kocmana.filerename.model;
+
+import java.util.Locale;
+
+/**
+ * How the jobs of a task are run.
+ *
+ * @param type    the kind of executor.
+ * @param threads the number of threads of a {@link Type#FIXED} executor, {@code 0} otherwise.
+ */
+public record ExecutionStrategy(Type type, int threads) {
+
+  public static final ExecutionStrategy FORK_JOIN = new ExecutionStrategy(Type.FORKJOIN, 0);
+
+  public ExecutionStrategy {
+    if (type == Type.FIXED && threads < 1) {
+      throw new IllegalArgumentException("Number of threads must be > 0");
+    }
+  }
+
+  /**
+   * Parses {@code forkjoin}, {@code fixed:N} or {@code virtual}.
+   *
+   * @throws IllegalArgumentException if the value is none of the above.
+   */
+  public static ExecutionStrategy parse(String value) {
+    var normalizedValue = value.trim().toLowerCase(Locale.ROOT);
+    if (normalizedValue.equals("forkjoin")) {
+      return FORK_JOIN;
+    }
+    if (normalizedValue.equals("virtual")) {
+      return new ExecutionStrategy(Type.VIRTUAL, 0);
+    }
+    if (normalizedValue.startsWith("fixed:")) {
+      try {
+        return new ExecutionStrategy(Type.FIXED, Integer.parseInt(normalizedValue.substring("fixed:".length())));
+      } catch (NumberFormatException exception) {
+        // reported below
+      }
+    }
+    throw new IllegalArgumentException(String.format(
+        "Unknown executor \"%s\", expected forkjoin, fixed:<threads> or virtual", value));
+  }
+
+  @Override
+  public String toString() {
+    return type == Type.FIXED ? "fixed:" + threads : type.name().toLowerCase(Locale.ROOT);
+  }
+
+  public enum Type {
+    /**
+     * Parallel streams on the common {@link java.util.concurrent.ForkJoinPool}, one thread per core.
+     */
+    FORKJOIN,
+    /**
+     * A pool with a fixed number of threads, e.g. to keep more blocking I/O operations in flight than there are cores.
+     */
+    FIXED,
+    /**
+     * One virtual thread per job. Requires a Java runtime supporting virtual threads.
+     */
+    VIRTUAL
+  }
+}
@@ -0,0 +1,54 @@
+package at.kocmana.filerename.model;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * A file matched by a task together with the information gathered about it during discovery, so that
+ * transformation rules neither have to access the file system nor match the file name again.
+ *
+ * @param file          the matched file.
+ * @param attributes    the attributes read while searching for the file, may be {@code null} if unknown.
+ * @param filenameMatch the match of the file name against the search pattern of the task, may be {@code null} if
+ *                      the file was not matched.
+ * @param ordinal       the position of the file within all files of the task in the requested order, or
+ *                      {@link #UNORDERED} if files are processed in the order they are found.
+ */
+public record FileContext(
+        Path file,
+        BasicFileAttributes attributes,
+        FilenameMatch filenameMatch,
+        long ordinal
+) {
+
+  public static final long UNORDERED = -1;
+
+  public FileContext(Path file, BasicFileAttributes attributes) {
+    this(file, attributes, null, UNORDERED);
+  }
+
+  public FileContext(Path file, BasicFileAttributes attributes, FilenameMatch filenameMatch) {
+    this(file, attributes, filenameMatch, UNORDERED);
+  }
+
+  public FileContext withOrdinal(long ordinal) {
+    return new FileContext(file, attributes, filenameMatch, ordinal);
+  }
+
+  public boolean isOrdered() {
+    return ordinal != UNORDERED;
+  }
+
+  public String filename() {
+    return file.getFileName().toString();
+  }
+
+  /**
+   * @return the part of the file name captured by the named group of the search pattern, or {@code null} if the file
+   * name was not matched or the group did not participate in the match.
+   * @throws IllegalArgumentException if the search pattern has no group with the given name.
+   */
+  public String group(String name) {
+    return filenameMatch == null ? null : filenameMatch.group(name);
+  }
+}
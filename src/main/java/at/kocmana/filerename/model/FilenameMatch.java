@@ -0,0 +1,16 @@
+package at.kocmana.filerename.model;
+
+/**
+ * The groups captured when matching a file name against the search pattern of a task, independent of the regex
+ * engine used.
+ */
+@FunctionalInterface
+public interface FilenameMatch {
+
+  /**
+   * @return the captured text or {@code null} if the group did not participate in the match.
+   * @throws IllegalArgumentException if the search pattern has no group with the given name.
+   */
+  String group(String name);
+
+}
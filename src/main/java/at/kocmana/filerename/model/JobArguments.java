@@ -1,17 +1,27 @@
 package at.kocmana.filerename.model;
 
 import at.kocmana.filerename.controller.CliController.CollisionResolutionStrategy;
-import at.kocmana.filerename.service.transformation.rules.TransformationRule;
+import at.kocmana.filerename.controller.CliController.Durability;
+import at.kocmana.filerename.service.planning.TargetNameRegistry;
+import at.kocmana.filerename.service.transformation.OutputTemplate;
 
 import java.nio.file.Path;
-import java.util.List;
 
 public record JobArguments(
-        Path inputFile,
-        List<TransformationRule> transformationRules,
-        String outputTemplate,
+        FileContext fileContext,
+        OutputTemplate outputTemplate,
         boolean dryRun,
         boolean createCopy,
-        CollisionResolutionStrategy collisionResolutionStrategy
+        CollisionResolutionStrategy collisionResolutionStrategy,
+        TargetNameRegistry targetNameRegistry,
+        Durability durability
 ) {
+
+  public Path inputFile() {
+    return fileContext.file();
+  }
+
+  public Path inputDirectory() {
+    return fileContext.file().toAbsolutePath().getParent();
+  }
 }
@@ -0,0 +1,45 @@
+package at.kocmana.filerename.model;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * An input (<i>-i</i>) or output (<i>-o</i>) argument split into literal text and rule templates.
+ *
+ * @param text   the argument as provided.
+ * @param tokens the literal text and rule templates in order of their occurrence.
+ */
+public record Template(
+        String text,
+        List<TemplateToken> tokens
+) {
+
+  public Template {
+    tokens = List.copyOf(tokens);
+  }
+
+  /**
+   * @return the first rule template with the given abbreviation.
+   */
+  public Optional<TemplateToken> findRule(String ruleAbbreviation) {
+    return tokens.stream()
+            .filter(token -> token.isRule(ruleAbbreviation))
+            .findFirst();
+  }
+
+  public boolean containsRule(String ruleAbbreviation) {
+    return findRule(ruleAbbreviation).isPresent();
+  }
+
+  /**
+   * @return the text of the template where every rule template with the given abbreviation is replaced with the
+   * replacement as is.
+   */
+  public String replaceRules(String ruleAbbreviation, String replacement) {
+    var result = new StringBuilder(text.length() + replacement.length());
+    for (var token : tokens) {
+      result.append(token.isRule(ruleAbbreviation) ? replacement : token.text());
+    }
+    return result.toString();
+  }
+}
@@ -0,0 +1,34 @@
+package at.kocmana.filerename.model;
+
+/**
+ * A part of an input (<i>-i</i>) or output (<i>-o</i>) argument: either literal text or a rule template like
+ * {@code <<TS|yyyyMMdd>>}.
+ *
+ * @param text             the text of the token as it appears in the argument.
+ * @param region           the offsets of the token within the argument.
+ * @param ruleAbbreviation the abbreviation of the rule template, e.g. {@code TS}, {@code null} for literal text.
+ * @param ruleArguments    the arguments of the rule template, empty if the template has none.
+ */
+public record TemplateToken(
+        String text,
+        Region region,
+        String ruleAbbreviation,
+        String ruleArguments
+) {
+
+  public static TemplateToken literal(String text, int offset) {
+    return new TemplateToken(text, new Region(offset, offset + text.length()), null, "");
+  }
+
+  public static TemplateToken rule(String text, int offset, String ruleAbbreviation, String ruleArguments) {
+    return new TemplateToken(text, new Region(offset, offset + text.length()), ruleAbbreviation, ruleArguments);
+  }
+
+  public boolean isRule() {
+    return ruleAbbreviation != null;
+  }
+
+  public boolean isRule(String abbreviation) {
+    return abbreviation.equals(ruleAbbreviation);
+  }
+}
@@ -4,10 +4,14 @@ import at.kocmana.filerename.service.transformation.rules.TransformationRule;
 
 /**
  * TransformationRuleException is a wrapper for all exceptions happening during creation and
- * application of {@link TransformationRule}s. The initial {@link Throwable} has to be passed down.
+ * application of {@link TransformationRule}s. The initial {@link Throwable} has to be passed down if there is one.
  */
 public class TransformationRuleException extends RuntimeException {
 
+  public TransformationRuleException(String message) {
+    super(message);
+  }
+
   public TransformationRuleException(String message, Throwable cause) {
     super(message, cause);
   }
@@ -0,0 +1,71 @@
+package at.kocmana.filerename.service;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Set of paths that forgets every path once it was added longer ago than the expiry, so it does not grow without
+ * bound while a directory is watched.</p>
+ * Paths only expire after {@link #startExpiring()} was called, which counts the age of all paths added before from
+ * then on. Expired paths are purged while adding paths, at most twice per expiry. May be used concurrently.
+ */
+class ExpiringPathSet {
+
+  private final Map<Path, Long> addedNanos = new ConcurrentHashMap<>();
+  private final long expiryNanos;
+
+  private volatile boolean expiring;
+  private volatile long nextPurgeNanos;
+
+  ExpiringPathSet(Duration expiry) {
+    this.expiryNanos = expiry.toNanos();
+  }
+
+  /**
+   * @return whether the path was not contained yet (or had expired).
+   */
+  boolean add(Path path) {
+    var now = System.nanoTime();
+    purgeExpiredPaths(now);
+    var previous = addedNanos.put(path, now);
+    return previous == null || isExpired(previous, now);
+  }
+
+  /**
+   * @return whether the path was contained and had not expired.
+   */
+  boolean remove(Path path) {
+    var added = addedNanos.remove(path);
+    return added != null && !isExpired(added, System.nanoTime());
+  }
+
+  boolean isEmpty() {
+    return addedNanos.isEmpty();
+  }
+
+  int size() {
+    return addedNanos.size();
+  }
+
+  void startExpiring() {
+    var now = System.nanoTime();
+    addedNanos.replaceAll((path, added) -> now);
+    nextPurgeNanos = now + expiryNanos / 2;
+    expiring = true;
+  }
+
+  private boolean isExpired(long added, long now) {
+    return expiring && now - added > expiryNanos;
+  }
+
+  private void purgeExpiredPaths(long now) {
+    if (!expiring || now - nextPurgeNanos < 0) {
+      return;
+    }
+    nextPurgeNanos = now + expiryNanos / 2;
+    addedNanos.values().removeIf(added -> isExpired(added, now));
+  }
+
+}
@@ -2,11 +2,16 @@ package at.kocmana.filerename.service;
 
 import static at.kocmana.filerename.controller.CliController.CollisionResolutionStrategy.ENUMERATE;
 
+import at.kocmana.filerename.controller.CliController.Durability;
 import at.kocmana.filerename.model.JobArguments;
+import at.kocmana.filerename.service.fileoperation.CopyEngine;
+import at.kocmana.filerename.service.fileoperation.FileMover;
+import at.kocmana.filerename.service.planning.TargetNameRegistry;
 import at.kocmana.filerename.service.transformation.helper.FileEnumerater;
 import java.io.IOException;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.concurrent.Callable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,10 +24,14 @@ public class FileRenameJob implements Callable<FileRenameJob.JobStatus> {
   private volatile JobStatus jobStatus = JobStatus.CREATED;
 
   private String outputFileName;
+  private Path outputFile;
   private FileEnumerater fileEnumerater;
+  private boolean targetNameTaken;
+  private Path sourceFile;
 
   public FileRenameJob(JobArguments arguments) {
     this.jobArguments = arguments;
+    this.sourceFile = arguments.inputFile();
   }
 
   public JobStatus getJobStatus() {
@@ -33,21 +42,126 @@ public class FileRenameJob implements Callable<FileRenameJob.JobStatus> {
     return jobArguments;
   }
 
+  /**
+   * @return the file created by this job or {@code null} if the job has not been executed successfully (yet).
+   */
+  public Path getOutputFile() {
+    return outputFile;
+  }
+
+  /**
+   * @return the current location of the input file, which differs from the input file once it was moved to a temporary
+   * name.
+   */
+  public Path getSourceFile() {
+    return sourceFile;
+  }
+
+  /**
+   * @return the name of the file to be created, {@code null} if it was not rendered (yet).
+   */
+  public String getOutputFileName() {
+    return outputFileName;
+  }
+
+  /**
+   * @return the file to be created, {@code null} if its name was not rendered (yet).
+   */
+  public Path getTargetFile() {
+    return outputFileName == null ? null : jobArguments.inputDirectory().resolve(outputFileName);
+  }
+
+  /**
+   * Determines the name of the output file and reserves it in the {@link TargetNameRegistry}. With
+   * {@link at.kocmana.filerename.controller.CliController.CollisionResolutionStrategy#ENUMERATE} a taken name is
+   * replaced by the next free enumerated name, otherwise the job will fail when being executed.
+   */
   public JobStatus prepare() {
     jobStatus = JobStatus.RUNNING;
-    outputFileName = jobArguments.outputTemplate();
-    for (var transformationRule : jobArguments.transformationRules()) {
-      outputFileName = transformationRule.apply(jobArguments.inputFile(), outputFileName);
+    outputFileName = jobArguments.outputTemplate().render(jobArguments.fileContext());
+    reserveOutputFileName();
+    return jobStatus;
+  }
+
+  /**
+   * Determines the name of the output file without reserving it yet. Unlike {@link #prepare()}, a failure marks the
+   * job as failed instead of being thrown.
+   *
+   * @return whether the name could be determined.
+   */
+  public boolean renderOutputFileName() {
+    jobStatus = JobStatus.RUNNING;
+    try {
+      outputFileName = jobArguments.outputTemplate().render(jobArguments.fileContext());
+      return true;
+    } catch (RuntimeException exception) {
+      log.warn("Could not determine new name of file {}: {}.", jobArguments.inputFile().getFileName(),
+          exception.getMessage());
+      jobStatus = JobStatus.FAILED;
+      return false;
     }
+  }
+
+  /**
+   * Reserves the name determined by {@link #renderOutputFileName()}.
+   */
+  public void reserveOutputFileName() {
     fileEnumerater = FileEnumerater.forFilename(outputFileName);
+    if (!outputFileName.equals(jobArguments.inputFile().getFileName().toString())) {
+      var reservedFileName = reserve(outputFileName);
+      targetNameTaken = reservedFileName == null;
+      outputFileName = targetNameTaken ? outputFileName : reservedFileName;
+    }
     jobStatus = JobStatus.READY;
-    return jobStatus;
+  }
+
+  private String reserve(String filename) {
+    return jobArguments.targetNameRegistry().reserve(jobArguments.inputDirectory(), filename,
+        jobArguments.collisionResolutionStrategy() == ENUMERATE);
+  }
+
+  /**
+   * Prepares and executes the job right away instead of waiting for other jobs to be prepared. Unlike
+   * {@link #prepare()}, a failure to determine the output file name marks the job as failed instead of being thrown.
+   */
+  public JobStatus process() {
+    if (!renderOutputFileName()) {
+      return jobStatus;
+    }
+    reserveOutputFileName();
+    return call();
+  }
+
+  /**
+   * Moves the input file to a temporary name in the same directory, freeing its name before the job is executed, e.g.
+   * to break a cycle of renames. Only supported for moves. In a dry run only the name is freed.
+   *
+   * @return whether the file was moved, otherwise the job is marked as failed.
+   */
+  public boolean moveToTemporaryName(String temporaryName) {
+    var temporaryFile = jobArguments.inputDirectory().resolve(temporaryName);
+    try {
+      if (!jobArguments.dryRun()) {
+        Files.move(sourceFile, temporaryFile);
+      }
+    } catch (Exception exception) {
+      failWithException(exception);
+      return false;
+    }
+    jobArguments.targetNameRegistry().release(jobArguments.inputDirectory(), sourceFile.getFileName().toString());
+    sourceFile = temporaryFile;
+    return true;
   }
 
   @Override
   public JobStatus call() {
+    if (jobStatus == JobStatus.FAILED) {
+      return jobStatus;
+    }
     jobStatus = JobStatus.RUNNING;
-    if (!jobArguments.dryRun()) {
+    if (targetNameTaken) {
+      failWithException(new FileAlreadyExistsException(outputFileName));
+    } else if (!jobArguments.dryRun()) {
       executeFileTask();
     } else {
       jobStatus = JobStatus.SUCCESS;
@@ -56,30 +170,43 @@ public class FileRenameJob implements Callable<FileRenameJob.JobStatus> {
   }
 
   private void executeFileTask() {
-    var filename = outputFileName;
-    do {
+    var registry = jobArguments.targetNameRegistry();
+    var directory = jobArguments.inputDirectory();
+    while (true) {
       try {
-        performFileOperation(filename);
+        performFileOperation(outputFileName);
         jobStatus = JobStatus.SUCCESS;
+        registry.confirm(directory, outputFileName);
+        if (!jobArguments.createCopy()) {
+          registry.release(directory, sourceFile.getFileName().toString());
+        }
+        return;
       } catch (FileAlreadyExistsException exception) {
-        if (jobArguments.collisionResolutionStrategy() == ENUMERATE) {
-          filename = fileEnumerater.enumerateFilename();
-        } else {
+        // the file was created after the directory was listed, its name stays taken
+        registry.confirm(directory, outputFileName);
+        if (jobArguments.collisionResolutionStrategy() != ENUMERATE) {
           failWithException(exception);
+          return;
         }
+        outputFileName = reserve(fileEnumerater.getFilename());
       } catch (Exception exception) {
+        if (!outputFileName.equals(jobArguments.inputFile().getFileName().toString())) {
+          registry.release(directory, outputFileName);
+        }
         failWithException(exception);
+        return;
       }
-    } while (jobArguments.collisionResolutionStrategy() == ENUMERATE && !jobStatus.isSuccessful());
+    }
   }
 
   private void performFileOperation(String filename) throws IOException {
     var outputPath = jobArguments.inputFile().resolveSibling(filename);
     if (jobArguments.createCopy()) {
-      Files.copy(jobArguments.inputFile(), outputPath);
+      CopyEngine.copy(sourceFile, outputPath);
     } else {
-      Files.move(jobArguments.inputFile(), outputPath);
+      FileMover.move(sourceFile, outputPath, jobArguments.durability() != Durability.NONE);
     }
+    outputFile = outputPath;
   }
 
   private void failWithException(Exception exception) {
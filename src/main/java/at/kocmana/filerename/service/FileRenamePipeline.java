@@ -0,0 +1,152 @@
+package at.kocmana.filerename.service;
+
+import at.kocmana.filerename.service.FileRenameJob.JobStatus;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Prepares and executes {@link FileRenameJob}s while they are still being discovered.</p>
+ * Every job is handed to the workers as a task of its own, so no worker is kept busy waiting for jobs (e.g. while
+ * watching a directory). At most {@code capacity} jobs are submitted but not yet processed: if the workers fall behind,
+ * {@link #submit(FileRenameJob)} blocks until a job completes, so the number of jobs held in memory (or of virtual
+ * threads started) never exceeds the capacity. Jobs are processed
+ * by {@link FileRenameJob#process()} unless another processor is given, which may also defer jobs to be completed by
+ * the caller later on.
+ */
+public class FileRenamePipeline implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(FileRenamePipeline.class);
+  private static final long POLL_INTERVAL_MILLIS = 50;
+
+  private final Semaphore capacity;
+  private final ExecutorService workers;
+  private final Predicate<FileRenameJob> processor;
+  private final Consumer<FileRenameJob> onJobCompletion;
+  private final Map<JobStatus, LongAdder> results = new EnumMap<>(JobStatus.class);
+
+  private volatile boolean acceptingJobs = true;
+
+  public FileRenamePipeline(int capacity, int workerCount, Consumer<FileRenameJob> onJobCompletion) {
+    this(capacity, workerCount, Executors.newFixedThreadPool(Math.max(1, workerCount)), onJobCompletion);
+  }
+
+  /**
+   * Creates a pipeline running its jobs on the given executor of {@code workerCount} workers, which is shut down along
+   * with the pipeline.
+   */
+  public FileRenamePipeline(int capacity, int workerCount, ExecutorService workers,
+                            Consumer<FileRenameJob> onJobCompletion) {
+    this(capacity, workerCount, workers, FileRenamePipeline::processJob, onJobCompletion);
+  }
+
+  /**
+   * Creates a pipeline processing its jobs by the given processor.
+   *
+   * @param processor processes a job and returns whether it is complete, {@code false} if the job was deferred. Deferred
+   *                  jobs are neither counted nor passed to {@code onJobCompletion}.
+   */
+  public FileRenamePipeline(int capacity, int workerCount, ExecutorService workers,
+                            Predicate<FileRenameJob> processor, Consumer<FileRenameJob> onJobCompletion) {
+    if (capacity < 1 || workerCount < 1) {
+      workers.shutdown();
+      throw new IllegalArgumentException("Pipeline capacity and worker count must be > 0");
+    }
+    this.capacity = new Semaphore(capacity);
+    this.workers = workers;
+    this.processor = processor;
+    this.onJobCompletion = onJobCompletion;
+    Arrays.stream(JobStatus.values()).forEach(status -> results.put(status, new LongAdder()));
+  }
+
+  public void submit(FileRenameJob job) {
+    if (!acceptingJobs) {
+      throw new IllegalStateException("Pipeline does not accept any further jobs.");
+    }
+    try {
+      capacity.acquire();
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for free pipeline capacity.", exception);
+    }
+    try {
+      workers.execute(() -> {
+        try {
+          process(job);
+        } finally {
+          capacity.release();
+        }
+      });
+    } catch (RejectedExecutionException exception) {
+      capacity.release();
+      throw new IllegalStateException("Pipeline does not accept any further jobs.", exception);
+    }
+  }
+
+  /**
+   * Stops accepting new jobs and waits until all jobs submitted so far have been processed.
+   *
+   * @return the number of processed jobs per {@link JobStatus}.
+   */
+  public Map<JobStatus, Long> awaitCompletion() throws InterruptedException {
+    acceptingJobs = false;
+    workers.shutdown();
+    while (!workers.awaitTermination(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+      log.trace("Waiting for submitted jobs to be processed.");
+    }
+    return getResults();
+  }
+
+  public Map<JobStatus, Long> getResults() {
+    var snapshot = new EnumMap<JobStatus, Long>(JobStatus.class);
+    results.forEach((status, count) -> {
+      if (count.sum() > 0) {
+        snapshot.put(status, count.sum());
+      }
+    });
+    return snapshot;
+  }
+
+  private static boolean processJob(FileRenameJob job) {
+    job.process();
+    return true;
+  }
+
+  private void process(FileRenameJob job) {
+    JobStatus jobStatus;
+    try {
+      if (!processor.test(job)) {
+        return;
+      }
+      jobStatus = job.getJobStatus();
+    } catch (Exception exception) {
+      log.warn("Could not process file {}: {}.", job.getJobArguments().inputFile(), exception.getMessage());
+      jobStatus = JobStatus.FAILED;
+    }
+    results.get(jobStatus).increment();
+    try {
+      onJobCompletion.accept(job);
+    } catch (RuntimeException exception) {
+      // the job is complete anyway, its result has been counted
+      log.warn("Could not complete processing of file {}: {}.", job.getJobArguments().inputFile(),
+          exception.getMessage());
+    }
+  }
+
+  @Override
+  public void close() {
+    acceptingJobs = false;
+    workers.shutdownNow();
+  }
+
+}
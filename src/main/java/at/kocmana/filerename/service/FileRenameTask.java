@@ -1,19 +1,38 @@
 package at.kocmana.filerename.service;
 
 import at.kocmana.filerename.model.CommandLineArguments;
+import at.kocmana.filerename.model.FileContext;
 import at.kocmana.filerename.model.JobArguments;
+import at.kocmana.filerename.service.cache.MetadataCache;
+import at.kocmana.filerename.service.discovery.DirectoryIndex;
+import at.kocmana.filerename.service.discovery.DirectoryWatcher;
+import at.kocmana.filerename.service.discovery.FileDiscovery;
+import at.kocmana.filerename.service.discovery.ParallelFileWalker;
+import at.kocmana.filerename.service.execution.JobExecutor;
+import at.kocmana.filerename.service.fileoperation.DirectorySyncer;
+import at.kocmana.filerename.service.ordering.ExternalMergeSorter;
+import at.kocmana.filerename.service.ordering.SortKeys;
+import at.kocmana.filerename.service.planning.RenamePlanner;
+import at.kocmana.filerename.service.planning.TargetNameRegistry;
+import at.kocmana.filerename.service.transformation.FilenameMatcher;
+import at.kocmana.filerename.service.transformation.OutputTemplate;
 import at.kocmana.filerename.service.transformation.TransformationRuleFactory;
 import at.kocmana.filerename.service.transformation.rules.TransformationRule;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.Callable;
+import java.util.function.BiConsumer;
 import java.util.function.BiPredicate;
-import java.util.regex.Pattern;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,15 +41,56 @@ public class FileRenameTask implements Callable<FileRenameTask.TaskStatus> {
 
   private static final Logger log = LoggerFactory.getLogger(FileRenameTask.class);
   private static final String LIST_LINE_BREAK = "\r\n\t";
+  private static final int PIPELINE_WORKERS = Runtime.getRuntime().availableProcessors();
+  private static final int PIPELINE_CAPACITY = PIPELINE_WORKERS * 256;
+  private static final Duration WATCH_QUIET_PERIOD = Duration.ofSeconds(2);
+  // files are reported by the watcher after the quiet period, unless it is held up by a full pipeline
+  private static final Duration WATCHED_FILES_EXPIRY = WATCH_QUIET_PERIOD.multipliedBy(30);
+  // roughly 1 KiB per sorted file, use at most an eighth of the heap before spilling to disk
+  private static final int MAX_SORTED_FILES_IN_MEMORY =
+          (int) Math.min(Integer.MAX_VALUE, Math.max(10_000, Runtime.getRuntime().maxMemory() / 8 / 1024));
 
   private final CommandLineArguments arguments;
+  private final FileDiscovery fileDiscovery;
+  private final JobExecutor jobExecutor;
+  private final DirectorySyncer directorySyncer;
+  private final ParallelFileWalker fileWalker = ParallelFileWalker.withDefaultPool();
+  private final ExpiringPathSet createdFiles = new ExpiringPathSet(WATCHED_FILES_EXPIRY);
+  private final ExpiringPathSet handledFiles = new ExpiringPathSet(WATCHED_FILES_EXPIRY);
+  private final TargetNameRegistry targetNameRegistry = new TargetNameRegistry();
 
   private TaskStatus taskStatus = TaskStatus.CREATED;
   private List<FileRenameJob> fileRenameJobs = Collections.emptyList();
   private List<TransformationRule> transformationRules = Collections.emptyList();
+  private FilenameMatcher filenameMatcher;
+  private OutputTemplate outputTemplate;
+  private DirectoryIndex directoryIndex;
+  private MetadataCache metadataCache;
+  private int maxSortedFilesInMemory = MAX_SORTED_FILES_IN_MEMORY;
 
   public FileRenameTask(CommandLineArguments arguments) {
     this.arguments = arguments;
+    this.fileDiscovery = this::walkDirectory;
+    this.jobExecutor = new JobExecutor(arguments.executionStrategy());
+    this.directorySyncer = new DirectorySyncer(arguments.durability());
+  }
+
+  /**
+   * Creates a task that receives its files from the given discovery instead of walking its directory on its own.
+   */
+  public FileRenameTask(CommandLineArguments arguments, FileDiscovery fileDiscovery) {
+    this.arguments = arguments;
+    this.fileDiscovery = fileDiscovery;
+    this.jobExecutor = new JobExecutor(arguments.executionStrategy());
+    this.directorySyncer = new DirectorySyncer(arguments.durability());
+  }
+
+  /**
+   * Creates a task that sorts at most the given number of files in memory before spilling them to disk.
+   */
+  FileRenameTask(CommandLineArguments arguments, int maxSortedFilesInMemory) {
+    this(arguments);
+    this.maxSortedFilesInMemory = maxSortedFilesInMemory;
   }
 
   public TaskStatus getTaskStatus() {
@@ -39,27 +99,271 @@ public class FileRenameTask implements Callable<FileRenameTask.TaskStatus> {
 
   @Override
   public TaskStatus call() {
+    try (fileDiscovery) {
+      return process();
+    } finally {
+      directorySyncer.flush();
+      closeMetadataCache();
+    }
+  }
+
+  private TaskStatus process() {
     transformationRules = TransformationRuleFactory.generateApplicableTransformationRules(arguments.inputTemplate(),
             arguments.outputTemplate());
     transformationRules.forEach(transformationRule -> log.info(transformationRule.toString()));
-    var searchString = generateFileSearchPattern();
-    generateRenameJobs(searchString);
+    openMetadataCache();
+    log.debug("Running jobs on {} executor.", jobExecutor);
+    outputTemplate = OutputTemplate.parse(arguments.outputTemplate(), transformationRules);
+    filenameMatcher = FilenameMatcher.forInputTemplate(arguments.inputTemplate(), transformationRules,
+            arguments.regexEngine());
+    var searchCriteria = generateSearchCriteria();
 
     this.taskStatus = TaskStatus.RUNNING;
+    loadDirectoryIndex();
+
+    try (var directoryWatcher = createDirectoryWatcher()) {
+      if (arguments.streaming()) {
+        processRenameJobsWhileSearching(searchCriteria);
+      } else {
+        processRenameJobsInOrder(searchCriteria);
+      }
+      directorySyncer.flush();
+      saveDirectoryIndex();
+      logRuleStatistics();
+
+      if (directoryWatcher != null && taskStatus == TaskStatus.SUCCESS) {
+        processNewFiles(directoryWatcher, searchCriteria);
+      }
+    } catch (IOException exception) {
+      failTask("Could not watch directory {}: {}",
+              arguments.path().toAbsolutePath().toString(),
+              exception.getMessage());
+    }
+
+    return taskStatus;
+  }
+
+  private void walkDirectory(BiPredicate<Path, BasicFileAttributes> searchCriteria,
+                             BiConsumer<Path, BasicFileAttributes> consumer) throws IOException {
+    var searchDepth = arguments.recursive() ? Integer.MAX_VALUE : 1;
+    fileWalker.walk(arguments.path(), searchDepth, searchCriteria, directoryIndex, consumer);
+  }
+
+  private DirectoryWatcher createDirectoryWatcher() throws IOException {
+    if (!arguments.watch()) {
+      return null;
+    }
+    return new DirectoryWatcher(arguments.path(), arguments.recursive(), WATCH_QUIET_PERIOD);
+  }
+
+  private void processNewFiles(DirectoryWatcher directoryWatcher,
+                               BiPredicate<Path, BasicFileAttributes> searchCriteria) {
+    createdFiles.startExpiring();
+    handledFiles.startExpiring();
+    // listings taken so far would go stale while watching, other processes may add and remove files meanwhile
+    targetNameRegistry.checkDiskForTakenNames();
+    try (var pipeline = newPipeline()) {
+      directoryWatcher.watch(searchCriteria, forMatchingFiles(fileContext -> {
+        if (!wasHandledBefore(fileContext.file())) {
+          pipeline.submit(createRenameJob(fileContext));
+        }
+      }));
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      log.info("Stopped watching directory {}.", arguments.path().toAbsolutePath());
+      logRuleStatistics();
+    }
+  }
+
+  private void logRuleStatistics() {
+    transformationRules.forEach(transformationRule -> transformationRule.getStatistics().ifPresent(log::info));
+  }
+
+  private boolean wasHandledBefore(Path file) {
+    // copied files remain in place and would be picked up again by the watcher
+    return arguments.createCopy() && !handledFiles.add(file);
+  }
 
+  private void openMetadataCache() {
+    if (arguments.metadataCache() == null) {
+      return;
+    }
     try {
-      fileRenameJobs.parallelStream()
-              .forEach(FileRenameJob::prepare);
-      log.info("The following operations will be performed: " + LIST_LINE_BREAK + "{}", fileRenameJobsToString());
-      fileRenameJobs.parallelStream()
-              .forEach(FileRenameJob::call);
+      metadataCache = MetadataCache.open(arguments.metadataCache());
+    } catch (IOException exception) {
+      log.warn("Could not open metadata cache {}, continuing without it: {}", arguments.metadataCache(),
+              exception.getMessage());
+    }
+    if (metadataCache != null) {
+      transformationRules.forEach(transformationRule -> transformationRule.useMetadataCache(metadataCache));
+    }
+  }
+
+  private void closeMetadataCache() {
+    if (metadataCache != null) {
+      metadataCache.close();
+      metadataCache = null;
+    }
+  }
+
+  private void loadDirectoryIndex() {
+    if (arguments.indexFile() == null) {
+      return;
+    }
+    var signature = String.join("\n", arguments.path().toAbsolutePath().normalize().toString(),
+            arguments.inputTemplate(), arguments.outputTemplate(), String.valueOf(arguments.recursive()),
+            String.valueOf(arguments.createCopy()));
+    try {
+      directoryIndex = DirectoryIndex.load(arguments.indexFile(), signature);
+    } catch (IOException exception) {
+      log.warn("Could not read index {}, all directories will be scanned: {}", arguments.indexFile(),
+              exception.getMessage());
+      directoryIndex = DirectoryIndex.empty(arguments.indexFile(), signature);
+    }
+  }
+
+  private void saveDirectoryIndex() {
+    if (directoryIndex == null) {
+      return;
+    }
+    log.info("Skipped {} directories unchanged since the last run.", directoryIndex.getSkippedDirectoryCount());
+    if (taskStatus != TaskStatus.SUCCESS || arguments.dryRun()) {
+      return;
+    }
+    try {
+      directoryIndex.save();
+    } catch (IOException exception) {
+      log.warn("Could not update index {}: {}", arguments.indexFile(), exception.getMessage());
+    }
+  }
+
+  private void updateDirectoryIndex(FileRenameJob job) {
+    if (directoryIndex == null || arguments.dryRun()) {
+      return;
+    }
+    var inputFile = job.getJobArguments().inputFile();
+    if (!job.getJobStatus().isSuccessful()) {
+      directoryIndex.markFailed(inputFile);
+    } else if (arguments.createCopy()) {
+      try {
+        directoryIndex.markProcessed(inputFile);
+      } catch (IOException exception) {
+        directoryIndex.markFailed(inputFile);
+      }
+    }
+  }
+
+  /**
+   * Dry runs prepare all jobs first, so the complete plan can be logged. Otherwise every job is executed as soon as it
+   * is prepared, so a job that is slow to prepare does not hold back the others.
+   */
+  private void processRenameJobs() {
+    if (taskStatus == TaskStatus.FAILURE) {
+      return;
+    }
+    try {
+      if (arguments.dryRun()) {
+        prepareRenameJobs();
+        log.info("The following operations will be performed: " + LIST_LINE_BREAK + "{}", fileRenameJobsToString());
+        jobExecutor.forEach(fileRenameJobs, FileRenameJob::call);
+        fileRenameJobs.forEach(this::onJobCompleted);
+      } else if (arguments.createCopy()) {
+        jobExecutor.forEach(fileRenameJobs, job -> {
+          job.process();
+          onJobProcessed(job);
+        });
+      } else {
+        var renamePlanner = new RenamePlanner(fileRenameJobs, targetNameRegistry);
+        jobExecutor.forEach(fileRenameJobs, job -> {
+          if (renamePlanner.processOrDefer(job)) {
+            onJobProcessed(job);
+          }
+        });
+        jobExecutor.forEach(renamePlanner.planDeferredJobs(), chain -> chain.execute(this::onJobProcessed));
+      }
       log.info("Completed. Result:" + LIST_LINE_BREAK + "{}", generateResultStatistics());
       this.taskStatus = TaskStatus.SUCCESS;
     } catch (Exception exception) {
       log.error("Could not finish task with arguments: {}: {}", arguments, exception.getMessage(), exception);
     }
+  }
 
-    return taskStatus;
+  private void prepareRenameJobs() {
+    if (arguments.createCopy()) {
+      jobExecutor.forEach(fileRenameJobs, FileRenameJob::prepare);
+      return;
+    }
+    // files renamed in the same run free their names, as they do when the jobs are executed
+    jobExecutor.forEach(fileRenameJobs, FileRenameJob::renderOutputFileName);
+    new RenamePlanner(fileRenameJobs, targetNameRegistry).reserveAssumingAllMoved(fileRenameJobs);
+  }
+
+  private void processRenameJobsWhileSearching(BiPredicate<Path, BasicFileAttributes> searchCriteria) {
+    try (var pipeline = newPipeline()) {
+      fileDiscovery.discover(searchCriteria,
+              forMatchingFiles(fileContext -> pipeline.submit(createRenameJob(fileContext))));
+      var results = pipeline.awaitCompletion();
+      log.info("Completed. Result:" + LIST_LINE_BREAK + "{}", resultStatisticsToString(results));
+      this.taskStatus = TaskStatus.SUCCESS;
+    } catch (IOException exception) {
+      failTask("Could not lookup files in directory {}: {}",
+              arguments.path().toAbsolutePath().toString(),
+              exception.getMessage());
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      failTask("Interrupted while processing files in directory {}", arguments.path().toAbsolutePath().toString());
+    } catch (Exception exception) {
+      failTask("Could not finish task with arguments: {}: {}", arguments, exception.getMessage(), exception);
+    }
+  }
+
+  private FileRenamePipeline newPipeline() {
+    return newPipeline(job -> {
+      job.process();
+      return true;
+    });
+  }
+
+  private FileRenamePipeline newPipeline(Predicate<FileRenameJob> processor) {
+    var workerCount = jobExecutor.pipelineWorkerCount(PIPELINE_WORKERS, PIPELINE_CAPACITY);
+    return new FileRenamePipeline(PIPELINE_CAPACITY, workerCount, jobExecutor.newWorkerPool(workerCount),
+            processor, this::onJobProcessed);
+  }
+
+  private void onJobProcessed(FileRenameJob job) {
+    if (arguments.dryRun() || arguments.watch()) {
+      log.info(describeJob(job));
+    } else {
+      log.debug(describeJob(job));
+    }
+    onJobCompleted(job);
+  }
+
+  private void onJobCompleted(FileRenameJob job) {
+    // files created while the directory is still being searched or watched must not be processed again
+    var outputFile = job.getOutputFile();
+    if ((arguments.streaming() || arguments.watch()) && outputFile != null && isSearchedFor(outputFile)) {
+      createdFiles.add(outputFile.toAbsolutePath().normalize());
+    }
+    syncOutputFile(job);
+    updateDirectoryIndex(job);
+  }
+
+  /**
+   * @return whether the file would be passed on by {@link #forMatchingFiles(Consumer)} if it was found.
+   */
+  private boolean isSearchedFor(Path file) {
+    return filenameMatcher.mayMatch(file.getFileName().toString()) && filenameMatcher.match(file, null) != null;
+  }
+
+  private void syncOutputFile(FileRenameJob job) {
+    var outputFile = job.getOutputFile();
+    if (outputFile == null) {
+      return;
+    }
+    var inputDirectory = job.getJobArguments().inputDirectory();
+    // copies write the content of the output file, moves to another file store sync it before deleting their source
+    directorySyncer.register(outputFile, arguments.createCopy() ? null : inputDirectory, arguments.createCopy());
   }
 
   public String getStatus() {
@@ -68,58 +372,147 @@ public class FileRenameTask implements Callable<FileRenameTask.TaskStatus> {
             .collect(Collectors.joining("\r\n"));
   }
 
-  private String generateFileSearchPattern() {
-    var searchString = arguments.inputTemplate();
-    for (var transformationRule : transformationRules) {
-      searchString = transformationRule.replaceTemplateWithSearchString(searchString);
-    }
-    return searchString;
+  private BiPredicate<Path, BasicFileAttributes> generateSearchCriteria() {
+    log.debug("Literals required in matching file names: {}", filenameMatcher.getRequiredLiterals());
+    return (path, attributes) -> attributes.isRegularFile()
+            && filenameMatcher.mayMatch(path.getFileName().toString());
   }
 
-  private void generateRenameJobs(String searchString) {
-    var filePattern = Pattern.compile(searchString);
-    var searchPattern = filePattern.asPredicate();
-
-    BiPredicate<Path, BasicFileAttributes> searchCriteria = (path, attributes) -> {
-      var filename = path.getFileName().toString();
-      return attributes.isRegularFile() && searchPattern.test(filename);
+  /**
+   * Matches the names of the files found against the search pattern, so every file name is matched only once. Files
+   * created by this task are skipped.
+   */
+  private BiConsumer<Path, BasicFileAttributes> forMatchingFiles(Consumer<FileContext> consumer) {
+    return (file, attributes) -> {
+      if (!createdFiles.isEmpty() && createdFiles.remove(file.toAbsolutePath().normalize())) {
+        return;
+      }
+      var fileContext = filenameMatcher.match(file, attributes);
+      if (fileContext != null) {
+        consumer.accept(fileContext);
+      }
     };
+  }
 
-    var searchDepth = arguments.recursive() ? Integer.MAX_VALUE : 1;
-    try (var relevantFiles = Files.find(arguments.path(), searchDepth, searchCriteria)) {
-      var files = relevantFiles.toList();
-      log.info("Files matching provided input pattern:" + LIST_LINE_BREAK + "{}", matchingFilesToString(files));
-
-      fileRenameJobs = files.stream()
-              .map(file -> new JobArguments(file, transformationRules, arguments.outputTemplate(), arguments.dryRun(),
-                      arguments.createCopy(), arguments.collisionResolutionStrategy()))
-              .map(FileRenameJob::new)
-              .toList();
-    } catch (IOException exception) {
+  /**
+   * Collects all matching files and sorts them by the requested order, so enumerations are assigned by position
+   * instead of by whichever job is prepared first. If there are too many files to keep them in memory, they are
+   * processed in sorted order while being read back from disk.
+   */
+  private void processRenameJobsInOrder(BiPredicate<Path, BasicFileAttributes> searchCriteria) {
+    var sortKey = SortKeys.forSortOrder(arguments.sortOrder(), transformationRules);
+    try (var sorter = new ExternalMergeSorter(maxSortedFilesInMemory)) {
+      fileDiscovery.discover(searchCriteria,
+              forMatchingFiles(fileContext -> sorter.add(sortKey.apply(fileContext), fileContext)));
+      if (sorter.hasSpilled()) {
+        processSortedRenameJobs(sorter);
+      } else {
+        generateRenameJobs(sorter);
+        processRenameJobs();
+      }
+    } catch (IOException | UncheckedIOException exception) {
       failTask("Could not lookup files in directory {}: {}",
               arguments.path().toAbsolutePath().toString(),
               exception.getMessage());
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      failTask("Interrupted while searching files in directory {}", arguments.path().toAbsolutePath().toString());
+    }
+  }
+
+  private void generateRenameJobs(ExternalMergeSorter sorter) throws IOException {
+    var files = new ArrayList<FileContext>();
+    var ordinal = 0L;
+    for (var entries = sorter.sorted(); entries.hasNext(); ) {
+      files.add(entries.next().fileContext().withOrdinal(ordinal++));
+    }
+    if (arguments.dryRun()) {
+      log.info("Files matching provided input pattern:" + LIST_LINE_BREAK + "{}", matchingFilesToString(files));
+    } else {
+      log.info("{} files match the provided input pattern.", files.size());
+    }
+
+    fileRenameJobs = files.stream()
+            .map(this::createRenameJob)
+            .toList();
+  }
+
+  /**
+   * Renames are ordered by a {@link RenamePlanner} as when all jobs are held in memory. It only needs to know the input
+   * files up front, so the sorted files are read twice: once to collect their paths and once to create the jobs.
+   */
+  private void processSortedRenameJobs(ExternalMergeSorter sorter) throws IOException, InterruptedException {
+    log.info("{} files match the provided input pattern, processing them in sorted order.", sorter.size());
+    var renamePlanner = arguments.createCopy() ? null : new RenamePlanner(targetNameRegistry);
+    if (renamePlanner != null) {
+      for (var entries = sorter.sorted(); entries.hasNext(); ) {
+        renamePlanner.addInputFile(entries.next().file());
+      }
+    }
+    Map<FileRenameJob.JobStatus, Long> results;
+    try (var pipeline = renamePlanner == null ? newPipeline() : newPipeline(renamePlanner::processOrDefer)) {
+      var ordinal = 0L;
+      for (var entries = sorter.sorted(); entries.hasNext(); ) {
+        var entry = entries.next();
+        // only the path of spilled files is kept, so their names have to be matched again
+        var fileContext = entry.fileContext() != null
+                ? entry.fileContext()
+                : filenameMatcher.match(entry.file(), null);
+        if (fileContext != null) {
+          pipeline.submit(createRenameJob(fileContext.withOrdinal(ordinal++)));
+        } else {
+          log.warn("Skipping file no longer matching the input pattern: {}", entry.file());
+          if (renamePlanner != null) {
+            renamePlanner.removeInputFile(entry.file());
+          }
+        }
+      }
+      results = pipeline.awaitCompletion();
+    }
+    if (renamePlanner != null) {
+      var chains = renamePlanner.planDeferredJobs();
+      jobExecutor.forEach(chains, chain -> chain.execute(this::onJobProcessed));
+      chains.stream()
+              .flatMap(chain -> chain.jobs().stream())
+              .forEach(job -> results.merge(job.getJobStatus(), 1L, Long::sum));
+    }
+    log.info("Completed. Result:" + LIST_LINE_BREAK + "{}", resultStatisticsToString(results));
+    this.taskStatus = TaskStatus.SUCCESS;
+  }
+
+  private FileRenameJob createRenameJob(FileContext fileContext) {
+    if (arguments.watch() && arguments.createCopy()) {
+      handledFiles.add(fileContext.file());
     }
+    var jobArguments = new JobArguments(fileContext, outputTemplate, arguments.dryRun(), arguments.createCopy(),
+            arguments.collisionResolutionStrategy(), targetNameRegistry, arguments.durability());
+    return new FileRenameJob(jobArguments);
   }
 
-  private String matchingFilesToString(List<Path> files) {
+  private String matchingFilesToString(List<FileContext> files) {
     return files.stream()
-            .map(Path::toString)
+            .map(fileContext -> fileContext.file().toString())
             .collect(Collectors.joining(LIST_LINE_BREAK));
   }
 
   private String fileRenameJobsToString() {
-    var action = arguments.createCopy() ? "COPY " : "MOVE ";
-
     return fileRenameJobs.stream()
-        .map(FileRenameJob::toString)
-        .map(fileRenameDescription -> action + fileRenameDescription)
+        .map(this::describeJob)
         .collect(Collectors.joining(LIST_LINE_BREAK));
   }
 
+  private String describeJob(FileRenameJob job) {
+    var action = arguments.createCopy() ? "COPY " : "MOVE ";
+    return action + job;
+  }
+
   private String generateResultStatistics() {
     var status = fileRenameJobs.stream()
             .collect(Collectors.groupingBy(FileRenameJob::getJobStatus, Collectors.counting()));
+    return resultStatisticsToString(status);
+  }
+
+  private String resultStatisticsToString(Map<FileRenameJob.JobStatus, Long> status) {
     return status.keySet().stream().map(key -> String.format("%s: %d", key.toString(), status.get(key)))
             .collect(Collectors.joining(LIST_LINE_BREAK));
   }
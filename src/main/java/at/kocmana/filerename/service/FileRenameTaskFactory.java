@@ -0,0 +1,86 @@
+package at.kocmana.filerename.service;
+
+import at.kocmana.filerename.model.CommandLineArguments;
+import at.kocmana.filerename.service.discovery.ParallelFileWalker;
+import at.kocmana.filerename.service.discovery.SharedFileWalk;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class FileRenameTaskFactory {
+
+  private FileRenameTaskFactory() {
+  }
+
+  /**
+   * Creates one task per set of arguments. Tasks searching the same directory tree share a single walk of it: a task
+   * joins the walk of another one if it searches the same directory, or a directory within the tree of a recursive
+   * task. Tasks using an index or watching their directory always walk on their own.
+   */
+  public static List<FileRenameTask> createTasks(List<CommandLineArguments> argumentsList) {
+    var walks = assignSharedWalks(argumentsList);
+    return argumentsList.stream()
+        .map(arguments -> {
+          var walk = walks.get(arguments);
+          return walk == null
+              ? new FileRenameTask(arguments)
+              : new FileRenameTask(arguments, walk.join(arguments.path(), arguments.recursive()));
+        })
+        .toList();
+  }
+
+  private static Map<CommandLineArguments, SharedFileWalk> assignSharedWalks(List<CommandLineArguments> argumentsList) {
+    var groups = new ArrayList<WalkGroup>();
+    argumentsList.stream()
+        .filter(arguments -> arguments.indexFile() == null && !arguments.watch())
+        // parent directories and recursive tasks first, so nested tasks find the group they belong to
+        .sorted(Comparator.<CommandLineArguments>comparingInt(arguments -> normalize(arguments.path()).getNameCount())
+            .thenComparing(arguments -> !arguments.recursive()))
+        .forEach(arguments -> groups.stream()
+            .filter(group -> group.covers(arguments))
+            .findFirst()
+            .orElseGet(() -> {
+              var group = new WalkGroup(normalize(arguments.path()), arguments.recursive());
+              groups.add(group);
+              return group;
+            })
+            .members.add(arguments));
+
+    var walks = new HashMap<CommandLineArguments, SharedFileWalk>();
+    var fileWalker = ParallelFileWalker.withDefaultPool();
+    for (var group : groups) {
+      if (group.members.size() < 2) {
+        continue;
+      }
+      var walk = new SharedFileWalk(fileWalker, group.root, group.recursive ? Integer.MAX_VALUE : 1);
+      group.members.forEach(arguments -> walks.put(arguments, walk));
+    }
+    return walks;
+  }
+
+  private static Path normalize(Path path) {
+    return path.toAbsolutePath().normalize();
+  }
+
+  private static class WalkGroup {
+
+    private final Path root;
+    private final boolean recursive;
+    private final List<CommandLineArguments> members = new ArrayList<>();
+
+    WalkGroup(Path root, boolean recursive) {
+      this.root = root;
+      this.recursive = recursive;
+    }
+
+    boolean covers(CommandLineArguments arguments) {
+      var path = normalize(arguments.path());
+      // a walk restricted to the root directory must not be extended to cover the subdirectories of another task
+      return recursive ? path.startsWith(root) : path.equals(root) && !arguments.recursive();
+    }
+  }
+
+}
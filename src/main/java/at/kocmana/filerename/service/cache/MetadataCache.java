@@ -0,0 +1,321 @@
+package at.kocmana.filerename.service.cache;
+
+import at.kocmana.filerename.model.FileContext;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32C;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>On-disk cache for metadata that rules derive from the content of files, e.g. hashes or EXIF dates.</p>
+ * Entries are keyed by the file key (or the absolute path if the file system has none), size and modification time of
+ * a file together with a namespace chosen by the rule. A file is thus found again after it was renamed, and any change
+ * to it invalidates its entries.
+ *
+ * <p>The cache is a fixed-size hash table in a memory-mapped file. Slots are grouped into buckets of
+ * {@value #BUCKET_SIZE}; an entry is stored in the bucket selected by a 128-bit fingerprint of its key, replacing the
+ * least recently used entry of the bucket if it is full. The file therefore never grows beyond its initial size.
+ * Values may have at most {@value #MAX_VALUE_SIZE} bytes, larger ones are not cached. Every slot carries a checksum of
+ * its fingerprint and value, so slots only partially written to disk (e.g. on a power loss) are treated as empty.</p>
+ *
+ * <p>Tasks of the same run share one instance per file, other processes using the same file run without the
+ * cache. An existing file is only used if it is a cache of the same format and size, it is never overwritten.</p>
+ */
+public class MetadataCache implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(MetadataCache.class);
+  private static final Map<Path, MetadataCache> OPEN_CACHES = new HashMap<>();
+
+  public static final int DEFAULT_SLOT_COUNT = 1 << 18;
+  static final int MAX_VALUE_SIZE = 64;
+  static final int BUCKET_SIZE = 8;
+
+  private static final int MAGIC_NUMBER = 0x46524D43;
+  private static final int FORMAT_VERSION = 1;
+  private static final int HEADER_SIZE = 64;
+  private static final int CLOCK_OFFSET = 16;
+  private static final int SLOT_SIZE = 96;
+  private static final int FINGERPRINT_HIGH = 0;
+  private static final int FINGERPRINT_LOW = 8;
+  private static final int LAST_USED = 16;
+  private static final int VALUE_LENGTH = 24;
+  private static final int VALUE = 25;
+  private static final int CHECKSUM = 92;
+  private static final int LOCK_STRIPES = 64;
+
+  private final Path cacheFile;
+  private final FileChannel channel;
+  private final FileLock fileLock;
+  private final MappedByteBuffer table;
+  private final int bucketCount;
+  private final Object[] locks = new Object[LOCK_STRIPES];
+  private final AtomicLong clock;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private int references;
+
+  private MetadataCache(Path cacheFile, FileChannel channel, FileLock fileLock, MappedByteBuffer table,
+                        int slotCount) {
+    this.cacheFile = cacheFile;
+    this.channel = channel;
+    this.fileLock = fileLock;
+    this.table = table;
+    this.bucketCount = slotCount / BUCKET_SIZE;
+    this.clock = new AtomicLong(table.getLong(CLOCK_OFFSET));
+    Arrays.setAll(locks, i -> new Object());
+  }
+
+  /**
+   * Opens the cache stored in the given file, creating it if necessary. Every call has to be followed by a call to
+   * {@link #close()}.
+   *
+   * @return the cache or {@code null} if the file is used by another process.
+   */
+  public static MetadataCache open(Path cacheFile) throws IOException {
+    return open(cacheFile, DEFAULT_SLOT_COUNT);
+  }
+
+  static synchronized MetadataCache open(Path cacheFile, int slotCount) throws IOException {
+    if (slotCount < BUCKET_SIZE || slotCount % BUCKET_SIZE != 0) {
+      throw new IllegalArgumentException("Number of slots must be a positive multiple of " + BUCKET_SIZE);
+    }
+    var key = cacheFile.toAbsolutePath().normalize();
+    var cache = OPEN_CACHES.get(key);
+    if (cache == null) {
+      cache = map(key, slotCount);
+      if (cache == null) {
+        return null;
+      }
+      OPEN_CACHES.put(key, cache);
+    }
+    cache.references++;
+    return cache;
+  }
+
+  private static MetadataCache map(Path cacheFile, int slotCount) throws IOException {
+    var channel = FileChannel.open(cacheFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    try {
+      var fileLock = channel.tryLock();
+      if (fileLock == null) {
+        log.warn("Metadata cache {} is in use by another process, continuing without it.", cacheFile);
+        channel.close();
+        return null;
+      }
+      var size = HEADER_SIZE + (long) slotCount * SLOT_SIZE;
+      if (channel.size() == 0) {
+        log.info("Creating metadata cache {}.", cacheFile);
+        writeHeader(channel, slotCount);
+      } else {
+        checkHeader(cacheFile, channel, slotCount);
+      }
+      var table = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      return new MetadataCache(cacheFile, channel, fileLock, table, slotCount);
+    } catch (IOException | RuntimeException exception) {
+      channel.close();
+      throw exception;
+    }
+  }
+
+  /**
+   * Writes the header before the file is extended to its full size, so an interrupted creation still leaves a valid
+   * cache.
+   */
+  private static void writeHeader(FileChannel channel, int slotCount) throws IOException {
+    var header = ByteBuffer.allocate(12)
+        .putInt(MAGIC_NUMBER)
+        .putInt(FORMAT_VERSION)
+        .putInt(slotCount)
+        .flip();
+    while (header.hasRemaining()) {
+      channel.write(header, header.position());
+    }
+  }
+
+  private static void checkHeader(Path cacheFile, FileChannel channel, int slotCount) throws IOException {
+    var header = ByteBuffer.allocate(12);
+    channel.read(header, 0);
+    if (header.hasRemaining() || header.getInt(0) != MAGIC_NUMBER) {
+      throw new IOException(String.format("File %s is not a metadata cache, choose another file", cacheFile));
+    }
+    if (header.getInt(4) != FORMAT_VERSION || header.getInt(8) != slotCount) {
+      throw new IOException(String.format("Metadata cache %s was created by another version, delete it to create a "
+          + "new one", cacheFile));
+    }
+  }
+
+  /**
+   * @return the value cached for the file in the given namespace or the value provided by the loader, which is then
+   * cached.
+   */
+  public byte[] get(FileContext fileContext, String namespace, Loader loader) throws IOException {
+    var fingerprint = fingerprint(fileContext, namespace);
+    var cachedValue = get(fingerprint);
+    if (cachedValue != null) {
+      hits.increment();
+      return cachedValue;
+    }
+    misses.increment();
+    var value = loader.load();
+    put(fingerprint, value);
+    return value;
+  }
+
+  private byte[] get(long[] fingerprint) {
+    var bucket = bucketOf(fingerprint);
+    synchronized (locks[bucket % LOCK_STRIPES]) {
+      var slot = findSlot(bucket, fingerprint);
+      if (slot < 0 || !hasValidChecksum(slot)) {
+        return null;
+      }
+      table.putLong(slot + LAST_USED, clock.incrementAndGet());
+      var value = new byte[table.get(slot + VALUE_LENGTH)];
+      table.get(slot + VALUE, value);
+      return value;
+    }
+  }
+
+  private void put(long[] fingerprint, byte[] value) {
+    if (value.length > MAX_VALUE_SIZE) {
+      return;
+    }
+    var bucket = bucketOf(fingerprint);
+    synchronized (locks[bucket % LOCK_STRIPES]) {
+      var slot = findSlot(bucket, fingerprint);
+      if (slot < 0) {
+        slot = leastRecentlyUsedSlot(bucket);
+      }
+      // the fingerprint is written last, so a write interrupted by a crash of the process leaves an empty slot; the
+      // operating system may write the pages back in any order though, which is detected by the checksum
+      table.putLong(slot + FINGERPRINT_HIGH, 0);
+      table.putLong(slot + FINGERPRINT_LOW, 0);
+      table.putLong(slot + LAST_USED, clock.incrementAndGet());
+      table.put(slot + VALUE_LENGTH, (byte) value.length);
+      table.put(slot + VALUE, value);
+      table.putLong(slot + FINGERPRINT_HIGH, fingerprint[0]);
+      table.putLong(slot + FINGERPRINT_LOW, fingerprint[1]);
+      table.putInt(slot + CHECKSUM, checksum(slot, value.length));
+    }
+  }
+
+  private boolean hasValidChecksum(int slot) {
+    var valueLength = table.get(slot + VALUE_LENGTH);
+    return valueLength >= 0 && valueLength <= MAX_VALUE_SIZE
+        && table.getInt(slot + CHECKSUM) == checksum(slot, valueLength);
+  }
+
+  /**
+   * @return the checksum of the fingerprint, length and value of the slot, which leaves out the frequently updated
+   * time of last use.
+   */
+  private int checksum(int slot, int valueLength) {
+    var crc = new CRC32C();
+    crc.update(table.slice(slot + FINGERPRINT_HIGH, LAST_USED));
+    crc.update(table.slice(slot + VALUE_LENGTH, 1 + valueLength));
+    return (int) crc.getValue();
+  }
+
+  private int findSlot(int bucket, long[] fingerprint) {
+    for (int i = 0; i < BUCKET_SIZE; i++) {
+      var slot = slotOffset(bucket, i);
+      if (table.getLong(slot + FINGERPRINT_HIGH) == fingerprint[0]
+          && table.getLong(slot + FINGERPRINT_LOW) == fingerprint[1]) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+
+  private int leastRecentlyUsedSlot(int bucket) {
+    var leastRecentlyUsed = slotOffset(bucket, 0);
+    for (int i = 1; i < BUCKET_SIZE; i++) {
+      var slot = slotOffset(bucket, i);
+      // empty slots were never used
+      if (table.getLong(slot + LAST_USED) < table.getLong(leastRecentlyUsed + LAST_USED)) {
+        leastRecentlyUsed = slot;
+      }
+    }
+    return leastRecentlyUsed;
+  }
+
+  private int bucketOf(long[] fingerprint) {
+    return (int) Long.remainderUnsigned(fingerprint[0], bucketCount);
+  }
+
+  private static int slotOffset(int bucket, int index) {
+    return HEADER_SIZE + (bucket * BUCKET_SIZE + index) * SLOT_SIZE;
+  }
+
+  private static long[] fingerprint(FileContext fileContext, String namespace) throws IOException {
+    var attributes = fileContext.attributes() != null
+        ? fileContext.attributes()
+        : Files.readAttributes(fileContext.file(), BasicFileAttributes.class);
+    var fileKey = attributes.fileKey() != null
+        ? attributes.fileKey().toString()
+        : fileContext.file().toAbsolutePath().normalize().toString();
+    var key = String.join("\n", namespace, fileKey, Long.toString(attributes.size()),
+        Long.toString(attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS)));
+    var hash = ByteBuffer.wrap(sha256().digest(key.getBytes(StandardCharsets.UTF_8)));
+    // zero marks an empty slot
+    return new long[]{hash.getLong(0), hash.getLong(8) | 1};
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException exception) {
+      throw new IllegalStateException("SHA-256 is not available", exception);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Metadata cache %s: %d hits, %d misses", cacheFile, hits.sum(), misses.sum());
+  }
+
+  @Override
+  public void close() {
+    synchronized (MetadataCache.class) {
+      if (--references > 0) {
+        return;
+      }
+      OPEN_CACHES.remove(cacheFile.toAbsolutePath().normalize());
+    }
+    log.info(toString());
+    table.putLong(CLOCK_OFFSET, clock.get());
+    try {
+      table.force();
+      fileLock.release();
+      channel.close();
+    } catch (IOException exception) {
+      log.warn("Could not close metadata cache {}: {}", cacheFile, exception.getMessage());
+    }
+  }
+
+  /**
+   * Provides the value for a file that is not cached yet.
+   */
+  @FunctionalInterface
+  public interface Loader {
+
+    byte[] load() throws IOException;
+  }
+
+}
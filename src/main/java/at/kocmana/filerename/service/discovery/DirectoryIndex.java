@@ -0,0 +1,240 @@
+package at.kocmana.filerename.service.discovery;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>On-disk record of the directories visited by previous runs of a task.</p>
+ * For every directory the index stores its modification time (read <i>before</i> the directory was listed), the names
+ * of its subdirectories and the files that were already processed successfully while remaining in place (i.e. copied).
+ * A directory whose modification time did not change since the last successful run is not listed again: its
+ * subdirectories are taken from the index. Directories in which a job failed or which were modified just before being
+ * listed are always listed again.
+ *
+ * <p>The index is bound to a signature describing the task (path and templates). If the signature of a stored index
+ * differs, it is discarded and all directories are scanned.</p>
+ */
+public class DirectoryIndex {
+
+  private static final Logger log = LoggerFactory.getLogger(DirectoryIndex.class);
+  private static final int MAGIC_NUMBER = 0x46524958;
+  private static final int FORMAT_VERSION = 1;
+  private static final long UNKNOWN_MODIFICATION_TIME = -1;
+  // directories modified this recently may still change within the timestamp granularity of the file system
+  private static final long MINIMUM_DIRECTORY_AGE_MILLIS = 2000;
+
+  private final Path indexFile;
+  private final String signature;
+  private final Map<Path, DirectoryState> previousStates;
+  private final Map<Path, DirectoryState> currentStates = new ConcurrentHashMap<>();
+  private final Set<Path> directoriesWithFailures = ConcurrentHashMap.newKeySet();
+  private final LongAdder skippedDirectories = new LongAdder();
+
+  private DirectoryIndex(Path indexFile, String signature, Map<Path, DirectoryState> previousStates) {
+    this.indexFile = indexFile;
+    this.signature = signature;
+    this.previousStates = previousStates;
+  }
+
+  public static DirectoryIndex empty(Path indexFile, String signature) {
+    return new DirectoryIndex(indexFile, signature, Collections.emptyMap());
+  }
+
+  public static DirectoryIndex load(Path indexFile, String signature) throws IOException {
+    try (var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+      if (input.readInt() != MAGIC_NUMBER || input.readInt() != FORMAT_VERSION) {
+        log.warn("Ignoring index {}: unknown file format.", indexFile);
+        return empty(indexFile, signature);
+      }
+      if (!signature.equals(input.readUTF())) {
+        log.info("Ignoring index {}: it was created for a different task.", indexFile);
+        return empty(indexFile, signature);
+      }
+      return new DirectoryIndex(indexFile, signature, readDirectoryStates(input));
+    } catch (NoSuchFileException exception) {
+      log.info("No index found at {}, all directories will be scanned.", indexFile);
+      return empty(indexFile, signature);
+    }
+  }
+
+  private static Map<Path, DirectoryState> readDirectoryStates(DataInputStream input) throws IOException {
+    var directoryCount = input.readInt();
+    var states = new HashMap<Path, DirectoryState>(directoryCount * 2);
+    for (int i = 0; i < directoryCount; i++) {
+      var directory = Path.of(input.readUTF());
+      var state = new DirectoryState(input.readLong());
+      var subdirectoryCount = input.readInt();
+      for (int j = 0; j < subdirectoryCount; j++) {
+        state.subdirectories.add(input.readUTF());
+      }
+      var processedFileCount = input.readInt();
+      for (int j = 0; j < processedFileCount; j++) {
+        state.processedFiles.put(input.readUTF(), new FileState(input.readLong(), input.readLong()));
+      }
+      states.put(directory, state);
+    }
+    return states;
+  }
+
+  /**
+   * Writes the state of all directories visited in this run, replacing the previous index.
+   */
+  public void save() throws IOException {
+    var temporaryFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+    try (var output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+      output.writeInt(MAGIC_NUMBER);
+      output.writeInt(FORMAT_VERSION);
+      output.writeUTF(signature);
+      output.writeInt(currentStates.size());
+      for (var directoryState : currentStates.entrySet()) {
+        writeDirectoryState(output, directoryState.getKey(), directoryState.getValue());
+      }
+    }
+    try {
+      Files.move(temporaryFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException exception) {
+      Files.move(temporaryFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private void writeDirectoryState(DataOutputStream output, Path directory, DirectoryState state) throws IOException {
+    var lastModified = directoriesWithFailures.contains(directory) ? UNKNOWN_MODIFICATION_TIME : state.lastModified;
+    output.writeUTF(directory.toString());
+    output.writeLong(lastModified);
+    output.writeInt(state.subdirectories.size());
+    for (var subdirectory : state.subdirectories) {
+      output.writeUTF(subdirectory);
+    }
+    output.writeInt(state.processedFiles.size());
+    for (var processedFile : state.processedFiles.entrySet()) {
+      output.writeUTF(processedFile.getKey());
+      output.writeLong(processedFile.getValue().lastModified());
+      output.writeLong(processedFile.getValue().size());
+    }
+  }
+
+  /**
+   * Records a file that was processed successfully and is still present under its original name, so it is skipped
+   * by subsequent runs as long as it does not change.
+   */
+  public void markProcessed(Path file) throws IOException {
+    var state = currentStates.get(normalize(file.getParent()));
+    if (state != null) {
+      var attributes = Files.readAttributes(file, BasicFileAttributes.class);
+      state.processedFiles.put(file.getFileName().toString(), FileState.of(attributes));
+    }
+  }
+
+  /**
+   * Records that processing a file failed, causing its directory to be scanned again by the next run.
+   */
+  public void markFailed(Path file) {
+    directoriesWithFailures.add(normalize(file.getParent()));
+  }
+
+  public long getSkippedDirectoryCount() {
+    return skippedDirectories.sum();
+  }
+
+  DirectoryVisit visit(Path directory, FileTime lastModified) {
+    var normalizedDirectory = normalize(directory);
+    var previousState = previousStates.get(normalizedDirectory);
+    var lastModifiedMillis = lastModified.toMillis();
+
+    if (previousState != null && previousState.lastModified != UNKNOWN_MODIFICATION_TIME
+        && previousState.lastModified == lastModifiedMillis) {
+      currentStates.put(normalizedDirectory, previousState);
+      skippedDirectories.increment();
+      return new DirectoryVisit(true, previousState, previousState);
+    }
+
+    var isRecentlyModified = System.currentTimeMillis() - lastModifiedMillis < MINIMUM_DIRECTORY_AGE_MILLIS;
+    var currentState = new DirectoryState(isRecentlyModified ? UNKNOWN_MODIFICATION_TIME : lastModifiedMillis);
+    currentStates.put(normalizedDirectory, currentState);
+    return new DirectoryVisit(false, previousState, currentState);
+  }
+
+  private static Path normalize(Path directory) {
+    return directory.toAbsolutePath().normalize();
+  }
+
+  /**
+   * The state of a single directory during the current walk.
+   */
+  static class DirectoryVisit {
+
+    private final boolean unchanged;
+    private final DirectoryState previousState;
+    private final DirectoryState currentState;
+
+    private DirectoryVisit(boolean unchanged, DirectoryState previousState, DirectoryState currentState) {
+      this.unchanged = unchanged;
+      this.previousState = previousState;
+      this.currentState = currentState;
+    }
+
+    boolean isUnchanged() {
+      return unchanged;
+    }
+
+    Set<String> getSubdirectories() {
+      return Collections.unmodifiableSet(currentState.subdirectories);
+    }
+
+    void addSubdirectory(String name) {
+      currentState.subdirectories.add(name);
+    }
+
+    /**
+     * @return {@code true} if the file was already processed by a previous run and has not changed since.
+     */
+    boolean wasProcessed(String name, BasicFileAttributes attributes) {
+      if (previousState == null) {
+        return false;
+      }
+      var processedFile = previousState.processedFiles.get(name);
+      if (processedFile == null || !processedFile.equals(FileState.of(attributes))) {
+        return false;
+      }
+      currentState.processedFiles.put(name, processedFile);
+      return true;
+    }
+  }
+
+  private static class DirectoryState {
+
+    private final long lastModified;
+    private final Set<String> subdirectories = ConcurrentHashMap.newKeySet();
+    private final Map<String, FileState> processedFiles = new ConcurrentHashMap<>();
+
+    DirectoryState(long lastModified) {
+      this.lastModified = lastModified;
+    }
+  }
+
+  private record FileState(long lastModified, long size) {
+
+    static FileState of(BasicFileAttributes attributes) {
+      return new FileState(attributes.lastModifiedTime().toMillis(), attributes.size());
+    }
+  }
+
+}
@@ -0,0 +1,167 @@
+package at.kocmana.filerename.service.discovery;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Reports files that are created in or moved into a directory (and optionally all of its subdirectories).</p>
+ * A file is only reported once no further events were received for it during the quiet period, so files that are
+ * still being written are not picked up prematurely. Directories are registered when the watcher is created, hence
+ * files arriving while the existing files are still being processed are not missed.
+ */
+public class DirectoryWatcher implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(DirectoryWatcher.class);
+  private static final long MINIMUM_POLL_INTERVAL_MILLIS = 50;
+
+  private final Path root;
+  private final boolean recursive;
+  private final long quietPeriodNanos;
+  private final long pollIntervalMillis;
+  private final WatchService watchService;
+  private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+  private final Map<Path, Long> pendingFiles = new LinkedHashMap<>();
+
+  public DirectoryWatcher(Path root, boolean recursive, Duration quietPeriod) throws IOException {
+    this.root = root;
+    this.recursive = recursive;
+    this.quietPeriodNanos = quietPeriod.toNanos();
+    this.pollIntervalMillis = Math.max(MINIMUM_POLL_INTERVAL_MILLIS, quietPeriod.toMillis() / 4);
+    this.watchService = root.getFileSystem().newWatchService();
+    registerDirectories(root, false);
+  }
+
+  /**
+   * Passes every settled file that matches the search criteria to the consumer. Blocks until the calling thread is
+   * interrupted or the watcher is closed.
+   */
+  public void watch(BiPredicate<Path, BasicFileAttributes> searchCriteria,
+      BiConsumer<Path, BasicFileAttributes> consumer) throws InterruptedException {
+    log.info("Watching {}{} for new files.", root.toAbsolutePath(), recursive ? " and its subdirectories" : "");
+    while (true) {
+      var watchKey = watchService.poll(pollIntervalMillis, TimeUnit.MILLISECONDS);
+      if (watchKey != null) {
+        handleEvents(watchKey);
+      }
+      releaseSettledFiles(searchCriteria, consumer);
+    }
+  }
+
+  private void handleEvents(WatchKey watchKey) {
+    var directory = watchedDirectories.get(watchKey);
+    for (var event : watchKey.pollEvents()) {
+      if (event.kind() == OVERFLOW) {
+        log.warn("Missed file system events, rescanning all watched directories.");
+        List.copyOf(watchedDirectories.values()).forEach(this::addExistingFiles);
+        continue;
+      }
+      if (directory == null) {
+        continue;
+      }
+      var file = directory.resolve((Path) event.context());
+      if (recursive && event.kind() == ENTRY_CREATE && Files.isDirectory(file, LinkOption.NOFOLLOW_LINKS)) {
+        registerNewDirectory(file);
+      } else {
+        pendingFiles.put(file, System.nanoTime());
+      }
+    }
+    if (!watchKey.reset()) {
+      watchedDirectories.remove(watchKey);
+    }
+  }
+
+  private void releaseSettledFiles(BiPredicate<Path, BasicFileAttributes> searchCriteria,
+      BiConsumer<Path, BasicFileAttributes> consumer) {
+    var now = System.nanoTime();
+    var iterator = pendingFiles.entrySet().iterator();
+    while (iterator.hasNext()) {
+      var pendingFile = iterator.next();
+      if (now - pendingFile.getValue() < quietPeriodNanos) {
+        continue;
+      }
+      iterator.remove();
+      var file = pendingFile.getKey();
+      try {
+        var attributes = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        if (searchCriteria.test(file, attributes)) {
+          consumer.accept(file, attributes);
+        }
+      } catch (IOException exception) {
+        log.debug("Ignoring {}: {}", file, exception.getMessage());
+      }
+    }
+  }
+
+  private void registerNewDirectory(Path directory) {
+    try {
+      // files may have been moved into the directory before it was registered
+      registerDirectories(directory, true);
+    } catch (IOException exception) {
+      log.warn("Could not watch directory {}: {}", directory, exception.getMessage());
+    }
+  }
+
+  private void registerDirectories(Path directory, boolean addExistingFiles) throws IOException {
+    if (!recursive) {
+      register(directory);
+      return;
+    }
+    Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path subdirectory, BasicFileAttributes attributes) throws IOException {
+        register(subdirectory);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+        if (addExistingFiles) {
+          pendingFiles.put(file, System.nanoTime());
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  private void register(Path directory) throws IOException {
+    var watchKey = directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+    watchedDirectories.put(watchKey, directory);
+  }
+
+  private void addExistingFiles(Path directory) {
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+      entries.forEach(entry -> pendingFiles.put(entry, System.nanoTime()));
+    } catch (IOException exception) {
+      log.warn("Could not rescan directory {}: {}", directory, exception.getMessage());
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    watchService.close();
+  }
+
+}
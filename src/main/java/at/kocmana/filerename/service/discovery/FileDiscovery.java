@@ -0,0 +1,32 @@
+package at.kocmana.filerename.service.discovery;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+
+/**
+ * Finds the files a task has to process.
+ */
+@FunctionalInterface
+public interface FileDiscovery extends AutoCloseable {
+
+  /**
+   * Passes every file matching the search criteria to the consumer. The consumer may be called concurrently from
+   * several threads. Returns once all files were passed on.
+   *
+   * @throws IOException if the directory of the task can't be read.
+   */
+  void discover(BiPredicate<Path, BasicFileAttributes> searchCriteria, BiConsumer<Path, BasicFileAttributes> consumer)
+      throws IOException, InterruptedException;
+
+  /**
+   * Releases the discovery if {@link #discover(BiPredicate, BiConsumer)} will not be called, e.g. because the task
+   * failed before.
+   */
+  @Override
+  default void close() {
+  }
+
+}
@@ -0,0 +1,269 @@
+package at.kocmana.filerename.service.discovery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * <p>Cheap test that rejects filenames which can't possibly match a search regex.</p>
+ * When the prefilter is created, the literal character sequences every match of the regex has to contain are extracted
+ * from the top level of the expression (e.g. {@code IMG_} and {@code jpg} for {@code IMG_(?<TS>.*?)\.jpg}).
+ * A filename is only accepted if it contains all of them in the given order, which is checked using
+ * {@link String#indexOf(String, int)} only. Since search patterns are applied using {@link java.util.regex.Matcher#find()},
+ * the literals are not anchored to the start or end of the filename.
+ *
+ * <p>The extraction is conservative: whenever the regex contains constructs that make the literals optional
+ * (e.g. top level alternation or inline flags), no literals are extracted and every filename is accepted.</p>
+ */
+public class LiteralPrefilter implements Predicate<String> {
+
+  private static final LiteralPrefilter ACCEPT_ALL = new LiteralPrefilter(List.of());
+
+  private final String[] requiredLiterals;
+
+  private LiteralPrefilter(List<String> requiredLiterals) {
+    this.requiredLiterals = requiredLiterals.toArray(String[]::new);
+  }
+
+  public static LiteralPrefilter forRegex(String regex) {
+    if (regex == null || regex.isEmpty()) {
+      return ACCEPT_ALL;
+    }
+    var literals = new LiteralExtractor(regex).extract();
+    return literals == null ? ACCEPT_ALL : new LiteralPrefilter(literals);
+  }
+
+  @Override
+  public boolean test(String filename) {
+    var searchFrom = 0;
+    for (var literal : requiredLiterals) {
+      var index = filename.indexOf(literal, searchFrom);
+      if (index < 0) {
+        return false;
+      }
+      searchFrom = index + literal.length();
+    }
+    return true;
+  }
+
+  public List<String> getRequiredLiterals() {
+    return List.of(requiredLiterals);
+  }
+
+  private static class LiteralExtractor {
+
+    private static final String INLINE_FLAGS = "idmsuxU-";
+
+    private final String regex;
+    private final List<String> literals = new ArrayList<>();
+    private final StringBuilder currentLiteral = new StringBuilder();
+    private int position = 0;
+
+    LiteralExtractor(String regex) {
+      this.regex = regex;
+    }
+
+    /**
+     * @return the required literals in order of appearance or {@code null} if they can't be determined safely.
+     */
+    List<String> extract() {
+      while (position < regex.length()) {
+        var character = regex.charAt(position);
+        switch (character) {
+          case '|':
+            return null;
+          case '(':
+            if (startsInlineFlags()) {
+              return null;
+            }
+            skipGroup();
+            break;
+          case '[':
+            skipCharacterClass();
+            break;
+          case '\\':
+            if (!readEscapeSequence()) {
+              return null;
+            }
+            break;
+          case '?', '*':
+            dropLastLiteralCharacter();
+            skipQuantifierModifier(position + 1);
+            break;
+          case '{':
+            dropLastLiteralCharacter();
+            position = regex.indexOf('}', position);
+            if (position < 0) {
+              return null;
+            }
+            skipQuantifierModifier(position + 1);
+            break;
+          case '+':
+            completeLiteral();
+            skipQuantifierModifier(position + 1);
+            break;
+          case '.', '^', '$':
+            completeLiteral();
+            position++;
+            break;
+          default:
+            currentLiteral.append(character);
+            position++;
+        }
+      }
+      completeLiteral();
+      return literals;
+    }
+
+    private boolean startsInlineFlags() {
+      return position + 2 < regex.length()
+          && regex.charAt(position + 1) == '?'
+          && INLINE_FLAGS.indexOf(regex.charAt(position + 2)) >= 0;
+    }
+
+    private void skipGroup() {
+      completeLiteral();
+      var depth = 0;
+      while (position < regex.length()) {
+        var character = regex.charAt(position);
+        if (character == '\\') {
+          position++;
+        } else if (character == '[') {
+          skipCharacterClass();
+          continue;
+        } else if (character == '(') {
+          depth++;
+        } else if (character == ')' && --depth == 0) {
+          break;
+        }
+        position++;
+      }
+      skipQuantifier(position + 1);
+    }
+
+    private void skipCharacterClass() {
+      completeLiteral();
+      var depth = 0;
+      // a closing bracket directly after the opening bracket (or its negation) is a literal
+      var firstCharacter = true;
+      while (position < regex.length()) {
+        var character = regex.charAt(position);
+        if (character == '\\') {
+          position++;
+        } else if (character == '[') {
+          depth++;
+          firstCharacter = true;
+          position++;
+          if (position < regex.length() && regex.charAt(position) == '^') {
+            position++;
+          }
+          continue;
+        } else if (character == ']' && !firstCharacter && --depth == 0) {
+          break;
+        }
+        firstCharacter = false;
+        position++;
+      }
+      skipQuantifier(position + 1);
+    }
+
+    private boolean readEscapeSequence() {
+      if (position + 1 >= regex.length()) {
+        return false;
+      }
+      var escapedCharacter = regex.charAt(position + 1);
+      if (escapedCharacter == 'Q') {
+        var end = regex.indexOf("\\E", position + 2);
+        var quotedEnd = end < 0 ? regex.length() : end;
+        currentLiteral.append(regex, position + 2, quotedEnd);
+        position = end < 0 ? regex.length() : end + 2;
+      } else if (Character.isLetterOrDigit(escapedCharacter)) {
+        // character classes, back references, anchors, escaped code points, etc.
+        completeLiteral();
+        position = endOfEscapeSequence(escapedCharacter, position + 2);
+        skipQuantifier(position);
+      } else {
+        currentLiteral.append(escapedCharacter);
+        position += 2;
+      }
+      return true;
+    }
+
+    /**
+     * @return the position after the escape sequence, whose arguments start at {@code from}. Errs towards consuming
+     * too much, which only drops characters from the required literals.
+     */
+    private int endOfEscapeSequence(char escapedCharacter, int from) {
+      return switch (escapedCharacter) {
+        case 'x' -> from < regex.length() && regex.charAt(from) == '{'
+            ? endOfDelimited(from, '}')
+            : skipWhile(from, 2, LiteralExtractor::isHexDigit);
+        case 'u' -> skipWhile(from, 4, LiteralExtractor::isHexDigit);
+        case '0' -> skipWhile(from, 3, character -> character >= '0' && character <= '7');
+        case 'c' -> Math.min(from + 1, regex.length());
+        case 'k' -> from < regex.length() && regex.charAt(from) == '<' ? endOfDelimited(from, '>') : from;
+        case 'p', 'P', 'N', 'b' -> from < regex.length() && regex.charAt(from) == '{'
+            ? endOfDelimited(from, '}')
+            : escapedCharacter == 'p' || escapedCharacter == 'P' ? Math.min(from + 1, regex.length()) : from;
+        default -> Character.isDigit(escapedCharacter)
+            // back references may consist of several digits
+            ? skipWhile(from, Integer.MAX_VALUE, Character::isDigit)
+            : from;
+      };
+    }
+
+    private int endOfDelimited(int from, char delimiter) {
+      var end = regex.indexOf(delimiter, from);
+      return end < 0 ? regex.length() : end + 1;
+    }
+
+    private int skipWhile(int from, int maxLength, IntPredicate condition) {
+      var end = from;
+      while (end < regex.length() && end - from < maxLength && condition.test(regex.charAt(end))) {
+        end++;
+      }
+      return end;
+    }
+
+    private static boolean isHexDigit(int character) {
+      return Character.digit(character, 16) >= 0;
+    }
+
+    private void skipQuantifier(int from) {
+      position = from;
+      if (position >= regex.length()) {
+        return;
+      }
+      var character = regex.charAt(position);
+      if (character == '?' || character == '*' || character == '+') {
+        skipQuantifierModifier(position + 1);
+      } else if (character == '{') {
+        var end = regex.indexOf('}', position);
+        skipQuantifierModifier(end < 0 ? regex.length() : end + 1);
+      }
+    }
+
+    private void skipQuantifierModifier(int from) {
+      position = from;
+      if (position < regex.length() && (regex.charAt(position) == '?' || regex.charAt(position) == '+')) {
+        position++;
+      }
+    }
+
+    private void dropLastLiteralCharacter() {
+      if (!currentLiteral.isEmpty()) {
+        currentLiteral.setLength(currentLiteral.length() - 1);
+      }
+      completeLiteral();
+    }
+
+    private void completeLiteral() {
+      if (!currentLiteral.isEmpty()) {
+        literals.add(currentLiteral.toString());
+        currentLiteral.setLength(0);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,182 @@
+package at.kocmana.filerename.service.discovery;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiPredicate;
+import java.util.function.BiConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Work-stealing alternative to {@link Files#find(Path, int, BiPredicate, java.nio.file.FileVisitOption...)}.</p>
+ * Every subdirectory is listed in its own {@link RecursiveAction}, so several directories are read concurrently. This
+ * pays off on storage where listing a directory is dominated by latency rather than CPU, e.g. network shares. Like
+ * {@code Files.find}, symbolic links are not followed. Unlike {@code Files.find}, a directory is listed completely
+ * before its entries are passed on, so files created in it by the consumer are not reported.
+ */
+public class ParallelFileWalker {
+
+  private static final Logger log = LoggerFactory.getLogger(ParallelFileWalker.class);
+  private static final int DEFAULT_PARALLELISM = Math.max(4, Runtime.getRuntime().availableProcessors() * 4);
+
+  private final ForkJoinPool pool;
+
+  public ParallelFileWalker(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  public static ParallelFileWalker withDefaultPool() {
+    return new ParallelFileWalker(DefaultPoolHolder.POOL);
+  }
+
+  /**
+   * Walks the tree rooted at {@code start} and passes each path matching {@code searchCriteria} to the consumer.
+   * The consumer is called concurrently from several threads and in no particular order.
+   *
+   * @param start          the directory to start from.
+   * @param maxDepth       the maximum number of directory levels to search, {@code 1} only searches {@code start}.
+   * @param searchCriteria the predicate every path found is tested against.
+   * @param consumer       receives all matching paths together with their attributes.
+   * @throws IOException if {@code start} can't be read. Subdirectories that can't be read are skipped.
+   */
+  public void walk(Path start, int maxDepth, BiPredicate<Path, BasicFileAttributes> searchCriteria,
+                   BiConsumer<Path, BasicFileAttributes> consumer) throws IOException {
+    walk(start, maxDepth, searchCriteria, null, consumer);
+  }
+
+  /**
+   * Same as {@link #walk(Path, int, BiPredicate, BiConsumer)}, but skips listing directories which the
+   * {@link DirectoryIndex} reports as unchanged since the last run and records all visited directories in it.
+   *
+   * @param directoryIndex the index to consult, may be {@code null}.
+   */
+  public void walk(Path start, int maxDepth, BiPredicate<Path, BasicFileAttributes> searchCriteria,
+                   DirectoryIndex directoryIndex, BiConsumer<Path, BasicFileAttributes> consumer) throws IOException {
+    var startAttributes = Files.readAttributes(start, BasicFileAttributes.class);
+    var walk = new Walk(maxDepth, searchCriteria, directoryIndex, consumer);
+    try {
+      pool.invoke(walk.new DirectoryTask(start, startAttributes, 1));
+    } catch (UncheckedIOException exception) {
+      throw exception.getCause();
+    }
+  }
+
+  private static class Walk {
+
+    private final int maxDepth;
+    private final BiPredicate<Path, BasicFileAttributes> searchCriteria;
+    private final DirectoryIndex directoryIndex;
+    private final BiConsumer<Path, BasicFileAttributes> consumer;
+
+    Walk(int maxDepth, BiPredicate<Path, BasicFileAttributes> searchCriteria, DirectoryIndex directoryIndex,
+         BiConsumer<Path, BasicFileAttributes> consumer) {
+      this.maxDepth = maxDepth;
+      this.searchCriteria = searchCriteria;
+      this.directoryIndex = directoryIndex;
+      this.consumer = consumer;
+    }
+
+    private class DirectoryTask extends RecursiveAction {
+
+      private final Path directory;
+      private final BasicFileAttributes attributes;
+      private final int depth;
+      private final List<DirectoryTask> subdirectoryTasks = new ArrayList<>();
+      private DirectoryIndex.DirectoryVisit visit;
+
+      DirectoryTask(Path directory, BasicFileAttributes attributes, int depth) {
+        this.directory = directory;
+        this.attributes = attributes;
+        this.depth = depth;
+      }
+
+      @Override
+      protected void compute() {
+        if (directoryIndex != null) {
+          visit = directoryIndex.visit(directory, attributes.lastModifiedTime());
+        }
+        if (visit != null && visit.isUnchanged()) {
+          visit.getSubdirectories().forEach(subdirectory -> visitIndexedSubdirectory(directory.resolve(subdirectory)));
+        } else {
+          listDirectory();
+        }
+        invokeAll(subdirectoryTasks);
+      }
+
+      private void listDirectory() {
+        // the listing is completed before passing on any entry, so files the consumer creates in this directory
+        // (e.g. by renaming the entries) are not found again
+        var entries = new ArrayList<Path>();
+        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(directory)) {
+          directoryStream.forEach(entries::add);
+        } catch (IOException exception) {
+          handleUnreadableDirectory(exception);
+          return;
+        } catch (DirectoryIteratorException exception) {
+          handleUnreadableDirectory(exception.getCause());
+          return;
+        }
+        entries.forEach(this::visit);
+      }
+
+      private void handleUnreadableDirectory(IOException exception) {
+        if (depth == 1) {
+          throw new UncheckedIOException(exception);
+        }
+        log.warn("Skipping directory {}: {}", directory, exception.getMessage());
+      }
+
+      private void visit(Path entry) {
+        var entryAttributes = readAttributes(entry);
+        if (entryAttributes == null) {
+          return;
+        }
+        if (entryAttributes.isDirectory()) {
+          if (visit != null) {
+            visit.addSubdirectory(entry.getFileName().toString());
+          }
+          if (depth < maxDepth) {
+            subdirectoryTasks.add(new DirectoryTask(entry, entryAttributes, depth + 1));
+          }
+        }
+        if (visit != null && visit.wasProcessed(entry.getFileName().toString(), entryAttributes)) {
+          return;
+        }
+        if (searchCriteria.test(entry, entryAttributes)) {
+          consumer.accept(entry, entryAttributes);
+        }
+      }
+
+      private void visitIndexedSubdirectory(Path subdirectory) {
+        var subdirectoryAttributes = readAttributes(subdirectory);
+        if (subdirectoryAttributes != null && subdirectoryAttributes.isDirectory() && depth < maxDepth) {
+          subdirectoryTasks.add(new DirectoryTask(subdirectory, subdirectoryAttributes, depth + 1));
+        }
+      }
+
+      private BasicFileAttributes readAttributes(Path entry) {
+        try {
+          return Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException exception) {
+          log.debug("Skipping {}: {}", entry, exception.getMessage());
+          return null;
+        }
+      }
+    }
+  }
+
+  private static class DefaultPoolHolder {
+    private static final ForkJoinPool POOL = new ForkJoinPool(DEFAULT_PARALLELISM);
+  }
+
+}
@@ -0,0 +1,156 @@
+package at.kocmana.filerename.service.discovery;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>A single walk of a directory tree shared by several tasks.</p>
+ * Every task joins the walk with the directory it is interested in, which has to lie within the tree of the walk.
+ * The walk starts as soon as all participants called {@link FileDiscovery#discover(BiPredicate, BiConsumer)} (or
+ * withdrew by closing their discovery) and passes each file to every participant whose directory contains the file
+ * and whose search criteria it matches. Hence, every directory is listed once, no matter how many tasks look at it.
+ *
+ * <p>Participants wait for each other, so each of them has to run on its own thread.</p>
+ */
+public class SharedFileWalk {
+
+  private static final Logger log = LoggerFactory.getLogger(SharedFileWalk.class);
+
+  private final ParallelFileWalker fileWalker;
+  private final Path root;
+  private final int maxDepth;
+  private final List<Participant> participants = new ArrayList<>();
+  private final CountDownLatch walkCompleted = new CountDownLatch(1);
+
+  private int pendingParticipants;
+  private volatile IOException walkFailure;
+
+  /**
+   * @param root     the directory the walk starts from.
+   * @param maxDepth the maximum number of directory levels to search, {@code 1} only searches {@code root}.
+   */
+  public SharedFileWalk(ParallelFileWalker fileWalker, Path root, int maxDepth) {
+    this.fileWalker = fileWalker;
+    this.root = normalize(root);
+    this.maxDepth = maxDepth;
+  }
+
+  /**
+   * Adds a participant interested in the files of {@code directory}. All participants have to join before the first
+   * one starts discovering files.
+   *
+   * @param recursive whether files in subdirectories of {@code directory} are included.
+   */
+  public synchronized FileDiscovery join(Path directory, boolean recursive) {
+    var normalizedDirectory = normalize(directory);
+    if (!normalizedDirectory.startsWith(root)) {
+      throw new IllegalArgumentException(
+          String.format("Directory %s is not part of the walk of %s", normalizedDirectory, root));
+    }
+    var participant = new Participant(normalizedDirectory, recursive);
+    participants.add(participant);
+    pendingParticipants++;
+    return participant;
+  }
+
+  public Path getRoot() {
+    return root;
+  }
+
+  /**
+   * @return {@code true} if the caller was the last pending participant and is therefore in charge of the walk.
+   */
+  private synchronized boolean arrive() {
+    pendingParticipants--;
+    return pendingParticipants == 0;
+  }
+
+  private void walk() {
+    var activeParticipants = participants.stream()
+        .filter(participant -> participant.searchCriteria != null)
+        .toList();
+    log.info("Searching {} once for {} tasks.", root, activeParticipants.size());
+    try {
+      if (!activeParticipants.isEmpty()) {
+        fileWalker.walk(root, maxDepth, (path, attributes) -> true,
+            (path, attributes) -> dispatch(activeParticipants, path, attributes));
+      }
+    } catch (IOException exception) {
+      walkFailure = exception;
+    } finally {
+      walkCompleted.countDown();
+    }
+  }
+
+  private static void dispatch(List<Participant> participants, Path path, BasicFileAttributes attributes) {
+    for (var participant : participants) {
+      if (participant.contains(path) && participant.searchCriteria.test(path, attributes)) {
+        participant.consumer.accept(path, attributes);
+      }
+    }
+  }
+
+  private static Path normalize(Path directory) {
+    return directory.toAbsolutePath().normalize();
+  }
+
+  private class Participant implements FileDiscovery {
+
+    private final Path directory;
+    private final boolean recursive;
+    private BiPredicate<Path, BasicFileAttributes> searchCriteria;
+    private BiConsumer<Path, BasicFileAttributes> consumer;
+    private boolean arrived;
+
+    Participant(Path directory, boolean recursive) {
+      this.directory = directory;
+      this.recursive = recursive;
+    }
+
+    @Override
+    public void discover(BiPredicate<Path, BasicFileAttributes> searchCriteria,
+                         BiConsumer<Path, BasicFileAttributes> consumer) throws IOException, InterruptedException {
+      if (arriveWith(searchCriteria, consumer)) {
+        walk();
+      } else {
+        walkCompleted.await();
+      }
+      if (walkFailure != null) {
+        throw walkFailure;
+      }
+    }
+
+    @Override
+    public void close() {
+      if (arriveWith(null, null)) {
+        walk();
+      }
+    }
+
+    private boolean arriveWith(BiPredicate<Path, BasicFileAttributes> searchCriteria,
+                               BiConsumer<Path, BasicFileAttributes> consumer) {
+      synchronized (SharedFileWalk.this) {
+        if (arrived) {
+          return false;
+        }
+        arrived = true;
+        this.searchCriteria = searchCriteria;
+        this.consumer = consumer;
+        return arrive();
+      }
+    }
+
+    private boolean contains(Path path) {
+      return recursive ? path.startsWith(directory) : directory.equals(path.getParent());
+    }
+  }
+
+}
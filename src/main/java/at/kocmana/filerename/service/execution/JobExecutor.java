@@ -0,0 +1,160 @@
+package at.kocmana.filerename.service.execution;
+
+import at.kocmana.filerename.model.ExecutionStrategy;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * <p>Runs the jobs of a task as defined by its {@link ExecutionStrategy}.</p>
+ * {@link ExecutionStrategy.Type#FORKJOIN} uses parallel streams and is limited to one job per core, which suits jobs
+ * bound by the CPU. Moving files on network storage mostly waits for I/O, so a {@link ExecutionStrategy.Type#FIXED}
+ * pool with more threads than cores or one {@link ExecutionStrategy.Type#VIRTUAL} thread per job keep more operations
+ * in flight instead.
+ *
+ * <p>Virtual threads are created through {@code Executors.newVirtualThreadPerTaskExecutor()}, which is looked up at
+ * runtime, as the application is built for Java 17. As they are not limited by a pool, at most
+ * {@link #MAX_IN_FLIGHT_JOBS} jobs are started at once, so resources held per job (buffers, open files) stay
+ * bounded.</p>
+ */
+public class JobExecutor {
+
+  static final int MAX_IN_FLIGHT_JOBS = Runtime.getRuntime().availableProcessors() * 256;
+
+  private static final MethodHandle NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findVirtualThreadPerTaskExecutor();
+
+  private final ExecutionStrategy strategy;
+
+  public JobExecutor(ExecutionStrategy strategy) {
+    if (strategy.type() == ExecutionStrategy.Type.VIRTUAL && !supportsVirtualThreads()) {
+      throw new IllegalArgumentException("Virtual threads are not supported by this Java runtime");
+    }
+    this.strategy = strategy;
+  }
+
+  private static MethodHandle findVirtualThreadPerTaskExecutor() {
+    try {
+      var factory = MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+          MethodType.methodType(ExecutorService.class));
+      // virtual threads may be a disabled preview feature
+      ((ExecutorService) factory.invoke()).shutdown();
+      return factory;
+    } catch (Throwable throwable) {
+      return null;
+    }
+  }
+
+  public static boolean supportsVirtualThreads() {
+    return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+  }
+
+  /**
+   * @return the number of jobs processed concurrently by a pipeline: the number of threads of a fixed pool, the
+   * {@code defaultWorkerCount} when using the fork join pool or {@code maxInFlightJobs} when using virtual threads.
+   */
+  public int pipelineWorkerCount(int defaultWorkerCount, int maxInFlightJobs) {
+    return switch (strategy.type()) {
+      case FORKJOIN -> defaultWorkerCount;
+      case FIXED -> strategy.threads();
+      case VIRTUAL -> maxInFlightJobs;
+    };
+  }
+
+  /**
+   * @return a new executor running the given number of workers. It has to be shut down by the caller.
+   */
+  public ExecutorService newWorkerPool(int workerCount) {
+    return strategy.type() == ExecutionStrategy.Type.VIRTUAL
+        ? newVirtualThreadPerTaskExecutor()
+        : Executors.newFixedThreadPool(workerCount);
+  }
+
+  /**
+   * Applies the action to all items and waits until all of them are processed.
+   *
+   * @throws RuntimeException the first exception thrown by the action, after all items were processed.
+   */
+  public <T> void forEach(Collection<T> items, Consumer<T> action) {
+    forEach(items, action, MAX_IN_FLIGHT_JOBS);
+  }
+
+  <T> void forEach(Collection<T> items, Consumer<T> action, int maxInFlightJobs) {
+    if (strategy.type() == ExecutionStrategy.Type.FORKJOIN) {
+      items.parallelStream().forEach(action);
+      return;
+    }
+    var executor = strategy.type() == ExecutionStrategy.Type.VIRTUAL
+        ? newVirtualThreadPerTaskExecutor()
+        : Executors.newFixedThreadPool(Math.max(1, Math.min(strategy.threads(), items.size())));
+    var inFlightJobs = new Semaphore(maxInFlightJobs);
+    try {
+      var futures = new ArrayList<Future<?>>(items.size());
+      for (var item : items) {
+        acquire(inFlightJobs);
+        futures.add(executor.submit(() -> {
+          try {
+            action.accept(item);
+          } finally {
+            inFlightJobs.release();
+          }
+        }));
+      }
+      awaitAll(futures);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void acquire(Semaphore semaphore) {
+    try {
+      semaphore.acquire();
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new CompletionException(exception);
+    }
+  }
+
+  private static void awaitAll(Collection<Future<?>> futures) {
+    RuntimeException failure = null;
+    for (var future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException exception) {
+        Thread.currentThread().interrupt();
+        throw new CompletionException(exception);
+      } catch (ExecutionException exception) {
+        if (failure == null) {
+          failure = exception.getCause() instanceof RuntimeException runtimeException
+              ? runtimeException
+              : new CompletionException(exception.getCause());
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke();
+    } catch (Throwable throwable) {
+      throw new IllegalStateException("Could not create virtual thread executor", throwable);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return strategy.toString();
+  }
+
+}
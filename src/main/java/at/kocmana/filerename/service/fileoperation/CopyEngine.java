@@ -0,0 +1,168 @@
+package at.kocmana.filerename.service.fileoperation;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Copies files through {@link FileChannel#transferFrom(java.nio.channels.ReadableByteChannel, long, long)}, which
+ * lets the kernel move the data (e.g. {@code copy_file_range} or {@code sendfile} on Linux) instead of passing it
+ * through buffers on the heap.</p>
+ * Files of up to {@value #PARALLEL_THRESHOLD} bytes are transferred in one go on the calling thread. Larger files are
+ * split into ranges of {@value #RANGE_SIZE} bytes, which are transferred concurrently, each through its own source
+ * channel into the shared target channel. Like {@link Files#copy(Path, Path, java.nio.file.CopyOption...)}, the target
+ * must not exist and gets the POSIX permissions of the source where supported, other file attributes are not copied. A
+ * partially written target is deleted if the copy fails.
+ */
+public class CopyEngine {
+
+  static final long PARALLEL_THRESHOLD = 256L * 1024 * 1024;
+  static final long RANGE_SIZE = 64L * 1024 * 1024;
+
+  private static final int RANGE_COPY_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+  private static final AtomicInteger RANGE_COPY_THREAD_COUNT = new AtomicInteger();
+  private static final ExecutorService RANGE_COPY = Executors.newFixedThreadPool(RANGE_COPY_THREADS, runnable -> {
+    var thread = new Thread(runnable, "filerename-range-copy-" + RANGE_COPY_THREAD_COUNT.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private CopyEngine() {
+  }
+
+  /**
+   * Copies the content of the source file to the newly created target file.
+   *
+   * @return the number of bytes copied.
+   * @throws java.nio.file.FileAlreadyExistsException if the target already exists.
+   * @throws IOException                              if the file can't be copied.
+   */
+  public static long copy(Path source, Path target) throws IOException {
+    return copy(source, target, PARALLEL_THRESHOLD, RANGE_SIZE);
+  }
+
+  static long copy(Path source, Path target, long parallelThreshold, long rangeSize) throws IOException {
+    try (var sourceChannel = FileChannel.open(source, StandardOpenOption.READ)) {
+      var permissions = posixPermissionsOf(source);
+      var targetChannel = permissions == null
+          ? FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW)
+          : FileChannel.open(target, Set.of(StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW),
+              PosixFilePermissions.asFileAttribute(permissions));
+      try (targetChannel) {
+        if (permissions != null) {
+          // the permissions given on creation are narrowed by the umask
+          Files.setPosixFilePermissions(target, permissions);
+        }
+        var size = sourceChannel.size();
+        return size <= parallelThreshold
+            ? transfer(sourceChannel, targetChannel, 0, size)
+            : transferRanges(source, targetChannel, size, rangeSize);
+      } catch (IOException | RuntimeException exception) {
+        deleteQuietly(target, exception);
+        throw exception;
+      }
+    }
+  }
+
+  /**
+   * @return the POSIX permissions of the file, {@code null} if the file system does not support them.
+   */
+  private static Set<PosixFilePermission> posixPermissionsOf(Path file) throws IOException {
+    if (!file.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+      return null;
+    }
+    return Files.getPosixFilePermissions(file);
+  }
+
+  private static long transferRanges(Path source, FileChannel targetChannel, long size, long rangeSize)
+      throws IOException {
+    // transferFrom does not write beyond the end of the target, so it is extended to its final size first
+    targetChannel.write(ByteBuffer.allocate(1), size - 1);
+    var ranges = new ArrayList<CompletableFuture<Long>>();
+    for (var position = 0L; position < size; position += rangeSize) {
+      var start = position;
+      var count = Math.min(rangeSize, size - position);
+      ranges.add(CompletableFuture.supplyAsync(() -> transferRange(source, targetChannel, start, count), RANGE_COPY));
+    }
+    var copied = 0L;
+    IOException failure = null;
+    // all ranges have to finish before the target channel is closed, even if one of them failed
+    for (var range : ranges) {
+      try {
+        copied += await(range);
+      } catch (IOException exception) {
+        failure = failure == null ? exception : failure;
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+    if (copied < size) {
+      // the source was truncated while being copied
+      targetChannel.truncate(copied);
+    }
+    return copied;
+  }
+
+  private static long transferRange(Path source, FileChannel targetChannel, long start, long count) {
+    try (var sourceChannel = FileChannel.open(source, StandardOpenOption.READ)) {
+      return transfer(sourceChannel, targetChannel, start, count);
+    } catch (IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+  }
+
+  /**
+   * @return the number of bytes transferred, less than {@code count} if the source ends before.
+   */
+  private static long transfer(FileChannel sourceChannel, FileChannel targetChannel, long start, long count)
+      throws IOException {
+    sourceChannel.position(start);
+    var transferred = 0L;
+    while (transferred < count) {
+      var bytes = targetChannel.transferFrom(sourceChannel, start + transferred, count - transferred);
+      if (bytes <= 0) {
+        break;
+      }
+      transferred += bytes;
+    }
+    return transferred;
+  }
+
+  private static long await(CompletableFuture<Long> range) throws IOException {
+    try {
+      return range.get();
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while copying file");
+    } catch (ExecutionException exception) {
+      if (exception.getCause() instanceof UncheckedIOException uncheckedIoException) {
+        throw uncheckedIoException.getCause();
+      }
+      throw new IOException(exception.getCause());
+    }
+  }
+
+  private static void deleteQuietly(Path file, Exception cause) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException exception) {
+      cause.addSuppressed(exception);
+    }
+  }
+
+}
@@ -0,0 +1,188 @@
+package at.kocmana.filerename.service.fileoperation;
+
+import at.kocmana.filerename.controller.CliController.Durability;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Flushes completed file operations to disk according to the requested {@link Durability}.</p>
+ * A rename only becomes durable once the directories containing the old and the new name are synced, a copied file
+ * additionally needs its content to be synced before its directory. With {@link Durability#STRICT} this is done for
+ * every operation right away. With {@link Durability#BATCH} the files and directories of completed operations are
+ * collected and synced once {@value #BATCH_SIZE} operations were registered, the oldest of them is older than
+ * {@value #MAX_BATCH_DELAY_MILLIS} ms (checked by a timer, too) or {@link #flush()} is called, so each directory is
+ * synced once per batch instead of once per file. Syncing is done through {@link FileChannel#force(boolean)}. File
+ * systems not supporting to sync directories (e.g. on Windows) are skipped after the first attempt.
+ */
+public class DirectorySyncer {
+
+  static final int BATCH_SIZE = 1_000;
+  static final long MAX_BATCH_DELAY_MILLIS = 1_000;
+
+  private static final Logger log = LoggerFactory.getLogger(DirectorySyncer.class);
+  private static final ScheduledExecutorService SCHEDULED_FLUSH =
+      Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "filerename-scheduled-flush");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  private final Durability durability;
+  private Set<Path> files = new LinkedHashSet<>();
+  private Set<Path> directories = new LinkedHashSet<>();
+  private int operationCount;
+  private long batchStartNanos;
+  private long batchNumber;
+  private volatile boolean directorySyncSupported = true;
+
+  public DirectorySyncer(Durability durability) {
+    this.durability = durability;
+  }
+
+  /**
+   * Registers a completed file operation. May be called concurrently.
+   *
+   * @param createdFile     the file created by the operation.
+   * @param sourceDirectory the directory a file was removed from by the operation, {@code null} if none was.
+   * @param syncContent     whether the content of the file was written by the operation and has to be synced too.
+   */
+  public void register(Path createdFile, Path sourceDirectory, boolean syncContent) {
+    switch (durability) {
+      case NONE -> {
+        // left to the operating system
+      }
+      case STRICT -> {
+        if (syncContent) {
+          syncFile(createdFile);
+        }
+        syncDirectories(affectedDirectories(createdFile, sourceDirectory));
+      }
+      case BATCH -> addToBatch(createdFile, sourceDirectory, syncContent);
+    }
+  }
+
+  private void addToBatch(Path createdFile, Path sourceDirectory, boolean syncContent) {
+    Set<Path> filesToSync;
+    Set<Path> directoriesToSync;
+    synchronized (this) {
+      if (operationCount++ == 0) {
+        batchStartNanos = System.nanoTime();
+        // also synced if no further operation is registered, e.g. while waiting for new files
+        var scheduledBatchNumber = batchNumber;
+        SCHEDULED_FLUSH.schedule(() -> flushBatch(scheduledBatchNumber), MAX_BATCH_DELAY_MILLIS,
+            TimeUnit.MILLISECONDS);
+      }
+      if (syncContent) {
+        files.add(createdFile);
+      }
+      directories.addAll(affectedDirectories(createdFile, sourceDirectory));
+      var batchAgeMillis = (System.nanoTime() - batchStartNanos) / 1_000_000;
+      if (operationCount < BATCH_SIZE && batchAgeMillis < MAX_BATCH_DELAY_MILLIS) {
+        return;
+      }
+      filesToSync = files;
+      directoriesToSync = directories;
+      resetBatch();
+    }
+    sync(filesToSync, directoriesToSync);
+  }
+
+  /**
+   * Syncs all operations registered since the last batch was synced.
+   */
+  public void flush() {
+    Set<Path> filesToSync;
+    Set<Path> directoriesToSync;
+    synchronized (this) {
+      if (operationCount == 0) {
+        return;
+      }
+      filesToSync = files;
+      directoriesToSync = directories;
+      resetBatch();
+    }
+    sync(filesToSync, directoriesToSync);
+  }
+
+  private void flushBatch(long scheduledBatchNumber) {
+    Set<Path> filesToSync;
+    Set<Path> directoriesToSync;
+    synchronized (this) {
+      if (batchNumber != scheduledBatchNumber || operationCount == 0) {
+        return;
+      }
+      filesToSync = files;
+      directoriesToSync = directories;
+      resetBatch();
+    }
+    sync(filesToSync, directoriesToSync);
+  }
+
+  synchronized int pendingOperationCount() {
+    return operationCount;
+  }
+
+  private void resetBatch() {
+    files = new LinkedHashSet<>();
+    directories = new LinkedHashSet<>();
+    operationCount = 0;
+    batchNumber++;
+  }
+
+  private void sync(Set<Path> filesToSync, Set<Path> directoriesToSync) {
+    var start = System.nanoTime();
+    // the content has to be on disk before the directory entries pointing to it
+    filesToSync.forEach(this::syncFile);
+    syncDirectories(directoriesToSync);
+    log.debug("Synced {} files and {} directories in {} ms.", filesToSync.size(), directoriesToSync.size(),
+        (System.nanoTime() - start) / 1_000_000);
+  }
+
+  private static Set<Path> affectedDirectories(Path createdFile, Path sourceDirectory) {
+    var affectedDirectories = new LinkedHashSet<Path>();
+    affectedDirectories.add(createdFile.toAbsolutePath().getParent());
+    if (sourceDirectory != null) {
+      affectedDirectories.add(sourceDirectory.toAbsolutePath());
+    }
+    return affectedDirectories;
+  }
+
+  private void syncFile(Path file) {
+    // read-only copies can be synced through a read-only channel on POSIX systems
+    var openOption = Files.isWritable(file) ? StandardOpenOption.WRITE : StandardOpenOption.READ;
+    try (var channel = FileChannel.open(file, openOption)) {
+      channel.force(true);
+    } catch (IOException exception) {
+      log.warn("Could not sync file {}: {}", file, exception.getMessage());
+    }
+  }
+
+  private void syncDirectories(Set<Path> directoriesToSync) {
+    for (var directory : directoriesToSync) {
+      if (!directorySyncSupported) {
+        return;
+      }
+      try (var channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+        channel.force(true);
+      } catch (NoSuchFileException exception) {
+        log.debug("Directory {} was removed before being synced.", directory);
+      } catch (IOException exception) {
+        directorySyncSupported = false;
+        log.warn("Could not sync directory {}, directories will not be synced: {}", directory,
+            exception.getMessage());
+      }
+    }
+  }
+
+}
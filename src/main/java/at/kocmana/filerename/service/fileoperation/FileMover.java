@@ -0,0 +1,184 @@
+package at.kocmana.filerename.service.fileoperation;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Moves files, detecting moves to another file store up front instead of leaving them to the silent copy and delete
+ * fallback of {@link Files#move(Path, Path, java.nio.file.CopyOption...)}.</p>
+ * The {@link FileStore} of every directory is looked up once and cached. Moves within a file store are plain renames.
+ * Moves across file stores copy the file with the {@link CopyEngine}, verify that the copy is complete and that the
+ * source did not change meanwhile, copy its times as well as its owner and group where permitted (the permissions are
+ * kept by the {@link CopyEngine}), optionally sync the copy and its directory to disk, and only then delete the
+ * source. At most {@value #MAX_CONCURRENT_CROSS_DEVICE_MOVES}
+ * of them run at the same time, so renames within a file store are not held up by long copies.
+ */
+public class FileMover {
+
+  static final int MAX_CONCURRENT_CROSS_DEVICE_MOVES = 2;
+
+  private static final Logger log = LoggerFactory.getLogger(FileMover.class);
+  private static final Map<Path, FileStore> FILE_STORES = new ConcurrentHashMap<>();
+  private static final Semaphore CROSS_DEVICE_MOVES = new Semaphore(MAX_CONCURRENT_CROSS_DEVICE_MOVES, true);
+
+  private FileMover() {
+  }
+
+  /**
+   * Moves the file to the target, which must not exist.
+   *
+   * @throws java.nio.file.FileAlreadyExistsException if the target already exists.
+   * @throws IOException                              if the file can't be moved, the source is left in place then.
+   */
+  public static void move(Path source, Path target) throws IOException {
+    move(source, target, false);
+  }
+
+  /**
+   * Moves the file to the target, which must not exist.
+   *
+   * @param syncBeforeDelete whether a file copied to another file store and its directory have to be synced to disk
+   *                         before the source is deleted, so a crash can't lose both.
+   * @throws java.nio.file.FileAlreadyExistsException if the target already exists.
+   * @throws IOException                              if the file can't be moved, the source is left in place then.
+   */
+  public static void move(Path source, Path target, boolean syncBeforeDelete) throws IOException {
+    if (isSameFileStore(source.toAbsolutePath().getParent(), target.toAbsolutePath().getParent())) {
+      Files.move(source, target);
+    } else {
+      moveAcrossFileStores(source, target, syncBeforeDelete);
+    }
+  }
+
+  /**
+   * @return whether both directories are on the same file store, also if that can't be determined.
+   */
+  public static boolean isSameFileStore(Path sourceDirectory, Path targetDirectory) {
+    if (Objects.equals(sourceDirectory, targetDirectory)) {
+      return true;
+    }
+    var sourceFileStore = fileStoreOf(sourceDirectory);
+    var targetFileStore = fileStoreOf(targetDirectory);
+    // leave unknown file stores to Files.move, which handles both cases
+    return sourceFileStore == null || targetFileStore == null || sourceFileStore.equals(targetFileStore);
+  }
+
+  private static FileStore fileStoreOf(Path directory) {
+    if (directory == null) {
+      return null;
+    }
+    var normalizedDirectory = directory.normalize();
+    var fileStore = FILE_STORES.get(normalizedDirectory);
+    if (fileStore != null) {
+      return fileStore;
+    }
+    try {
+      fileStore = Files.getFileStore(normalizedDirectory);
+    } catch (IOException exception) {
+      log.debug("Could not determine file store of {}: {}", directory, exception.getMessage());
+      return null;
+    }
+    FILE_STORES.put(normalizedDirectory, fileStore);
+    return fileStore;
+  }
+
+  static void moveAcrossFileStores(Path source, Path target, boolean syncBeforeDelete) throws IOException {
+    try {
+      CROSS_DEVICE_MOVES.acquire();
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting to move file " + source);
+    }
+    try {
+      log.debug("Moving {} to {} on another file store.", source, target);
+      var attributes = isPosix(source)
+          ? Files.readAttributes(source, PosixFileAttributes.class)
+          : Files.readAttributes(source, BasicFileAttributes.class);
+      var copiedBytes = CopyEngine.copy(source, target);
+      try {
+        verifyCopy(source, target, attributes, copiedBytes);
+        copyAttributes(target, attributes);
+        if (syncBeforeDelete) {
+          syncToDisk(target);
+        }
+        Files.delete(source);
+      } catch (IOException exception) {
+        deleteQuietly(target, exception);
+        throw exception;
+      }
+    } finally {
+      CROSS_DEVICE_MOVES.release();
+    }
+  }
+
+  private static void copyAttributes(Path target, BasicFileAttributes sourceAttributes) throws IOException {
+    Files.getFileAttributeView(target, BasicFileAttributeView.class).setTimes(sourceAttributes.lastModifiedTime(),
+        sourceAttributes.lastAccessTime(), sourceAttributes.creationTime());
+    if (sourceAttributes instanceof PosixFileAttributes posixAttributes) {
+      var targetView = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+      try {
+        targetView.setOwner(posixAttributes.owner());
+        targetView.setGroup(posixAttributes.group());
+      } catch (IOException exception) {
+        // like mv, the file is owned by the current user if it may not be given away
+        log.debug("Could not keep owner of {}: {}", target, exception.getMessage());
+      }
+    }
+  }
+
+  private static void syncToDisk(Path file) throws IOException {
+    // read-only copies can be synced through a read-only channel on POSIX systems
+    var openOption = Files.isWritable(file) ? StandardOpenOption.WRITE : StandardOpenOption.READ;
+    try (var channel = FileChannel.open(file, openOption)) {
+      channel.force(true);
+    }
+    var directory = file.toAbsolutePath().getParent();
+    try (var channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch (IOException exception) {
+      // not supported by every file system (e.g. on Windows), the content is on disk anyway
+      log.debug("Could not sync directory {}: {}", directory, exception.getMessage());
+    }
+  }
+
+  private static boolean isPosix(Path file) {
+    return file.getFileSystem().supportedFileAttributeViews().contains("posix");
+  }
+
+  private static void verifyCopy(Path source, Path target, BasicFileAttributes sourceAttributes, long copiedBytes)
+      throws IOException {
+    var currentAttributes = Files.readAttributes(source, BasicFileAttributes.class);
+    if (currentAttributes.size() != sourceAttributes.size()
+        || !currentAttributes.lastModifiedTime().equals(sourceAttributes.lastModifiedTime())) {
+      throw new IOException("File " + source + " was modified while being moved");
+    }
+    if (copiedBytes != sourceAttributes.size() || Files.size(target) != sourceAttributes.size()) {
+      throw new IOException(String.format("Copied %d of %d bytes of file %s", copiedBytes, sourceAttributes.size(),
+          source));
+    }
+  }
+
+  private static void deleteQuietly(Path file, Exception cause) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException exception) {
+      cause.addSuppressed(exception);
+    }
+  }
+
+}
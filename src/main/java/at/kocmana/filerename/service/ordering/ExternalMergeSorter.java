@@ -0,0 +1,201 @@
+package at.kocmana.filerename.service.ordering;
+
+import at.kocmana.filerename.model.FileContext;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Sorts files by a string key, spilling to disk if there are more files than fit in memory.</p>
+ * Files are collected in memory until {@code maxEntriesInMemory} is reached. Then the collected entries are sorted and
+ * written to a temporary file (a <i>run</i>) and only the key and path of each file are kept. {@link #sorted()} merges
+ * all runs and the entries still held in memory. Entries read back from a run have lost their {@link FileContext} and
+ * have to be matched again by the caller.
+ */
+public class ExternalMergeSorter implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(ExternalMergeSorter.class);
+  private static final Comparator<Entry> ENTRY_ORDER = Comparator.comparing(Entry::key);
+
+  private final int maxEntriesInMemory;
+  private final List<Entry> entries = new ArrayList<>();
+  private final List<Path> runs = new ArrayList<>();
+  private final List<DataInputStream> openRuns = new ArrayList<>();
+  private long size;
+
+  public ExternalMergeSorter(int maxEntriesInMemory) {
+    if (maxEntriesInMemory < 1) {
+      throw new IllegalArgumentException("Number of entries kept in memory must be > 0");
+    }
+    this.maxEntriesInMemory = maxEntriesInMemory;
+  }
+
+  /**
+   * Adds a file. May be called concurrently.
+   *
+   * @throws UncheckedIOException if a run could not be written.
+   */
+  public synchronized void add(String key, FileContext fileContext) {
+    entries.add(new Entry(key, fileContext.file(), fileContext));
+    size++;
+    if (entries.size() >= maxEntriesInMemory) {
+      try {
+        spill();
+      } catch (IOException exception) {
+        throw new UncheckedIOException(exception);
+      }
+    }
+  }
+
+  private void spill() throws IOException {
+    entries.sort(ENTRY_ORDER);
+    var run = Files.createTempFile("filerename-sort", ".run");
+    runs.add(run);
+    try (var output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run)))) {
+      for (var entry : entries) {
+        output.writeUTF(entry.key());
+        output.writeUTF(entry.file().toString());
+      }
+    }
+    log.debug("Wrote {} files to sort run {}.", entries.size(), run);
+    entries.clear();
+  }
+
+  public synchronized boolean hasSpilled() {
+    return !runs.isEmpty();
+  }
+
+  public synchronized long size() {
+    return size;
+  }
+
+  /**
+   * @return all files added so far in order of their keys.
+   */
+  public synchronized Iterator<Entry> sorted() throws IOException {
+    entries.sort(ENTRY_ORDER);
+    if (runs.isEmpty()) {
+      return entries.iterator();
+    }
+    var sources = new ArrayList<Iterator<Entry>>();
+    sources.add(entries.iterator());
+    for (var run : runs) {
+      var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(run)));
+      openRuns.add(input);
+      sources.add(new RunIterator(input));
+    }
+    return new MergeIterator(sources);
+  }
+
+  @Override
+  public synchronized void close() {
+    for (var input : openRuns) {
+      try {
+        input.close();
+      } catch (IOException exception) {
+        log.debug("Could not close sort run: {}", exception.getMessage());
+      }
+    }
+    for (var run : runs) {
+      try {
+        Files.deleteIfExists(run);
+      } catch (IOException exception) {
+        log.warn("Could not delete temporary file {}: {}", run, exception.getMessage());
+      }
+    }
+    openRuns.clear();
+    runs.clear();
+    entries.clear();
+  }
+
+  /**
+   * A sorted file.
+   *
+   * @param fileContext the context the file was added with, {@code null} if the entry was read back from a run.
+   */
+  public record Entry(String key, Path file, FileContext fileContext) {
+  }
+
+  private static class RunIterator implements Iterator<Entry> {
+
+    private final DataInputStream input;
+    private Entry next;
+
+    RunIterator(DataInputStream input) {
+      this.input = input;
+      this.next = read();
+    }
+
+    private Entry read() {
+      try {
+        var key = input.readUTF();
+        return new Entry(key, Path.of(input.readUTF()), null);
+      } catch (EOFException exception) {
+        return null;
+      } catch (IOException exception) {
+        throw new UncheckedIOException(exception);
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public Entry next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      var entry = next;
+      next = read();
+      return entry;
+    }
+  }
+
+  private static class MergeIterator implements Iterator<Entry> {
+
+    private final PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparing(head -> head.entry.key()));
+
+    MergeIterator(List<Iterator<Entry>> sources) {
+      sources.stream()
+          .filter(Iterator::hasNext)
+          .forEach(source -> heads.add(new Head(source.next(), source)));
+    }
+
+    @Override
+    public boolean hasNext() {
+      return !heads.isEmpty();
+    }
+
+    @Override
+    public Entry next() {
+      var head = heads.poll();
+      if (head == null) {
+        throw new NoSuchElementException();
+      }
+      if (head.source.hasNext()) {
+        heads.add(new Head(head.source.next(), head.source));
+      }
+      return head.entry;
+    }
+
+    private record Head(Entry entry, Iterator<Entry> source) {
+    }
+  }
+
+}
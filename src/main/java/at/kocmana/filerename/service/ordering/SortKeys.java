@@ -0,0 +1,67 @@
+package at.kocmana.filerename.service.ordering;
+
+import at.kocmana.filerename.controller.CliController.SortOrder;
+import at.kocmana.filerename.model.FileContext;
+import at.kocmana.filerename.service.transformation.rules.TimestampTransformationRule;
+import at.kocmana.filerename.service.transformation.rules.TransformationRule;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Builds the string keys by which files are sorted before they are enumerated. Every key ends with the path of the
+ * file, so files with the same name, date or timestamp are still ordered deterministically.
+ */
+public class SortKeys {
+
+  private static final Logger log = LoggerFactory.getLogger(SortKeys.class);
+  private static final char SEPARATOR = '\0';
+
+  private SortKeys() {
+  }
+
+  public static Function<FileContext, String> forSortOrder(SortOrder sortOrder,
+                                                           List<TransformationRule> transformationRules) {
+    return switch (sortOrder) {
+      case NAME -> fileContext -> withPath(fileContext.filename(), fileContext);
+      case CREATION_DATE -> fileContext -> withPath(creationDateKey(fileContext), fileContext);
+      case TIMESTAMP -> timestampKeys(transformationRules);
+    };
+  }
+
+  private static Function<FileContext, String> timestampKeys(List<TransformationRule> transformationRules) {
+    var timestampRule = transformationRules.stream()
+        .filter(TimestampTransformationRule.class::isInstance)
+        .map(TimestampTransformationRule.class::cast)
+        .findFirst();
+    if (timestampRule.isEmpty()) {
+      log.warn("No timestamp template (<<TS|...>>) in the input pattern, sorting files by name instead.");
+      return forSortOrder(SortOrder.NAME, transformationRules);
+    }
+    var rule = timestampRule.get();
+    return fileContext -> withPath(rule.toSortKey(fileContext), fileContext);
+  }
+
+  private static String creationDateKey(FileContext fileContext) {
+    try {
+      var attributes = fileContext.attributes() != null
+          ? fileContext.attributes()
+          : Files.readAttributes(fileContext.file(), BasicFileAttributes.class);
+      var creationTime = attributes.creationTime().toInstant();
+      // offset the seconds so that the key of every instant has the same length and sorts lexicographically
+      return String.format("%020d%09d", creationTime.getEpochSecond() - Long.MIN_VALUE / 2, creationTime.getNano());
+    } catch (IOException exception) {
+      log.debug("Could not read creation date of {}: {}", fileContext.file(), exception.getMessage());
+      return "";
+    }
+  }
+
+  private static String withPath(String key, FileContext fileContext) {
+    return key + SEPARATOR + fileContext.file();
+  }
+
+}
@@ -0,0 +1,242 @@
+package at.kocmana.filerename.service.planning;
+
+import at.kocmana.filerename.service.FileRenameJob;
+import at.kocmana.filerename.service.FileRenameJob.JobStatus;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * <p>Orders renames whose target is the current name of another file of the same task, e.g. {@code 1 -> 2} and
+ * {@code 2 -> 3} when renumbering files.</p>
+ * Jobs are passed to {@link #processOrDefer(FileRenameJob)} concurrently. A job whose target is not the name of a file
+ * still waiting to be renamed is executed right away. Otherwise it is deferred until all jobs were passed in, then
+ * {@link #planDeferredJobs()} links every deferred job to the job currently owning its target name:
+ * <ul>
+ *   <li>a chain is executed from its end, so every file is moved away before its name is taken,</li>
+ *   <li>a cycle is broken by moving one of its files to a temporary name first.</li>
+ * </ul>
+ * Deferred jobs reserve their target name right before being executed, once the name has been freed. Different chains
+ * do not depend on each other and may be executed in parallel. In a dry run, executed jobs free the name of their input
+ * file as if it had been moved.
+ *
+ * <p>Only the input files of the jobs have to be known up front, so jobs too many to be held in memory can be created
+ * and passed in one after another. Only the deferred jobs are kept until they are planned.</p>
+ *
+ * <p>Only applies to moves: copies keep their input file and hence its name.</p>
+ */
+public class RenamePlanner {
+
+  private static final String TEMPORARY_NAME_FORMAT = ".%s.filerename";
+  private static final Comparator<FileRenameJob> BY_INPUT_FILE =
+      Comparator.comparing(job -> job.getJobArguments().inputFile());
+
+  private final TargetNameRegistry targetNameRegistry;
+  private final Set<Path> pendingInputFiles = ConcurrentHashMap.newKeySet();
+  private final Queue<FileRenameJob> deferredJobs = new ConcurrentLinkedQueue<>();
+
+  public RenamePlanner(Collection<FileRenameJob> jobs, TargetNameRegistry targetNameRegistry) {
+    this(targetNameRegistry);
+    jobs.forEach(job -> pendingInputFiles.add(inputFileOf(job)));
+  }
+
+  /**
+   * Creates a planner for jobs not created yet, whose input files have to be passed to {@link #addInputFile(Path)}
+   * before the first job is passed to {@link #processOrDefer(FileRenameJob)}.
+   */
+  public RenamePlanner(TargetNameRegistry targetNameRegistry) {
+    this.targetNameRegistry = targetNameRegistry;
+  }
+
+  public void addInputFile(Path inputFile) {
+    pendingInputFiles.add(inputFile.toAbsolutePath().normalize());
+  }
+
+  /**
+   * Forgets an input file added before for which no job will be created after all, so jobs targeting its name are no
+   * longer deferred.
+   */
+  public void removeInputFile(Path inputFile) {
+    pendingInputFiles.remove(inputFile.toAbsolutePath().normalize());
+  }
+
+  /**
+   * Executes the job unless its target is the input file of a job which has not been executed yet.
+   *
+   * @return whether the job was executed (or failed), {@code false} if it was deferred.
+   */
+  public boolean processOrDefer(FileRenameJob job) {
+    var inputFile = inputFileOf(job);
+    if (job.renderOutputFileName()) {
+      if (isRenamed(job) && pendingInputFiles.contains(targetFileOf(job))) {
+        deferredJobs.add(job);
+        return false;
+      }
+      execute(job);
+    }
+    pendingInputFiles.remove(inputFile);
+    return true;
+  }
+
+  /**
+   * Orders the deferred jobs. Must only be called once all jobs were passed to {@link #processOrDefer(FileRenameJob)}.
+   *
+   * @return independent chains of jobs.
+   */
+  public List<RenameChain> planDeferredJobs() {
+    var jobs = new ArrayList<>(deferredJobs);
+    deferredJobs.clear();
+    jobs.sort(BY_INPUT_FILE);
+
+    var jobsByInputFile = new HashMap<Path, FileRenameJob>();
+    jobs.forEach(job -> jobsByInputFile.put(inputFileOf(job), job));
+    // the owner of the target name of a job has to be executed before the job
+    var owners = new HashMap<FileRenameJob, FileRenameJob>();
+    for (var job : jobs) {
+      var owner = jobsByInputFile.get(targetFileOf(job));
+      if (owner != null) {
+        owners.put(job, owner);
+      }
+    }
+
+    // the owner of the first job of a cycle is no longer waited for, as the job is moved away first
+    var stagedJobs = new HashMap<FileRenameJob, FileRenameJob>();
+    for (var cycle : findCycles(jobs, owners)) {
+      var stagedJob = cycle.get(0);
+      var lastJob = cycle.get(cycle.size() - 1);
+      owners.remove(lastJob);
+      stagedJobs.put(lastJob, stagedJob);
+    }
+
+    var waitingJobs = new HashMap<FileRenameJob, List<FileRenameJob>>();
+    owners.forEach((job, owner) -> waitingJobs.computeIfAbsent(owner, key -> new ArrayList<>()).add(job));
+    waitingJobs.values().forEach(waiting -> waiting.sort(BY_INPUT_FILE));
+
+    var chains = new ArrayList<RenameChain>();
+    for (var job : jobs) {
+      if (!owners.containsKey(job)) {
+        var stagedJob = stagedJobs.get(job);
+        var temporaryName = stagedJob == null ? null : reserveTemporaryName(stagedJob);
+        chains.add(new RenameChain(collectChain(job, waitingJobs), stagedJob, temporaryName));
+      }
+    }
+    return chains;
+  }
+
+  /**
+   * Reserves the target names of the rendered jobs as if every renamed file had already been moved away, so the names
+   * shown in a dry run are the ones an actual run would produce.
+   */
+  public void reserveAssumingAllMoved(List<FileRenameJob> jobs) {
+    var renderedJobs = jobs.stream()
+        .filter(job -> job.getJobStatus() != JobStatus.FAILED)
+        .sorted(BY_INPUT_FILE)
+        .toList();
+    renderedJobs.stream()
+        .filter(RenamePlanner::isRenamed)
+        .forEach(job -> targetNameRegistry.release(job.getJobArguments().inputDirectory(),
+            job.getJobArguments().inputFile().getFileName().toString()));
+    renderedJobs.forEach(FileRenameJob::reserveOutputFileName);
+  }
+
+  private static void execute(FileRenameJob job) {
+    job.reserveOutputFileName();
+    job.call();
+    var jobArguments = job.getJobArguments();
+    if (jobArguments.dryRun() && job.getJobStatus().isSuccessful() && isRenamed(job)) {
+      jobArguments.targetNameRegistry().release(jobArguments.inputDirectory(),
+          job.getSourceFile().getFileName().toString());
+    }
+  }
+
+  private String reserveTemporaryName(FileRenameJob job) {
+    var inputFileName = job.getJobArguments().inputFile().getFileName();
+    return targetNameRegistry.reserve(job.getJobArguments().inputDirectory(),
+        String.format(TEMPORARY_NAME_FORMAT, inputFileName), true);
+  }
+
+  /**
+   * @return every cycle once, each job followed by the owner of its target name.
+   */
+  private static List<List<FileRenameJob>> findCycles(List<FileRenameJob> jobs,
+                                                      Map<FileRenameJob, FileRenameJob> owners) {
+    var cycles = new ArrayList<List<FileRenameJob>>();
+    var visited = new HashSet<FileRenameJob>();
+    for (var job : jobs) {
+      var path = new ArrayList<FileRenameJob>();
+      var current = job;
+      while (current != null && visited.add(current)) {
+        path.add(current);
+        current = owners.get(current);
+      }
+      var cycleStart = current == null ? -1 : path.indexOf(current);
+      if (cycleStart >= 0) {
+        cycles.add(new ArrayList<>(path.subList(cycleStart, path.size())));
+      }
+    }
+    return cycles;
+  }
+
+  /**
+   * @return the job followed by all jobs waiting for it, each after the job it waits for.
+   */
+  private static List<FileRenameJob> collectChain(FileRenameJob first,
+                                                  Map<FileRenameJob, List<FileRenameJob>> waitingJobs) {
+    var chain = new ArrayList<FileRenameJob>();
+    var queue = new ArrayDeque<FileRenameJob>();
+    queue.add(first);
+    while (!queue.isEmpty()) {
+      var job = queue.poll();
+      chain.add(job);
+      queue.addAll(waitingJobs.getOrDefault(job, List.of()));
+    }
+    return chain;
+  }
+
+  private static boolean isRenamed(FileRenameJob job) {
+    return !job.getOutputFileName().equals(job.getJobArguments().inputFile().getFileName().toString());
+  }
+
+  private static Path inputFileOf(FileRenameJob job) {
+    return job.getJobArguments().inputFile().toAbsolutePath().normalize();
+  }
+
+  private static Path targetFileOf(FileRenameJob job) {
+    return job.getTargetFile().toAbsolutePath().normalize();
+  }
+
+  /**
+   * Deferred jobs to be executed one after another.
+   *
+   * @param jobs          the jobs in order of execution.
+   * @param stagedJob     the job whose input file has to be moved to the temporary name before the other jobs are
+   *                      executed because the jobs form a cycle, otherwise {@code null}.
+   * @param temporaryName the reserved temporary name of the staged job's input file.
+   */
+  public record RenameChain(List<FileRenameJob> jobs, FileRenameJob stagedJob, String temporaryName) {
+
+    public void execute(Consumer<FileRenameJob> onJobProcessed) {
+      if (stagedJob != null) {
+        stagedJob.moveToTemporaryName(temporaryName);
+      }
+      for (var job : jobs) {
+        if (job.getJobStatus() != JobStatus.FAILED) {
+          RenamePlanner.execute(job);
+        }
+        onJobProcessed.accept(job);
+      }
+    }
+  }
+
+}
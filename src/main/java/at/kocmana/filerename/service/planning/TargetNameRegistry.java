@@ -0,0 +1,130 @@
+package at.kocmana.filerename.service.planning;
+
+import at.kocmana.filerename.service.transformation.helper.FileEnumerater;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>In-memory index of the file names taken in each target directory of a task.</p>
+ * Jobs reserve the name of the file they are going to create before touching the disk, so collisions with existing
+ * files or with other jobs are resolved while planning instead of by failed moves. A directory is listed once, when
+ * its first name is reserved. For every enumerated name the registry remembers the next free number, so resolving N
+ * colliding names costs O(N) instead of O(N²) attempts.
+ *
+ * <p>Files created by other processes after a directory was listed are not known to the registry, so jobs still have
+ * to handle a {@link java.nio.file.FileAlreadyExistsException} by reserving another name.</p>
+ *
+ * <p>While watching a directory for a long time, listings would go stale and grow with every file created. After
+ * {@link #checkDiskForTakenNames()} the registry therefore only keeps the names reserved by jobs still running, which
+ * {@link #confirm(Path, String)} or {@link #release(Path, String)} remove again, and checks the disk for the names of
+ * existing files instead.</p>
+ */
+public class TargetNameRegistry {
+
+  private static final Logger log = LoggerFactory.getLogger(TargetNameRegistry.class);
+
+  private final Map<Path, DirectoryNames> directories = new ConcurrentHashMap<>();
+  private volatile boolean checkingDisk;
+
+  /**
+   * Reserves the file name in the directory. If it is already taken and {@code enumerate} is set, the first free name
+   * enumerated by {@link FileEnumerater} is reserved instead.
+   *
+   * @return the reserved name or {@code null} if the name is taken and must not be enumerated.
+   */
+  public String reserve(Path directory, String filename, boolean enumerate) {
+    var directoryNames = namesIn(directory);
+    if (tryReserve(directory, directoryNames, filename)) {
+      return filename;
+    }
+    if (!enumerate) {
+      return null;
+    }
+    var nextNumber = directoryNames.nextNumbers.computeIfAbsent(filename, name -> new AtomicInteger(1));
+    var fileEnumerater = FileEnumerater.forFilename(filename);
+    fileEnumerater.skipTo(nextNumber.get());
+    while (true) {
+      var number = fileEnumerater.getCurrentNumber();
+      var candidate = fileEnumerater.enumerateFilename();
+      if (tryReserve(directory, directoryNames, candidate)) {
+        nextNumber.accumulateAndGet(number + 1, Math::max);
+        return candidate;
+      }
+    }
+  }
+
+  private boolean tryReserve(Path directory, DirectoryNames directoryNames, String filename) {
+    if (!directoryNames.names.add(filename)) {
+      return false;
+    }
+    if (checkingDisk && Files.exists(directory.resolve(filename), LinkOption.NOFOLLOW_LINKS)) {
+      directoryNames.names.remove(filename);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Marks the file name as free again, e.g. because the file was moved away or a reserved name was not used.
+   */
+  public void release(Path directory, String filename) {
+    namesIn(directory).names.remove(filename);
+  }
+
+  /**
+   * Marks the reserved file name as used by a file created on disk now.
+   */
+  public void confirm(Path directory, String filename) {
+    if (checkingDisk) {
+      namesIn(directory).names.remove(filename);
+    }
+  }
+
+  /**
+   * @return whether the name is taken by an existing file or a reservation.
+   */
+  public boolean isTaken(Path directory, String filename) {
+    return namesIn(directory).names.contains(filename)
+        || checkingDisk && Files.exists(directory.resolve(filename), LinkOption.NOFOLLOW_LINKS);
+  }
+
+  /**
+   * Forgets all listed names and checks the disk for existing files from now on. Must only be called while no job
+   * holds a reservation, e.g. once all existing files were processed and before new ones are watched for.
+   */
+  public void checkDiskForTakenNames() {
+    checkingDisk = true;
+    directories.clear();
+  }
+
+  private DirectoryNames namesIn(Path directory) {
+    return directories.computeIfAbsent(directory.toAbsolutePath().normalize(),
+        key -> checkingDisk ? new DirectoryNames() : list(key));
+  }
+
+  private static DirectoryNames list(Path directory) {
+    var directoryNames = new DirectoryNames();
+    try (var entries = Files.newDirectoryStream(directory)) {
+      entries.forEach(entry -> directoryNames.names.add(entry.getFileName().toString()));
+    } catch (IOException exception) {
+      log.debug("Could not list directory {}, collisions will be detected when moving files: {}", directory,
+          exception.getMessage());
+    }
+    return directoryNames;
+  }
+
+  private static class DirectoryNames {
+
+    private final Set<String> names = ConcurrentHashMap.newKeySet();
+    private final Map<String, AtomicInteger> nextNumbers = new ConcurrentHashMap<>();
+  }
+
+}
@@ -0,0 +1,76 @@
+package at.kocmana.filerename.service.transformation;
+
+import at.kocmana.filerename.controller.CliController.RegexEngine;
+import at.kocmana.filerename.model.FileContext;
+import at.kocmana.filerename.service.discovery.LiteralPrefilter;
+import at.kocmana.filerename.service.transformation.matching.PatternMatcher;
+import at.kocmana.filerename.service.transformation.rules.TransformationRule;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+/**
+ * <p>Matches file names against the search pattern of a task.</p>
+ * The search pattern is derived from the input (<i>-i</i>) argument by letting every rule replace its template with a
+ * named group and is compiled by the {@link RegexEngine} of the task. Each file name is matched exactly once; the
+ * resulting groups are kept in the {@link FileContext}, from which the rules take the parts of the file name they
+ * need.
+ */
+public class FilenameMatcher {
+
+  private final String searchPattern;
+  private final PatternMatcher pattern;
+  private final LiteralPrefilter prefilter;
+
+  private FilenameMatcher(String searchPattern, RegexEngine regexEngine) {
+    this.searchPattern = searchPattern;
+    this.pattern = PatternMatcher.compile(searchPattern, regexEngine);
+    this.prefilter = LiteralPrefilter.forRegex(searchPattern);
+  }
+
+  public static FilenameMatcher forInputTemplate(String inputTemplate, List<TransformationRule> transformationRules) {
+    return forInputTemplate(inputTemplate, transformationRules, RegexEngine.JAVA);
+  }
+
+  /**
+   * @throws IllegalArgumentException if the search pattern is invalid or not supported by the regex engine.
+   */
+  public static FilenameMatcher forInputTemplate(String inputTemplate, List<TransformationRule> transformationRules,
+                                                 RegexEngine regexEngine) {
+    var searchPattern = inputTemplate;
+    for (var transformationRule : transformationRules) {
+      searchPattern = transformationRule.replaceTemplateWithSearchString(searchPattern);
+    }
+    return new FilenameMatcher(searchPattern, regexEngine);
+  }
+
+  /**
+   * Cheap check without running the regular expression.
+   *
+   * @return {@code false} if the file name can't match the search pattern.
+   */
+  public boolean mayMatch(String filename) {
+    return prefilter.test(filename);
+  }
+
+  /**
+   * @return the context of the file including the groups of the search pattern, or {@code null} if the file name
+   * does not match.
+   */
+  public FileContext match(Path file, BasicFileAttributes attributes) {
+    var match = pattern.find(file.getFileName().toString());
+    if (match == null) {
+      return null;
+    }
+    return new FileContext(file, attributes, match);
+  }
+
+  public String getSearchPattern() {
+    return searchPattern;
+  }
+
+  public List<String> getRequiredLiterals() {
+    return prefilter.getRequiredLiterals();
+  }
+
+}
@@ -0,0 +1,211 @@
+package at.kocmana.filerename.service.transformation;
+
+import at.kocmana.filerename.model.FileContext;
+import at.kocmana.filerename.service.transformation.rules.TransformationRule;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.StringConcatException;
+import java.lang.invoke.StringConcatFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>The output (<i>-o</i>) argument of a task, parsed once into a fixed sequence of literal text and rule
+ * templates.</p>
+ * The template is split by the {@link TemplateTokenizer} and compiled into a single {@link MethodHandle}: the
+ * {@code resolve} methods of the rules, bound to their concrete classes, feed a string concatenation created by
+ * {@link StringConcatFactory} with the literals as constants. Rendering the file name of a job is one call of this
+ * handle, which the JIT can inline as a whole instead of dispatching to every rule through the interface. Each rule is
+ * resolved at most once per file, so a rule template used several times is replaced with the same value. Templates
+ * without a matching rule are kept as they are.
+ */
+public class OutputTemplate {
+
+  private static final Logger log = LoggerFactory.getLogger(OutputTemplate.class);
+  private static final int LITERAL = -1;
+  // the JVM limits string concatenations to 200 arguments
+  private static final int MAX_CONCAT_ARGUMENTS = 200;
+  private static final char ARGUMENT_TAG = '\u0001';
+  private static final char CONSTANT_TAG = '\u0002';
+  private static final MethodType RESOLVE_TYPE = MethodType.methodType(String.class, FileContext.class);
+
+  private final String template;
+  private final List<TransformationRule> rules;
+  private final String[] literals;
+  private final int[] ruleIndices;
+  private final int literalLength;
+  private final MethodHandle renderer;
+
+  private OutputTemplate(String template, List<TransformationRule> rules, List<String> literals,
+                         List<Integer> ruleIndices) {
+    this.template = template;
+    this.rules = rules;
+    this.literals = literals.toArray(new String[0]);
+    this.ruleIndices = ruleIndices.stream().mapToInt(Integer::intValue).toArray();
+    this.literalLength = literals.stream()
+        .filter(literal -> literal != null)
+        .mapToInt(String::length)
+        .sum();
+    this.renderer = compileRenderer();
+  }
+
+  /**
+   * Splits the template into literals and rule templates. Rule templates are assigned to the rule with the same
+   * abbreviation.
+   */
+  public static OutputTemplate parse(String template, List<TransformationRule> transformationRules) {
+    var usedRules = new ArrayList<TransformationRule>();
+    var literals = new ArrayList<String>();
+    var ruleIndices = new ArrayList<Integer>();
+    var literal = new StringBuilder();
+
+    for (var token : TemplateTokenizer.tokenize(template).tokens()) {
+      var rule = token.isRule() ? findRule(transformationRules, token.ruleAbbreviation()) : null;
+      if (rule == null) {
+        literal.append(token.text());
+        continue;
+      }
+      addLiteral(literal, literals, ruleIndices);
+      if (!usedRules.contains(rule)) {
+        usedRules.add(rule);
+      }
+      literals.add(null);
+      ruleIndices.add(usedRules.indexOf(rule));
+    }
+    addLiteral(literal, literals, ruleIndices);
+    return new OutputTemplate(template, List.copyOf(usedRules), literals, ruleIndices);
+  }
+
+  private static void addLiteral(StringBuilder literal, List<String> literals, List<Integer> ruleIndices) {
+    if (literal.length() > 0) {
+      literals.add(literal.toString());
+      ruleIndices.add(LITERAL);
+      literal.setLength(0);
+    }
+  }
+
+  private static TransformationRule findRule(List<TransformationRule> transformationRules, String abbreviation) {
+    return transformationRules.stream()
+        .filter(rule -> rule.getRuleAbbreviation().equals(abbreviation))
+        .findFirst()
+        .orElse(null);
+  }
+
+  /**
+   * @return a handle of type {@code (FileContext)String} rendering the file name, or {@code null} if the template
+   * can't be compiled, in which case the segments are rendered one by one.
+   */
+  private MethodHandle compileRenderer() {
+    try {
+      var lookup = MethodHandles.lookup();
+      var recipe = new StringBuilder();
+      var constants = new ArrayList<Object>();
+      var argumentRules = new ArrayList<Integer>();
+      for (int i = 0; i < ruleIndices.length; i++) {
+        if (ruleIndices[i] == LITERAL) {
+          recipe.append(CONSTANT_TAG);
+          constants.add(literals[i]);
+        } else {
+          recipe.append(ARGUMENT_TAG);
+          argumentRules.add(ruleIndices[i]);
+        }
+      }
+      if (argumentRules.isEmpty()) {
+        var filename = String.join("", literals);
+        return MethodHandles.dropArguments(MethodHandles.constant(String.class, filename), 0, FileContext.class);
+      }
+      if (argumentRules.size() > MAX_CONCAT_ARGUMENTS) {
+        return null;
+      }
+
+      // (String...)String, one argument per rule template
+      var concatType = MethodType.methodType(String.class, Collections.nCopies(argumentRules.size(), String.class));
+      var concat = StringConcatFactory.makeConcatWithConstants(lookup, "render", concatType, recipe.toString(),
+          constants.toArray()).getTarget();
+      // (String...)String, one argument per rule, so every rule is resolved once
+      var valueType = MethodType.methodType(String.class, Collections.nCopies(rules.size(), String.class));
+      var concatValues = MethodHandles.permuteArguments(concat, valueType,
+          argumentRules.stream().mapToInt(Integer::intValue).toArray());
+      // (FileContext...)String
+      var resolvers = new MethodHandle[rules.size()];
+      for (int i = 0; i < resolvers.length; i++) {
+        resolvers[i] = resolverFor(lookup, rules.get(i));
+      }
+      var resolveValues = MethodHandles.filterArguments(concatValues, 0, resolvers);
+      // (FileContext)String
+      return MethodHandles.permuteArguments(resolveValues, RESOLVE_TYPE, new int[rules.size()]);
+    } catch (ReflectiveOperationException | StringConcatException exception) {
+      log.debug("Could not compile output template {}, rendering it segment by segment: {}", template,
+          exception.getMessage());
+      return null;
+    }
+  }
+
+  private static MethodHandle resolverFor(MethodHandles.Lookup lookup, TransformationRule rule)
+      throws ReflectiveOperationException {
+    MethodHandle resolve;
+    try {
+      resolve = lookup.findVirtual(rule.getClass(), "resolve", RESOLVE_TYPE);
+    } catch (IllegalAccessException exception) {
+      resolve = lookup.findVirtual(TransformationRule.class, "resolve", RESOLVE_TYPE);
+    }
+    return resolve.bindTo(rule);
+  }
+
+  /**
+   * @return the output file name for the given file.
+   */
+  public String render(FileContext fileContext) {
+    if (renderer == null) {
+      return renderSegments(fileContext);
+    }
+    try {
+      return (String) renderer.invokeExact(fileContext);
+    } catch (RuntimeException | Error exception) {
+      throw exception;
+    } catch (Throwable throwable) {
+      throw new IllegalStateException(throwable);
+    }
+  }
+
+  /**
+   * Renders the file name by appending segment after segment. Used if the template could not be compiled.
+   */
+  String renderSegments(FileContext fileContext) {
+    var values = new String[rules.size()];
+    var filename = new StringBuilder(literalLength + 16 * values.length);
+    for (int i = 0; i < ruleIndices.length; i++) {
+      var ruleIndex = ruleIndices[i];
+      if (ruleIndex == LITERAL) {
+        filename.append(literals[i]);
+        continue;
+      }
+      if (values[ruleIndex] == null) {
+        values[ruleIndex] = rules.get(ruleIndex).resolve(fileContext);
+      }
+      filename.append(values[ruleIndex]);
+    }
+    return filename.toString();
+  }
+
+  boolean isCompiled() {
+    return renderer != null;
+  }
+
+  /**
+   * @return the rules referenced by the template, in order of their first occurrence.
+   */
+  public List<TransformationRule> getRules() {
+    return rules;
+  }
+
+  @Override
+  public String toString() {
+    return template;
+  }
+
+}
@@ -0,0 +1,85 @@
+package at.kocmana.filerename.service.transformation;
+
+import at.kocmana.filerename.model.Template;
+import at.kocmana.filerename.model.TemplateToken;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Splits input (<i>-i</i>) and output (<i>-o</i>) arguments into literal text and rule templates in a single
+ * pass.</p>
+ * A rule template starts with {@code <<}, followed by the rule abbreviation consisting of letters, optional
+ * arguments separated by {@code |} and {@code >>}. Arguments end at the first {@code >>} and must not be empty.
+ * Everything that is not a well-formed rule template is literal text.
+ */
+public class TemplateTokenizer {
+
+  private static final String RULE_START_MARKER = "<<";
+  private static final String RULE_END_MARKER = ">>";
+  private static final char RULE_ARGUMENTS_SEPARATOR = '|';
+
+  private TemplateTokenizer() {
+  }
+
+  /**
+   * @return the tokens of the template, an empty template for {@code null}.
+   */
+  public static Template tokenize(String template) {
+    if (template == null) {
+      return new Template("", List.of());
+    }
+    var tokens = new ArrayList<TemplateToken>();
+    var literalStart = 0;
+    var position = template.indexOf(RULE_START_MARKER);
+    while (position >= 0) {
+      var rule = readRule(template, position);
+      if (rule == null) {
+        position = template.indexOf(RULE_START_MARKER, position + 1);
+        continue;
+      }
+      if (literalStart < position) {
+        tokens.add(TemplateToken.literal(template.substring(literalStart, position), literalStart));
+      }
+      tokens.add(rule);
+      literalStart = rule.region().offsetTo();
+      position = template.indexOf(RULE_START_MARKER, literalStart);
+    }
+    if (literalStart < template.length()) {
+      tokens.add(TemplateToken.literal(template.substring(literalStart), literalStart));
+    }
+    return new Template(template, tokens);
+  }
+
+  /**
+   * @return the rule template starting at the given offset or {@code null} if there is none.
+   */
+  private static TemplateToken readRule(String template, int start) {
+    var abbreviationStart = start + RULE_START_MARKER.length();
+    var abbreviationEnd = abbreviationStart;
+    while (abbreviationEnd < template.length() && Character.isLetter(template.charAt(abbreviationEnd))) {
+      abbreviationEnd++;
+    }
+    if (abbreviationEnd == abbreviationStart || abbreviationEnd == template.length()) {
+      return null;
+    }
+    var abbreviation = template.substring(abbreviationStart, abbreviationEnd);
+
+    if (template.startsWith(RULE_END_MARKER, abbreviationEnd)) {
+      var end = abbreviationEnd + RULE_END_MARKER.length();
+      return TemplateToken.rule(template.substring(start, end), start, abbreviation, "");
+    }
+    if (template.charAt(abbreviationEnd) != RULE_ARGUMENTS_SEPARATOR) {
+      return null;
+    }
+    var argumentsStart = abbreviationEnd + 1;
+    // arguments must not be empty, so the end marker is searched from the second character on
+    var argumentsEnd = template.indexOf(RULE_END_MARKER, argumentsStart + 1);
+    if (argumentsEnd < 0) {
+      return null;
+    }
+    var end = argumentsEnd + RULE_END_MARKER.length();
+    return TemplateToken.rule(template.substring(start, end), start, abbreviation,
+            template.substring(argumentsStart, argumentsEnd));
+  }
+
+}
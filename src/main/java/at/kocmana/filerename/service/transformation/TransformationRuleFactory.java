@@ -12,9 +12,11 @@ public class TransformationRuleFactory {
   private TransformationRuleFactory(){}
 
   public static List<TransformationRule> generateApplicableTransformationRules(String inputPattern, String outputPattern) {
+    var inputTemplate = TemplateTokenizer.tokenize(inputPattern);
+    var outputTemplate = TemplateTokenizer.tokenize(outputPattern);
 
     return FACTORY_METHODS.stream()
-            .map(generator -> generator.generate(inputPattern, outputPattern))
+            .map(generator -> generator.generate(inputTemplate, outputTemplate))
             .filter(Optional::isPresent)
             .map(Optional::get)
             .toList();
@@ -2,6 +2,8 @@ package at.kocmana.filerename.service.transformation;
 
 import at.kocmana.filerename.service.transformation.rules.CreationDateTransformationRule;
 import at.kocmana.filerename.service.transformation.rules.EnumerationTransformationRule;
+import at.kocmana.filerename.service.transformation.rules.ExifDateTransformationRule;
+import at.kocmana.filerename.service.transformation.rules.HashTransformationRule;
 import at.kocmana.filerename.service.transformation.rules.RegexTransformationRule;
 import at.kocmana.filerename.service.transformation.rules.TimestampTransformationRule;
 import java.util.List;
@@ -15,6 +17,8 @@ class TransformationRuleFactoryConfiguration {
       List.of(
           CreationDateTransformationRule.FACTORY_METHOD,
           EnumerationTransformationRule.FACTORY_METHOD,
+          ExifDateTransformationRule.FACTORY_METHOD,
+          HashTransformationRule.FACTORY_METHOD,
           TimestampTransformationRule.FACTORY_METHOD,
           RegexTransformationRule.FACTORY_METHOD
       );
@@ -1,5 +1,6 @@
 package at.kocmana.filerename.service.transformation;
 
+import at.kocmana.filerename.model.Template;
 import at.kocmana.filerename.service.transformation.rules.TransformationRule;
 
 import java.util.Optional;
@@ -7,6 +8,10 @@ import java.util.Optional;
 @FunctionalInterface
 public interface TransformationRuleGenerator {
 
-  Optional<TransformationRule> generate(String inputPattern, String outputPattern);
+  Optional<TransformationRule> generate(Template inputTemplate, Template outputTemplate);
+
+  default Optional<TransformationRule> generate(String inputPattern, String outputPattern) {
+    return generate(TemplateTokenizer.tokenize(inputPattern), TemplateTokenizer.tokenize(outputPattern));
+  }
 
 }
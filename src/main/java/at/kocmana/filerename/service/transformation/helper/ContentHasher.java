@@ -0,0 +1,135 @@
+package at.kocmana.filerename.service.transformation.helper;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Hashes the content of files using direct buffers only.</p>
+ * Each file is hashed using two direct buffers of {@value #BUFFER_SIZE} bytes taken from a pool shared by all threads,
+ * which allows hashing one file per core at the same time and makes further threads wait. While one buffer is being
+ * digested, the next part of the file is read into the other one on a separate read-ahead thread, so reading from disk
+ * and hashing overlap. Files fitting into a single buffer are read on the calling thread. Digests like SHA-256 process their input
+ * strictly in order, so a single file can't be hashed on several cores; several files are hashed concurrently by
+ * calling this class from several threads instead.
+ */
+public class ContentHasher {
+
+  static final int BUFFER_SIZE = 4 * 1024 * 1024;
+
+  private static final AtomicInteger READ_AHEAD_THREAD_COUNT = new AtomicInteger();
+  private static final ExecutorService READ_AHEAD = Executors.newCachedThreadPool(runnable -> {
+    var thread = new Thread(runnable, "filerename-read-ahead-" + READ_AHEAD_THREAD_COUNT.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  });
+  private static final DirectBufferPool BUFFERS =
+      new DirectBufferPool(BUFFER_SIZE, 2 * Runtime.getRuntime().availableProcessors());
+
+  private ContentHasher() {
+  }
+
+  /**
+   * Feeds the whole content of the file into the digest.
+   *
+   * @return the number of bytes hashed.
+   * @throws IOException if the file can't be read.
+   */
+  public static long hash(Path file, MessageDigest digest) throws IOException {
+    var buffers = BUFFERS.acquire(2);
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() <= BUFFER_SIZE) {
+        var read = readFully(channel, buffers[0], 0);
+        digest.update(buffers[0].flip());
+        return read;
+      }
+      return hashWithReadAhead(channel, buffers, digest);
+    } finally {
+      BUFFERS.release(buffers);
+    }
+  }
+
+  private static long hashWithReadAhead(FileChannel channel, ByteBuffer[] buffers, MessageDigest digest)
+      throws IOException {
+    var current = 0;
+    var position = 0L;
+    var pending = readAhead(channel, buffers[current], position);
+    try {
+      while (true) {
+        var read = await(pending);
+        pending = null;
+        position += read;
+        // a partially filled buffer marks the end of the file
+        if (read == BUFFER_SIZE) {
+          pending = readAhead(channel, buffers[1 - current], position);
+        }
+        digest.update(buffers[current].flip());
+        if (pending == null) {
+          return position;
+        }
+        current = 1 - current;
+      }
+    } finally {
+      // the buffers are reused for the next file, so a failed read-ahead must not outlive this call
+      if (pending != null) {
+        awaitQuietly(pending);
+      }
+    }
+  }
+
+  private static CompletableFuture<Integer> readAhead(FileChannel channel, ByteBuffer buffer, long position) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return readFully(channel, buffer, position);
+      } catch (IOException exception) {
+        throw new UncheckedIOException(exception);
+      }
+    }, READ_AHEAD);
+  }
+
+  private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+    buffer.clear();
+    var read = 0;
+    while (buffer.hasRemaining()) {
+      var count = channel.read(buffer, position + read);
+      if (count < 0) {
+        break;
+      }
+      read += count;
+    }
+    return read;
+  }
+
+  private static int await(CompletableFuture<Integer> pending) throws IOException {
+    try {
+      return pending.get();
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while reading file");
+    } catch (ExecutionException exception) {
+      if (exception.getCause() instanceof UncheckedIOException uncheckedIoException) {
+        throw uncheckedIoException.getCause();
+      }
+      throw new IOException(exception.getCause());
+    }
+  }
+
+  private static void awaitQuietly(CompletableFuture<Integer> pending) {
+    try {
+      pending.join();
+    } catch (RuntimeException exception) {
+      // the original failure is propagated instead
+    }
+  }
+
+}
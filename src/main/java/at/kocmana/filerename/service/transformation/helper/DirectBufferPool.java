@@ -0,0 +1,66 @@
+package at.kocmana.filerename.service.transformation.helper;
+
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * <p>Bounded pool of direct buffers of equal size.</p>
+ * Buffers are allocated on first use and reused afterwards, so at most {@code maxBuffers} of them are ever allocated,
+ * however many threads (e.g. virtual threads) read files at the same time. Threads wait for a buffer to be released
+ * once all of them are in use.
+ */
+class DirectBufferPool {
+
+  private final int bufferSize;
+  private final int maxBuffers;
+  private final Semaphore availableBuffers;
+  private final Queue<ByteBuffer> freeBuffers = new ConcurrentLinkedQueue<>();
+
+  DirectBufferPool(int bufferSize, int maxBuffers) {
+    if (bufferSize < 1 || maxBuffers < 1) {
+      throw new IllegalArgumentException("Buffer size and number of buffers must be > 0");
+    }
+    this.bufferSize = bufferSize;
+    this.maxBuffers = maxBuffers;
+    this.availableBuffers = new Semaphore(maxBuffers, true);
+  }
+
+  /**
+   * Takes the given number of cleared buffers at once, so threads needing several buffers can't block each other. They
+   * have to be passed to {@link #release(ByteBuffer...)} afterwards.
+   *
+   * @throws InterruptedIOException if interrupted while waiting for buffers.
+   */
+  ByteBuffer[] acquire(int count) throws InterruptedIOException {
+    if (count > maxBuffers) {
+      throw new IllegalArgumentException(String.format("Can't take %d of %d buffers", count, maxBuffers));
+    }
+    try {
+      availableBuffers.acquire(count);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for a buffer");
+    }
+    var buffers = new ByteBuffer[count];
+    for (int i = 0; i < count; i++) {
+      var buffer = freeBuffers.poll();
+      buffers[i] = buffer == null ? ByteBuffer.allocateDirect(bufferSize) : buffer.clear();
+    }
+    return buffers;
+  }
+
+  ByteBuffer acquire() throws InterruptedIOException {
+    return acquire(1)[0];
+  }
+
+  void release(ByteBuffer... buffers) {
+    for (var buffer : buffers) {
+      freeBuffers.add(buffer);
+    }
+    availableBuffers.release(buffers.length);
+  }
+
+}
@@ -0,0 +1,235 @@
+package at.kocmana.filerename.service.transformation.helper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+
+/**
+ * <p>Reads the capture date (<i>DateTimeOriginal</i>) from the EXIF data of JPEG and TIFF based (most RAW formats)
+ * files.</p>
+ * Only the first {@value #HEADER_SIZE} bytes of a file are read, through a {@link FileChannel} into a direct buffer
+ * taken from a bounded pool. EXIF data is stored at the very beginning of these formats, so the image data itself is never
+ * touched. If the capture date is missing, <i>DateTimeDigitized</i> and then the <i>DateTime</i> of the image are used.
+ */
+public class ExifDateReader {
+
+  static final int HEADER_SIZE = 64 * 1024;
+
+  private static final int JPEG_START_OF_IMAGE = 0xFFD8;
+  private static final int JPEG_APP1 = 0xE1;
+  private static final int JPEG_START_OF_SCAN = 0xDA;
+  private static final int JPEG_END_OF_IMAGE = 0xD9;
+  private static final byte[] EXIF_HEADER = "Exif\0\0".getBytes(StandardCharsets.US_ASCII);
+  private static final int TIFF_MAGIC_NUMBER = 42;
+  private static final int IFD_ENTRY_SIZE = 12;
+  private static final int TYPE_ASCII = 2;
+  private static final int TAG_DATE_TIME = 0x0132;
+  private static final int TAG_EXIF_IFD = 0x8769;
+  private static final int TAG_DATE_TIME_ORIGINAL = 0x9003;
+  private static final int TAG_DATE_TIME_DIGITIZED = 0x9004;
+  private static final int EXIF_DATE_LENGTH = 19;
+  private static final DateTimeFormatter EXIF_DATE_FORMAT = DateTimeFormatter.ofPattern("uuuu:MM:dd HH:mm:ss");
+
+  private static final DirectBufferPool HEADER_BUFFERS =
+      new DirectBufferPool(HEADER_SIZE, 16 * Runtime.getRuntime().availableProcessors());
+
+  private ExifDateReader() {
+  }
+
+  /**
+   * @return the capture date or an empty {@link Optional} if the file has no EXIF data containing a valid date
+   * within its header.
+   * @throws IOException if the file can't be read.
+   */
+  public static Optional<LocalDateTime> readCaptureDate(Path file) throws IOException {
+    var buffer = HEADER_BUFFERS.acquire();
+    try {
+      var header = readHeader(file, buffer);
+      if (header.limit() < 4) {
+        return Optional.empty();
+      }
+      header.order(ByteOrder.BIG_ENDIAN);
+      if (unsignedShort(header, 0) == JPEG_START_OF_IMAGE) {
+        return findExifSegment(header);
+      }
+      return readTiff(header, 0, header.limit());
+    } finally {
+      HEADER_BUFFERS.release(buffer);
+    }
+  }
+
+  private static ByteBuffer readHeader(Path file, ByteBuffer buffer) throws IOException {
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+        // read until the buffer is full or the file ends
+      }
+    }
+    return buffer.flip();
+  }
+
+  private static Optional<LocalDateTime> findExifSegment(ByteBuffer header) {
+    var position = 2;
+    while (position + 4 <= header.limit()) {
+      if (unsignedByte(header, position) != 0xFF) {
+        return Optional.empty();
+      }
+      var marker = unsignedByte(header, position + 1);
+      if (marker == 0xFF) {
+        // fill byte
+        position++;
+        continue;
+      }
+      if (marker == JPEG_START_OF_SCAN || marker == JPEG_END_OF_IMAGE) {
+        return Optional.empty();
+      }
+      var segmentLength = unsignedShort(header, position + 2);
+      var segmentStart = position + 4;
+      var segmentEnd = Math.min(header.limit(), position + 2 + segmentLength);
+      if (marker == JPEG_APP1 && startsWith(header, segmentStart, segmentEnd, EXIF_HEADER)) {
+        return readTiff(header, segmentStart + EXIF_HEADER.length, segmentEnd);
+      }
+      position += 2 + segmentLength;
+    }
+    return Optional.empty();
+  }
+
+  private static Optional<LocalDateTime> readTiff(ByteBuffer header, int start, int end) {
+    var tiff = new Tiff(header, start, end);
+    if (!tiff.hasValidHeader()) {
+      return Optional.empty();
+    }
+    var imageDirectory = tiff.directoryOffset(4);
+    var exifDirectory = tiff.findEntry(imageDirectory, TAG_EXIF_IFD)
+        .map(tiff::unsignedIntValue);
+    return exifDirectory.flatMap(directory -> tiff.readDate(directory, TAG_DATE_TIME_ORIGINAL))
+        .or(() -> exifDirectory.flatMap(directory -> tiff.readDate(directory, TAG_DATE_TIME_DIGITIZED)))
+        .or(() -> tiff.readDate(imageDirectory, TAG_DATE_TIME));
+  }
+
+  private static boolean startsWith(ByteBuffer buffer, int start, int end, byte[] prefix) {
+    if (start + prefix.length > end) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (buffer.get(start + i) != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int unsignedByte(ByteBuffer buffer, int index) {
+    return buffer.get(index) & 0xFF;
+  }
+
+  private static int unsignedShort(ByteBuffer buffer, int index) {
+    return buffer.getShort(index) & 0xFFFF;
+  }
+
+  /**
+   * A TIFF structure within the header. All offsets are relative to its start and checked against its end.
+   */
+  private static class Tiff {
+
+    private final ByteBuffer buffer;
+    private final int start;
+    private final int end;
+
+    Tiff(ByteBuffer buffer, int start, int end) {
+      this.buffer = buffer;
+      this.start = start;
+      this.end = end;
+    }
+
+    boolean hasValidHeader() {
+      if (!contains(0, 8)) {
+        return false;
+      }
+      var byteOrder = buffer.getShort(start);
+      if (byteOrder == 0x4949) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+      } else if (byteOrder == 0x4D4D) {
+        buffer.order(ByteOrder.BIG_ENDIAN);
+      } else {
+        return false;
+      }
+      return unsignedShort(2) == TIFF_MAGIC_NUMBER;
+    }
+
+    long directoryOffset(int offset) {
+      return unsignedInt(offset);
+    }
+
+    /**
+     * @return the offset of the entry with the given tag in the directory.
+     */
+    Optional<Long> findEntry(long directory, int tag) {
+      if (!contains(directory, 2)) {
+        return Optional.empty();
+      }
+      var entryCount = unsignedShort(directory);
+      for (int i = 0; i < entryCount; i++) {
+        var entry = directory + 2 + (long) i * IFD_ENTRY_SIZE;
+        if (!contains(entry, IFD_ENTRY_SIZE)) {
+          return Optional.empty();
+        }
+        if (unsignedShort(entry) == tag) {
+          return Optional.of(entry);
+        }
+      }
+      return Optional.empty();
+    }
+
+    long unsignedIntValue(long entry) {
+      return unsignedInt(entry + 8);
+    }
+
+    Optional<LocalDateTime> readDate(long directory, int tag) {
+      return findEntry(directory, tag).flatMap(entry -> {
+        var type = unsignedShort(entry + 2);
+        var count = unsignedInt(entry + 4);
+        if (type != TYPE_ASCII || count < EXIF_DATE_LENGTH) {
+          return Optional.empty();
+        }
+        // values longer than four bytes are stored at an offset
+        var value = unsignedIntValue(entry);
+        if (!contains(value, EXIF_DATE_LENGTH)) {
+          return Optional.empty();
+        }
+        var text = new byte[EXIF_DATE_LENGTH];
+        buffer.get(start + (int) value, text);
+        return parseDate(new String(text, StandardCharsets.US_ASCII));
+      });
+    }
+
+    private static Optional<LocalDateTime> parseDate(String text) {
+      try {
+        return Optional.of(LocalDateTime.parse(text, EXIF_DATE_FORMAT));
+      } catch (DateTimeParseException exception) {
+        // unknown dates are stored as blanks or zeros
+        return Optional.empty();
+      }
+    }
+
+    private boolean contains(long offset, int length) {
+      return offset >= 0 && start + offset + length <= end;
+    }
+
+    private int unsignedShort(long offset) {
+      return buffer.getShort(start + (int) offset) & 0xFFFF;
+    }
+
+    private long unsignedInt(long offset) {
+      return contains(offset, 4) ? buffer.getInt(start + (int) offset) & 0xFFFFFFFFL : -1;
+    }
+  }
+
+}
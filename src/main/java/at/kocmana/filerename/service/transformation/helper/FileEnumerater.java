@@ -13,6 +13,7 @@ public class FileEnumerater {
 
   private final String filename;
   private final Region regionToReplace;
+  private final String numberFormat;
   private int currentNumber = 1;
 
   public static FileEnumerater forFilename(String filename) {
@@ -24,13 +25,15 @@ public class FileEnumerater {
 
   private FileEnumerater(String filename) {
     this.filename = filename;
-    this.regionToReplace = determineRegionToReplace();
-  }
-
-  private Region determineRegionToReplace() {
     var matcher = FILENAME_PATTERN.matcher(filename);
-    matcher.find();
-    return new Region(matcher.start(DOT_GROUP_NAME), matcher.end(DOT_GROUP_NAME));
+    if (matcher.find()) {
+      this.regionToReplace = new Region(matcher.start(DOT_GROUP_NAME), matcher.end(DOT_GROUP_NAME));
+      this.numberFormat = "-%d.";
+    } else {
+      // file names without suffix get the number appended
+      this.regionToReplace = new Region(filename.length(), filename.length());
+      this.numberFormat = "-%d";
+    }
   }
 
   public String enumerateFilename() {
@@ -40,7 +43,14 @@ public class FileEnumerater {
   }
 
   private String getFileSuffix() {
-    return String.format("-%d.", currentNumber++);
+    return String.format(numberFormat, currentNumber++);
+  }
+
+  /**
+   * Continues enumerating at the given number, e.g. because all lower numbers are known to be taken.
+   */
+  public void skipTo(int number) {
+    currentNumber = Math.max(currentNumber, number);
   }
 
   public String getFilename() {
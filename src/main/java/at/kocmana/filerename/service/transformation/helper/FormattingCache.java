@@ -0,0 +1,67 @@
+package at.kocmana.filerename.service.transformation.helper;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * <p>Bounded cache for values formatted by transformation rules, e.g. timestamps.</p>
+ * Files handled by a task often share the same value (burst shots or time-lapse imports taken within the same second),
+ * so parsing and formatting are only done once per distinct value. When the cache is full it is cleared entirely:
+ * files are mostly processed in order, hence recently used values are the ones most likely to be requested again.
+ */
+public class FormattingCache<K> {
+
+  public static final int DEFAULT_CAPACITY = 4096;
+
+  private final String name;
+  private final int capacity;
+  private final Map<K, String> values;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public FormattingCache(String name, int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Cache capacity must be > 0");
+    }
+    this.name = name;
+    this.capacity = capacity;
+    this.values = new ConcurrentHashMap<>(capacity * 4 / 3 + 1);
+  }
+
+  /**
+   * @return the cached value for the key, or the value computed by the formatter which is cached from then on.
+   */
+  public String get(K key, Function<K, String> formatter) {
+    var value = values.get(key);
+    if (value != null) {
+      hits.increment();
+      return value;
+    }
+    misses.increment();
+    value = formatter.apply(key);
+    if (values.size() >= capacity) {
+      values.clear();
+    }
+    values.put(key, value);
+    return value;
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  @Override
+  public String toString() {
+    var hitCount = getHitCount();
+    var requestCount = hitCount + getMissCount();
+    var hitRate = requestCount == 0 ? 0 : hitCount * 100.0 / requestCount;
+    return String.format("%s: %d hits, %d misses (%.1f%% hit rate)", name, hitCount, getMissCount(), hitRate);
+  }
+
+}
@@ -0,0 +1,241 @@
+package at.kocmana.filerename.service.transformation.helper;
+
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * <p>Reformats timestamps of fixed-width numeric patterns like {@code yyyyMMdd_HHmmss} or {@code yyyyMMddHHmmssSSS}
+ * without going through {@link DateTimeFormatter#parse(CharSequence)}.</p>
+ * The digits are read straight from their offsets in the input and written into a reused buffer. Only patterns
+ * consisting of {@code yyyy}, {@code yy}, {@code uuuu}, {@code uu}, {@code MM}, {@code dd}, {@code HH}, {@code mm},
+ * {@code ss}, one to nine {@code S} and unquoted non-letter literals are supported. Inputs which are not a valid
+ * timestamp of exactly this shape are rejected, so the caller can fall back to {@link DateTimeFormatter} and get the
+ * very same result or error.
+ */
+public class NumericTimestampFormat {
+
+  private static final String RESERVED_CHARACTERS = "'[]{}#";
+  private static final int[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000,
+      100_000_000, 1_000_000_000};
+  private static final List<LocalDateTime> VERIFICATION_TIMESTAMPS = List.of(
+      LocalDateTime.of(2021, 12, 20, 12, 54, 1, 123_456_789),
+      LocalDateTime.of(1999, 2, 28, 23, 5, 9, 1),
+      LocalDateTime.of(2004, 2, 29, 0, 0, 0, 0));
+
+  private final Field[] inputFields;
+  private final Field[] outputFields;
+  private final String inputLiterals;
+  private final String outputLiterals;
+  private final ThreadLocal<char[]> outputBuffer;
+
+  private NumericTimestampFormat(List<Field> inputFields, List<Field> outputFields) {
+    this.inputFields = inputFields.toArray(new Field[0]);
+    this.outputFields = outputFields.toArray(new Field[0]);
+    this.inputLiterals = literalsOf(inputFields);
+    this.outputLiterals = literalsOf(outputFields);
+    var outputLength = outputLiterals.length();
+    this.outputBuffer = ThreadLocal.withInitial(() -> new char[outputLength]);
+  }
+
+  /**
+   * @return a fast path for reformatting timestamps from the input to the output pattern, or an empty
+   * {@link Optional} if either pattern is not supported or the fast path would not produce the same output as
+   * {@code dtfOut.format(dtfIn.parse(input))}.
+   */
+  public static Optional<NumericTimestampFormat> forPatterns(String inputPattern, String outputPattern,
+                                                             DateTimeFormatter dtfIn, DateTimeFormatter dtfOut) {
+    var inputFields = parsePattern(inputPattern, true);
+    var outputFields = parsePattern(outputPattern, false);
+    if (inputFields == null || outputFields == null) {
+      return Optional.empty();
+    }
+    var format = new NumericTimestampFormat(inputFields, outputFields);
+    return format.producesSameResultAs(dtfIn, dtfOut) ? Optional.of(format) : Optional.empty();
+  }
+
+  private boolean producesSameResultAs(DateTimeFormatter dtfIn, DateTimeFormatter dtfOut) {
+    for (var timestamp : VERIFICATION_TIMESTAMPS) {
+      try {
+        var input = dtfIn.format(timestamp);
+        if (!dtfOut.format(dtfIn.parse(input)).equals(reformat(input))) {
+          return false;
+        }
+      } catch (RuntimeException exception) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the reformatted timestamp or {@code null} if the input is not a valid timestamp of the input pattern.
+   */
+  public String reformat(CharSequence input) {
+    if (input.length() != inputLiterals.length()) {
+      return null;
+    }
+    int year = 0;
+    int month = 0;
+    int day = 0;
+    int hour = 0;
+    int minute = 0;
+    int second = 0;
+    int nano = 0;
+    boolean hasDate = false;
+
+    for (var field : inputFields) {
+      var value = parseField(input, field);
+      if (value < 0) {
+        return null;
+      }
+      switch (field.type) {
+        case YEAR -> {
+          year = field.width == 2 ? 2000 + value : value;
+          hasDate = true;
+        }
+        case MONTH -> month = value;
+        case DAY -> day = value;
+        case HOUR -> hour = value;
+        case MINUTE -> minute = value;
+        case SECOND -> second = value;
+        case FRACTION -> nano = value * POWERS_OF_TEN[9 - field.width];
+        default -> {
+          // literals were checked by parseField
+        }
+      }
+    }
+    if (!isValid(hasDate, year, month, day, hour, minute, second)) {
+      return null;
+    }
+
+    var buffer = outputBuffer.get();
+    for (var field : outputFields) {
+      switch (field.type) {
+        case LITERAL -> buffer[field.offset] = outputLiterals.charAt(field.offset);
+        case YEAR -> writeDigits(buffer, field, field.width == 2 ? year % 100 : year);
+        case MONTH -> writeDigits(buffer, field, month);
+        case DAY -> writeDigits(buffer, field, day);
+        case HOUR -> writeDigits(buffer, field, hour);
+        case MINUTE -> writeDigits(buffer, field, minute);
+        case SECOND -> writeDigits(buffer, field, second);
+        case FRACTION -> writeDigits(buffer, field, nano / POWERS_OF_TEN[9 - field.width]);
+      }
+    }
+    return new String(buffer);
+  }
+
+  private int parseField(CharSequence input, Field field) {
+    if (field.type == FieldType.LITERAL) {
+      return input.charAt(field.offset) == inputLiterals.charAt(field.offset) ? 0 : -1;
+    }
+    var value = 0;
+    for (int i = field.offset; i < field.offset + field.width; i++) {
+      var digit = input.charAt(i) - '0';
+      if (digit < 0 || digit > 9) {
+        return -1;
+      }
+      value = value * 10 + digit;
+    }
+    return value;
+  }
+
+  private static boolean isValid(boolean hasDate, int year, int month, int day, int hour, int minute, int second) {
+    if (hasDate && (year < 1 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month))) {
+      return false;
+    }
+    return hour < 24 && minute < 60 && second < 60;
+  }
+
+  private static int lengthOfMonth(int year, int month) {
+    return switch (month) {
+      case 2 -> Year.isLeap(year) ? 29 : 28;
+      case 4, 6, 9, 11 -> 30;
+      default -> 31;
+    };
+  }
+
+  private static void writeDigits(char[] buffer, Field field, int value) {
+    for (int i = field.offset + field.width - 1; i >= field.offset; i--) {
+      buffer[i] = (char) ('0' + value % 10);
+      value /= 10;
+    }
+  }
+
+  /**
+   * @return the fields of the pattern or {@code null} if the pattern is not supported.
+   */
+  private static List<Field> parsePattern(String pattern, boolean requireCompleteDate) {
+    var fields = new ArrayList<Field>();
+    var fieldTypes = EnumSet.noneOf(FieldType.class);
+    var offset = 0;
+    var position = 0;
+    while (position < pattern.length()) {
+      var letter = pattern.charAt(position);
+      var width = 1;
+      while (position + width < pattern.length() && pattern.charAt(position + width) == letter) {
+        width++;
+      }
+      var type = FieldType.of(letter, width);
+      if (type == null) {
+        return null;
+      }
+      if (type == FieldType.LITERAL) {
+        width = 1;
+      } else if (!fieldTypes.add(type)) {
+        return null;
+      }
+      fields.add(new Field(type, offset, width, type == FieldType.LITERAL ? letter : ' '));
+      offset += width;
+      position += width;
+    }
+    // partial input dates are resolved differently by DateTimeFormatter, leave them to it
+    var dateFieldCount = fieldTypes.stream().filter(FieldType::isDateField).count();
+    if (requireCompleteDate && dateFieldCount != 0 && dateFieldCount != 3) {
+      return null;
+    }
+    return fields;
+  }
+
+  private static String literalsOf(List<Field> fields) {
+    var literals = new StringBuilder();
+    for (var field : fields) {
+      for (int i = 0; i < field.width; i++) {
+        literals.append(field.literal);
+      }
+    }
+    return literals.toString();
+  }
+
+  private enum FieldType {
+    LITERAL, YEAR, MONTH, DAY, HOUR, MINUTE, SECOND, FRACTION;
+
+    boolean isDateField() {
+      return this == YEAR || this == MONTH || this == DAY;
+    }
+
+    static FieldType of(char letter, int width) {
+      if (!Character.isLetter(letter)) {
+        return RESERVED_CHARACTERS.indexOf(letter) < 0 ? LITERAL : null;
+      }
+      return switch (letter) {
+        case 'y', 'u' -> width == 2 || width == 4 ? YEAR : null;
+        case 'M' -> width == 2 ? MONTH : null;
+        case 'd' -> width == 2 ? DAY : null;
+        case 'H' -> width == 2 ? HOUR : null;
+        case 'm' -> width == 2 ? MINUTE : null;
+        case 's' -> width == 2 ? SECOND : null;
+        case 'S' -> width <= 9 ? FRACTION : null;
+        default -> null;
+      };
+    }
+  }
+
+  private record Field(FieldType type, int offset, int width, char literal) {
+  }
+
+}
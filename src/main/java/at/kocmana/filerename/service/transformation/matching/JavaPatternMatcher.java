@@ -0,0 +1,29 @@
+package at.kocmana.filerename.service.transformation.matching;
+
+import at.kocmana.filerename.model.FilenameMatch;
+import java.util.regex.Pattern;
+
+/**
+ * Matches using {@link java.util.regex}. Supports every construct of {@link Pattern}, but patterns prone to
+ * backtracking may take exponential time on long file names.
+ */
+class JavaPatternMatcher implements PatternMatcher {
+
+  private final Pattern pattern;
+
+  JavaPatternMatcher(String regex) {
+    this.pattern = Pattern.compile(regex);
+  }
+
+  @Override
+  public FilenameMatch find(CharSequence input) {
+    var matcher = pattern.matcher(input);
+    return matcher.find() ? matcher::group : null;
+  }
+
+  @Override
+  public String toString() {
+    return pattern.pattern();
+  }
+
+}
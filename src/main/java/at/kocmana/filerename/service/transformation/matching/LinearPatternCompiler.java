@@ -0,0 +1,417 @@
+package at.kocmana.filerename.service.transformation.matching;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * <p>Parses a regex into a program for the {@link LinearPatternMatcher}.</p>
+ * Supported are literals, {@code .}, character classes with ranges and the predefined classes {@code \d \w \s} (and
+ * their negations), capturing, named and non-capturing groups, alternation, the greedy and lazy quantifiers
+ * {@code * + ? {n} {n,} {n,m}}, the anchors {@code ^ $ \A \z} and quoting with {@code \Q...\E}. Constructs which
+ * can't be simulated by an automaton (backreferences, lookaround, atomic groups, possessive quantifiers) as well as
+ * inline flags, word boundaries, nested or intersected classes and Unicode properties are rejected.
+ */
+class LinearPatternCompiler {
+
+  static final int MAX_REPETITION = 1000;
+  static final int MAX_PROGRAM_SIZE = 100_000;
+
+  private static final IntPredicate DIGIT = cp -> cp >= '0' && cp <= '9';
+  private static final IntPredicate WORD = cp -> cp >= 'a' && cp <= 'z' || cp >= 'A' && cp <= 'Z'
+      || cp >= '0' && cp <= '9' || cp == '_';
+  private static final IntPredicate SPACE = cp -> cp == ' ' || cp >= '\t' && cp <= '\r';
+  private static final IntPredicate NOT_LINE_TERMINATOR = cp -> !isLineTerminator(cp);
+
+  private final String regex;
+  private final Map<String, Integer> groupNames = new HashMap<>();
+  private final Program.Builder program = new Program.Builder();
+  private int position;
+  private int groupCount;
+
+  private LinearPatternCompiler(String regex) {
+    this.regex = regex;
+  }
+
+  static Program compile(String regex) {
+    var compiler = new LinearPatternCompiler(regex);
+    var node = compiler.parseAlternation();
+    if (compiler.position < regex.length()) {
+      throw compiler.error("Unmatched closing ')'");
+    }
+    compiler.program.emit(Program.SAVE, 0);
+    compiler.emit(node);
+    compiler.program.emit(Program.SAVE, 1);
+    compiler.program.emit(Program.MATCH, 0);
+    return compiler.program.build(compiler.groupCount + 1, compiler.groupNames);
+  }
+
+  static boolean isLineTerminator(int cp) {
+    return cp == '\n' || cp == '\r' || cp == '\u0085' || cp == 0x2028 || cp == 0x2029;
+  }
+
+  // ---- parser ----
+
+  private Node parseAlternation() {
+    var alternatives = new ArrayList<Node>();
+    alternatives.add(parseConcatenation());
+    while (peek() == '|') {
+      position++;
+      alternatives.add(parseConcatenation());
+    }
+    return alternatives.size() == 1 ? alternatives.get(0) : new Alternation(alternatives);
+  }
+
+  private Node parseConcatenation() {
+    var nodes = new ArrayList<Node>();
+    while (position < regex.length() && peek() != '|' && peek() != ')') {
+      nodes.add(parseRepetition(parseAtom()));
+    }
+    return new Concatenation(nodes);
+  }
+
+  private Node parseRepetition(Node atom) {
+    int min;
+    int max;
+    switch (peek()) {
+      case '*' -> {
+        min = 0;
+        max = -1;
+        position++;
+      }
+      case '+' -> {
+        min = 1;
+        max = -1;
+        position++;
+      }
+      case '?' -> {
+        min = 0;
+        max = 1;
+        position++;
+      }
+      case '{' -> {
+        position++;
+        min = parseNumber();
+        max = min;
+        if (peek() == ',') {
+          position++;
+          max = peek() == '}' ? -1 : parseNumber();
+        }
+        expect('}');
+        if (max >= 0 && max < min) {
+          throw error("Illegal repetition range");
+        }
+        if (Math.max(min, max) > MAX_REPETITION) {
+          throw error("Repetitions are limited to " + MAX_REPETITION);
+        }
+      }
+      default -> {
+        return atom;
+      }
+    }
+    if (atom instanceof Assertion) {
+      throw error("Quantified anchors are not supported");
+    }
+    var greedy = true;
+    if (peek() == '?') {
+      greedy = false;
+      position++;
+    } else if (peek() == '+') {
+      throw error("Possessive quantifiers are not supported");
+    }
+    if (peek() == '*' || peek() == '+' || peek() == '?' || peek() == '{') {
+      throw error("Dangling meta character '" + (char) peek() + "'");
+    }
+    return new Repetition(atom, min, max, greedy);
+  }
+
+  private int parseNumber() {
+    var start = position;
+    while (position < regex.length() && Character.isDigit(regex.charAt(position))) {
+      position++;
+    }
+    if (start == position || position - start > 4) {
+      throw error("Illegal repetition");
+    }
+    return Integer.parseInt(regex.substring(start, position));
+  }
+
+  private Node parseAtom() {
+    var cp = next();
+    return switch (cp) {
+      case '(' -> parseGroup();
+      case '[' -> new CharacterClass(parseClass());
+      case '.' -> new CharacterClass(NOT_LINE_TERMINATOR);
+      case '^' -> new Assertion(Program.ASSERT_BEGIN);
+      case '$' -> new Assertion(Program.ASSERT_END);
+      case '\\' -> parseEscape();
+      case '*', '+', '?', '{' -> throw error("Dangling meta character '" + (char) cp + "'");
+      default -> new Literal(cp);
+    };
+  }
+
+  private Node parseGroup() {
+    Integer groupIndex = null;
+    if (peek() == '?') {
+      position++;
+      var kind = next();
+      if (kind == '<' && Character.isLetter(peek())) {
+        groupIndex = ++groupCount;
+        var name = parseGroupName();
+        if (groupNames.putIfAbsent(name, groupIndex) != null) {
+          throw error("Named capturing group <" + name + "> is already defined");
+        }
+      } else if (kind != ':') {
+        throw error("Lookaround, atomic groups and inline flags are not supported");
+      }
+    } else {
+      groupIndex = ++groupCount;
+    }
+    var body = parseAlternation();
+    expect(')');
+    return groupIndex == null ? body : new Group(groupIndex, body);
+  }
+
+  private String parseGroupName() {
+    var start = position;
+    while (position < regex.length() && Character.isLetterOrDigit(regex.charAt(position))) {
+      position++;
+    }
+    var name = regex.substring(start, position);
+    expect('>');
+    return name;
+  }
+
+  private Node parseEscape() {
+    var cp = next();
+    if (cp == 'Q') {
+      var end = regex.indexOf("\\E", position);
+      var quoted = end < 0 ? regex.substring(position) : regex.substring(position, end);
+      position = end < 0 ? regex.length() : end + 2;
+      return new Concatenation(quoted.codePoints().<Node>mapToObj(Literal::new).toList());
+    }
+    if (cp == 'A') {
+      return new Assertion(Program.ASSERT_BEGIN);
+    }
+    if (cp == 'z') {
+      return new Assertion(Program.ASSERT_INPUT_END);
+    }
+    var predefinedClass = predefinedClass(cp);
+    if (predefinedClass != null) {
+      return new CharacterClass(predefinedClass);
+    }
+    return new Literal(escapedCharacter(cp));
+  }
+
+  private IntPredicate parseClass() {
+    var negated = peek() == '^';
+    if (negated) {
+      position++;
+    }
+    IntPredicate members = null;
+    var first = true;
+    while (first || peek() != ']') {
+      if (position >= regex.length()) {
+        throw error("Unclosed character class");
+      }
+      first = false;
+      var cp = next();
+      IntPredicate member;
+      if (cp == '[' || cp == '&' && peek() == '&') {
+        throw error("Nested classes and intersections are not supported");
+      } else if (cp == '\\' && predefinedClass(peek()) != null) {
+        member = predefinedClass(next());
+      } else {
+        var from = cp == '\\' ? escapedCharacter(next()) : cp;
+        member = rangeOrCharacter(from);
+      }
+      members = members == null ? member : members.or(member);
+    }
+    position++;
+    return negated ? members.negate() : members;
+  }
+
+  private IntPredicate rangeOrCharacter(int from) {
+    if (peek() != '-' || position + 1 >= regex.length() || regex.charAt(position + 1) == ']') {
+      return cp -> cp == from;
+    }
+    position++;
+    var to = next();
+    if (to == '\\') {
+      if (predefinedClass(peek()) != null) {
+        throw error("Illegal character range");
+      }
+      to = escapedCharacter(next());
+    } else if (to == '[') {
+      throw error("Nested classes and intersections are not supported");
+    }
+    if (to < from) {
+      throw error("Illegal character range");
+    }
+    var upper = to;
+    return cp -> cp >= from && cp <= upper;
+  }
+
+  private static IntPredicate predefinedClass(int cp) {
+    return switch (cp) {
+      case 'd' -> DIGIT;
+      case 'D' -> DIGIT.negate();
+      case 'w' -> WORD;
+      case 'W' -> WORD.negate();
+      case 's' -> SPACE;
+      case 'S' -> SPACE.negate();
+      default -> null;
+    };
+  }
+
+  private int escapedCharacter(int cp) {
+    return switch (cp) {
+      case 't' -> '\t';
+      case 'n' -> '\n';
+      case 'r' -> '\r';
+      case 'f' -> '\f';
+      case 'a' -> '\u0007';
+      case 'e' -> '\u001B';
+      case 'x' -> parseHex(2);
+      case 'u' -> parseHex(4);
+      default -> {
+        if (Character.isLetterOrDigit(cp)) {
+          throw error("Escape sequence \\" + Character.toString(cp) + " is not supported");
+        }
+        yield cp;
+      }
+    };
+  }
+
+  private int parseHex(int digits) {
+    if (position + digits > regex.length()) {
+      throw error("Illegal hexadecimal escape sequence");
+    }
+    try {
+      var value = Integer.parseInt(regex.substring(position, position + digits), 16);
+      position += digits;
+      return value;
+    } catch (NumberFormatException exception) {
+      throw error("Illegal hexadecimal escape sequence");
+    }
+  }
+
+  private int peek() {
+    return position < regex.length() ? regex.codePointAt(position) : -1;
+  }
+
+  private int next() {
+    if (position >= regex.length()) {
+      throw error("Unexpected end of pattern");
+    }
+    var cp = regex.codePointAt(position);
+    position += Character.charCount(cp);
+    return cp;
+  }
+
+  private void expect(char expected) {
+    if (peek() != expected) {
+      throw error("Expected '" + expected + "'");
+    }
+    position++;
+  }
+
+  private IllegalArgumentException error(String message) {
+    return new IllegalArgumentException(
+        String.format("%s near index %d of regex \"%s\" (linear regex engine)", message, position, regex));
+  }
+
+  // ---- code generation ----
+
+  private void emit(Node node) {
+    if (program.size() > MAX_PROGRAM_SIZE) {
+      throw error("Pattern is too large");
+    }
+    if (node instanceof Literal literal) {
+      program.emit(Program.CHARACTER, literal.codePoint());
+    } else if (node instanceof CharacterClass characterClass) {
+      program.emitClass(characterClass.members());
+    } else if (node instanceof Assertion assertion) {
+      program.emit(assertion.op(), 0);
+    } else if (node instanceof Group group) {
+      program.emit(Program.SAVE, 2 * group.index());
+      emit(group.body());
+      program.emit(Program.SAVE, 2 * group.index() + 1);
+    } else if (node instanceof Concatenation concatenation) {
+      concatenation.nodes().forEach(this::emit);
+    } else if (node instanceof Alternation alternation) {
+      emitAlternation(alternation.alternatives());
+    } else if (node instanceof Repetition repetition) {
+      emitRepetition(repetition);
+    }
+  }
+
+  private void emitAlternation(List<Node> alternatives) {
+    var jumpsToEnd = new ArrayList<Integer>();
+    for (int i = 0; i < alternatives.size() - 1; i++) {
+      var split = program.emit(Program.SPLIT, 0);
+      program.patchFirst(split, program.size());
+      emit(alternatives.get(i));
+      jumpsToEnd.add(program.emit(Program.JUMP, 0));
+      program.patchSecond(split, program.size());
+    }
+    emit(alternatives.get(alternatives.size() - 1));
+    jumpsToEnd.forEach(jump -> program.patchFirst(jump, program.size()));
+  }
+
+  private void emitRepetition(Repetition repetition) {
+    for (int i = 0; i < repetition.min(); i++) {
+      emit(repetition.body());
+    }
+    if (repetition.max() < 0) {
+      // x*: L1: split L2, L3; L2: x; jump L1; L3:
+      var split = program.emit(Program.SPLIT, 0);
+      emit(repetition.body());
+      program.patchFirst(program.emit(Program.JUMP, 0), split);
+      patchSplit(split, split + 1, program.size(), repetition.greedy());
+      return;
+    }
+    // x{0,n} is emitted as (x(x(x)?)?)?, every optional copy skips all remaining ones
+    var splits = new ArrayList<Integer>();
+    for (int i = repetition.min(); i < repetition.max(); i++) {
+      var split = program.emit(Program.SPLIT, 0);
+      splits.add(split);
+      emit(repetition.body());
+    }
+    var end = program.size();
+    splits.forEach(split -> patchSplit(split, split + 1, end, repetition.greedy()));
+  }
+
+  private void patchSplit(int split, int body, int skip, boolean greedy) {
+    program.patchFirst(split, greedy ? body : skip);
+    program.patchSecond(split, greedy ? skip : body);
+  }
+
+  private sealed interface Node permits Literal, CharacterClass, Assertion, Group, Concatenation, Alternation,
+      Repetition {
+  }
+
+  private record Literal(int codePoint) implements Node {
+  }
+
+  private record CharacterClass(IntPredicate members) implements Node {
+  }
+
+  private record Assertion(int op) implements Node {
+  }
+
+  private record Group(int index, Node body) implements Node {
+  }
+
+  private record Concatenation(List<Node> nodes) implements Node {
+  }
+
+  private record Alternation(List<Node> alternatives) implements Node {
+  }
+
+  private record Repetition(Node body, int min, int max, boolean greedy) implements Node {
+  }
+
+}
@@ -0,0 +1,233 @@
+package at.kocmana.filerename.service.transformation.matching;
+
+import at.kocmana.filerename.model.FilenameMatch;
+import java.util.Arrays;
+
+/**
+ * <p>Matches in time linear to the length of the input by simulating all paths through the regex at once (a Pike
+ * VM) instead of backtracking.</p>
+ * Every position of the input is read exactly once while the threads of the simulation advance in lock step. Threads
+ * are kept in order of their priority and at most one thread per instruction survives each step, so for a pattern of
+ * {@code m} instructions a file name of length {@code n} costs {@code O(n * m)} regardless of the pattern. Greedy and
+ * lazy quantifiers and alternation are prioritized like in {@link java.util.regex}, so matches and groups are the
+ * same for all supported patterns (see {@link LinearPatternCompiler}). The only exception are groups within a
+ * quantified expression that can match the empty string, e.g. {@code (a*)*}: the backtracking engine records an
+ * additional empty iteration which is not simulated here.
+ */
+class LinearPatternMatcher implements PatternMatcher {
+
+  private final String regex;
+  private final Program program;
+
+  private LinearPatternMatcher(String regex, Program program) {
+    this.regex = regex;
+    this.program = program;
+  }
+
+  /**
+   * @throws IllegalArgumentException if the regex is invalid or uses constructs that can't be matched in linear time.
+   */
+  static LinearPatternMatcher compile(String regex) {
+    return new LinearPatternMatcher(regex, LinearPatternCompiler.compile(regex));
+  }
+
+  @Override
+  public FilenameMatch find(CharSequence input) {
+    var length = input.length();
+    var current = new ThreadList(program.size());
+    var next = new ThreadList(program.size());
+    var stack = new Stack(program.size());
+    var initialSlots = new int[program.slotCount];
+    Arrays.fill(initialSlots, -1);
+    int[] matchedSlots = null;
+
+    var position = 0;
+    while (true) {
+      if (matchedSlots == null) {
+        // lowest priority: a match starting further left always wins
+        addThread(current, stack, 0, initialSlots, input, position);
+      }
+      if (current.size == 0 && (matchedSlots != null || position >= length)) {
+        break;
+      }
+      var codePoint = position < length ? Character.codePointAt(input, position) : -1;
+      var nextPosition = position + (codePoint < 0 ? 1 : Character.charCount(codePoint));
+      next.clear();
+      for (int i = 0; i < current.size; i++) {
+        var pc = current.pcs[i];
+        var slots = current.slots[i];
+        var op = program.ops[pc];
+        if (op == Program.MATCH) {
+          matchedSlots = slots;
+          // threads of lower priority can't win anymore
+          break;
+        }
+        if (codePoint >= 0 && (op == Program.CHARACTER && program.first[pc] == codePoint
+            || op == Program.CLASS && program.classes[pc].test(codePoint))) {
+          addThread(next, stack, pc + 1, slots, input, nextPosition);
+        }
+      }
+      var swap = current;
+      current = next;
+      next = swap;
+      if (position >= length) {
+        break;
+      }
+      position = nextPosition;
+    }
+    return matchedSlots == null ? null : new LinearMatch(input.toString(), matchedSlots);
+  }
+
+  /**
+   * Follows all instructions not consuming input starting at {@code pc} and adds the threads waiting for input (or
+   * having matched) to the list, in order of their priority.
+   */
+  private void addThread(ThreadList list, Stack stack, int pc, int[] slots, CharSequence input, int position) {
+    stack.push(pc, slots);
+    while (stack.size > 0) {
+      stack.size--;
+      pc = stack.pcs[stack.size];
+      slots = stack.slots[stack.size];
+      if (!list.visit(pc)) {
+        continue;
+      }
+      switch (program.ops[pc]) {
+        case Program.JUMP -> stack.push(program.first[pc], slots);
+        case Program.SPLIT -> {
+          stack.push(program.second[pc], slots);
+          stack.push(program.first[pc], slots);
+        }
+        case Program.SAVE -> {
+          var copy = slots.clone();
+          copy[program.first[pc]] = position;
+          stack.push(pc + 1, copy);
+        }
+        case Program.ASSERT_BEGIN -> {
+          if (position == 0) {
+            stack.push(pc + 1, slots);
+          }
+        }
+        case Program.ASSERT_END -> {
+          if (isEndOfLastLine(input, position)) {
+            stack.push(pc + 1, slots);
+          }
+        }
+        case Program.ASSERT_INPUT_END -> {
+          if (position == input.length()) {
+            stack.push(pc + 1, slots);
+          }
+        }
+        default -> list.add(pc, slots);
+      }
+    }
+  }
+
+  /**
+   * Same as {@code $} of {@link java.util.regex.Pattern} without flags: the end of the input or a final line
+   * terminator.
+   */
+  private static boolean isEndOfLastLine(CharSequence input, int position) {
+    var remaining = input.length() - position;
+    if (remaining == 0) {
+      return true;
+    }
+    if (remaining == 2) {
+      return input.charAt(position) == '\r' && input.charAt(position + 1) == '\n';
+    }
+    if (remaining == 1) {
+      var character = input.charAt(position);
+      if (character == '\n') {
+        return position == 0 || input.charAt(position - 1) != '\r';
+      }
+      return LinearPatternCompiler.isLineTerminator(character);
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return regex;
+  }
+
+  private class LinearMatch implements FilenameMatch {
+
+    private final String input;
+    private final int[] slots;
+
+    LinearMatch(String input, int[] slots) {
+      this.input = input;
+      this.slots = slots;
+    }
+
+    @Override
+    public String group(String name) {
+      var group = program.groupNames.get(name);
+      if (group == null) {
+        throw new IllegalArgumentException("No group with name <" + name + ">");
+      }
+      var start = slots[2 * group];
+      var end = slots[2 * group + 1];
+      return start < 0 || end < 0 ? null : input.substring(start, end);
+    }
+  }
+
+  /**
+   * Threads of one step in order of their priority. Each instruction is visited at most once per step.
+   */
+  private static class ThreadList {
+
+    private final int[] pcs;
+    private final int[][] slots;
+    private final int[] visitedInStep;
+    private int step = 1;
+    private int size;
+
+    ThreadList(int programSize) {
+      this.pcs = new int[programSize];
+      this.slots = new int[programSize][];
+      this.visitedInStep = new int[programSize];
+    }
+
+    boolean visit(int pc) {
+      if (visitedInStep[pc] == step) {
+        return false;
+      }
+      visitedInStep[pc] = step;
+      return true;
+    }
+
+    void add(int pc, int[] threadSlots) {
+      pcs[size] = pc;
+      slots[size] = threadSlots;
+      size++;
+    }
+
+    void clear() {
+      size = 0;
+      step++;
+    }
+  }
+
+  private static class Stack {
+
+    private int[] pcs;
+    private int[][] slots;
+    private int size;
+
+    Stack(int capacity) {
+      this.pcs = new int[capacity];
+      this.slots = new int[capacity][];
+    }
+
+    void push(int pc, int[] threadSlots) {
+      if (size == pcs.length) {
+        pcs = Arrays.copyOf(pcs, size * 2);
+        slots = Arrays.copyOf(slots, size * 2);
+      }
+      pcs[size] = pc;
+      slots[size] = threadSlots;
+      size++;
+    }
+  }
+
+}
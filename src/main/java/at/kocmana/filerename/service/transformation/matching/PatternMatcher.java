@@ -0,0 +1,28 @@
+package at.kocmana.filerename.service.transformation.matching;
+
+import at.kocmana.filerename.controller.CliController.RegexEngine;
+import at.kocmana.filerename.model.FilenameMatch;
+
+/**
+ * A compiled search pattern. Implementations must be safe to use from several threads at once.
+ */
+public interface PatternMatcher {
+
+  /**
+   * Searches the input for the first match of the pattern, like {@link java.util.regex.Matcher#find()}.
+   *
+   * @return the groups of the match or {@code null} if the pattern is not found.
+   */
+  FilenameMatch find(CharSequence input);
+
+  /**
+   * @throws IllegalArgumentException if the regex is invalid or not supported by the engine.
+   */
+  static PatternMatcher compile(String regex, RegexEngine engine) {
+    return switch (engine) {
+      case JAVA -> new JavaPatternMatcher(regex);
+      case LINEAR -> LinearPatternMatcher.compile(regex);
+    };
+  }
+
+}
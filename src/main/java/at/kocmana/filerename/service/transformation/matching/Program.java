@@ -0,0 +1,90 @@
+package at.kocmana.filerename.service.transformation.matching;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Instructions of a compiled regex for the {@link LinearPatternMatcher}. Every instruction consists of an op code and
+ * up to two arguments, stored in parallel arrays.
+ */
+class Program {
+
+  static final int CHARACTER = 0;
+  static final int CLASS = 1;
+  static final int SPLIT = 2;
+  static final int JUMP = 3;
+  static final int SAVE = 4;
+  static final int ASSERT_BEGIN = 5;
+  static final int ASSERT_END = 6;
+  static final int ASSERT_INPUT_END = 7;
+  static final int MATCH = 8;
+
+  final int[] ops;
+  final int[] first;
+  final int[] second;
+  final IntPredicate[] classes;
+  final int slotCount;
+  final Map<String, Integer> groupNames;
+
+  private Program(Builder builder, int groupCount, Map<String, Integer> groupNames) {
+    var size = builder.ops.size();
+    this.ops = toArray(builder.ops);
+    this.first = toArray(builder.first);
+    this.second = toArray(builder.second);
+    this.classes = builder.classes.toArray(new IntPredicate[size]);
+    this.slotCount = 2 * groupCount;
+    this.groupNames = Map.copyOf(groupNames);
+  }
+
+  int size() {
+    return ops.length;
+  }
+
+  private static int[] toArray(List<Integer> values) {
+    return values.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  static class Builder {
+
+    private final List<Integer> ops = new ArrayList<>();
+    private final List<Integer> first = new ArrayList<>();
+    private final List<Integer> second = new ArrayList<>();
+    private final List<IntPredicate> classes = new ArrayList<>();
+
+    /**
+     * @return the address of the emitted instruction.
+     */
+    int emit(int op, int argument) {
+      ops.add(op);
+      first.add(argument);
+      second.add(0);
+      classes.add(null);
+      return ops.size() - 1;
+    }
+
+    int emitClass(IntPredicate members) {
+      var address = emit(CLASS, 0);
+      classes.set(address, members);
+      return address;
+    }
+
+    void patchFirst(int address, int target) {
+      first.set(address, target);
+    }
+
+    void patchSecond(int address, int target) {
+      second.set(address, target);
+    }
+
+    int size() {
+      return ops.size();
+    }
+
+    Program build(int groupCount, Map<String, Integer> groupNames) {
+      return new Program(this, groupCount, groupNames);
+    }
+  }
+
+}
@@ -1,25 +1,19 @@
 package at.kocmana.filerename.service.transformation.rules;
 
+import at.kocmana.filerename.model.FileContext;
 import at.kocmana.filerename.model.Region;
-import at.kocmana.filerename.model.exception.MethodNotImplementedException;
-import java.nio.file.Path;
-import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import at.kocmana.filerename.model.Template;
+import at.kocmana.filerename.model.TemplateToken;
+import at.kocmana.filerename.service.cache.MetadataCache;
+import at.kocmana.filerename.service.transformation.TemplateTokenizer;
+import java.io.IOException;
 
 public abstract class AbstractTransformationRule implements TransformationRule {
 
-  private static final String RULE_EXTRACTION_LEADING_TEMPLATE = "(?<leading>.*?)";
-  private static final String RULE_EXTRACTION_TRAILING_TEMPLATE = "(?<trailing>.*?)\\.(?<fileSuffix>.+)\\b";
-  private static final String RULE_START_MARKER = "(?<rule>\\<{2}";
-  private static final String RULE_ARGUMENTS_MARKER = "(\\|(?<ruleArguments>.+))?";
-  private static final String RULE_END_MARKER = "\\>{2})";
+  private static final Region NO_REGION = new Region(0, 0);
 
-  private final String inputFilenamePattern;
-  private final String outputFilenamePattern;
-
-  private final String ruleExtractionTemplate;
-  private final Pattern ruleExtractionPattern;
+  private final Template inputTemplate;
+  private final Template outputTemplate;
 
   private final String ruleAbbreviation;
   private final String inputRuleArguments;
@@ -27,103 +21,74 @@ public abstract class AbstractTransformationRule implements TransformationRule {
   private final TransformationRuleIdentity identity;
 
   private final String filenameRuleGroupName;
-  private final String genericRulePattern;
+  private MetadataCache metadataCache;
 
   protected AbstractTransformationRule(String ruleAbbreviation, String inputFilenamePattern,
                                        String outputFilenamePattern) {
+    this(ruleAbbreviation, tokenize(inputFilenamePattern), tokenize(outputFilenamePattern));
+  }
+
+  protected AbstractTransformationRule(String ruleAbbreviation, Template inputTemplate, Template outputTemplate) {
     this.ruleAbbreviation = ruleAbbreviation;
-    this.inputFilenamePattern = inputFilenamePattern;
-    this.outputFilenamePattern = outputFilenamePattern;
-    this.ruleExtractionTemplate = generateTemplateExtractionPattern(ruleAbbreviation);
-    this.ruleExtractionPattern = Pattern.compile(ruleExtractionTemplate);
-    this.genericRulePattern = generateGroupPattern(ruleAbbreviation);
+    this.inputTemplate = inputTemplate;
+    this.outputTemplate = outputTemplate;
     this.filenameRuleGroupName = generateFilenameGroupPattern(ruleAbbreviation);
-    this.inputRuleArguments = extractGroup(inputFilenamePattern);
-    this.outputRuleArguments = extractGroup(outputFilenamePattern);
-    this.identity = generateIdentity();
+    this.inputRuleArguments = extractArguments(inputTemplate);
+    this.outputRuleArguments = extractArguments(outputTemplate);
+    this.identity = new TransformationRuleIdentity(regionOf(inputTemplate), regionOf(outputTemplate));
   }
 
-  private String generateGroupPattern(String ruleShortcut) {
-    return String.format("\\<{2}%s(|.*)?\\>{2}", ruleShortcut);
+  private static Template tokenize(String filenamePattern) {
+    if (filenamePattern == null) {
+      throw new IllegalArgumentException("Can't extract rule template. Provided filename is null");
+    }
+    return TemplateTokenizer.tokenize(filenamePattern);
   }
 
   private String generateFilenameGroupPattern(String ruleAbbreviation) {
     return String.format("(?<%s>.*?)", ruleAbbreviation);
   }
 
-  private String extractGroup(String filenamePattern) {
-    return ruleMatcherFor(filenamePattern)
-        .map(m -> m.group("ruleArguments"))
+  private String extractArguments(Template template) {
+    return template.findRule(ruleAbbreviation)
+        .map(TemplateToken::ruleArguments)
         .orElse("");
   }
 
-  private TransformationRuleIdentity generateIdentity() {
-    var inputRange = generateIdentityRangeFromFilenamePattern(inputFilenamePattern);
-    var outputRange = generateIdentityRangeFromFilenamePattern(outputFilenamePattern);
-    return new TransformationRuleIdentity(inputRange, outputRange);
-  }
-
-  private Region generateIdentityRangeFromFilenamePattern(String filenamePattern) {
-    return ruleMatcherFor(filenamePattern)
-        .map(matcher -> new Region(matcher.start("rule"), matcher.end("rule")))
-        .orElse(new Region(0, 0));
+  private Region regionOf(Template template) {
+    return template.findRule(ruleAbbreviation)
+        .map(TemplateToken::region)
+        .orElse(NO_REGION);
   }
 
-  protected Optional<Matcher> ruleMatcherFor(String filenamePattern) {
-    return matcherFor(ruleExtractionPattern, filenamePattern);
-  }
-
-  protected Optional<Matcher> fileNameMatcherFor(String filename) {
-    var filenamePattern = Pattern.compile(replaceTemplateWithSearchString(inputFilenamePattern));
-    return matcherFor(filenamePattern, filename);
-  }
-
-  protected Optional<Matcher> matcherFor(Pattern pattern, String stringToSearch) {
-    if (stringToSearch == null) {
-      throw new IllegalArgumentException("Can't extract matcher. Provided filename is null");
-    }
-    var matcher = pattern.matcher(stringToSearch);
-    if (!matcher.find()) {
-      return Optional.empty();
-    }
-    return Optional.of(matcher);
-  }
-
-
-  private static String generateTemplateExtractionPattern(String templateShortcut) {
-    //(?<leading>.*?)(?<rule>\<{2}TS(\|(?<ruleArguments>.+))?\>{2})(?<trailing>.*?)\.(?<fileSuffix>.+)\b
-    return RULE_EXTRACTION_LEADING_TEMPLATE
-        + RULE_START_MARKER
-        + templateShortcut
-        + RULE_ARGUMENTS_MARKER
-        + RULE_END_MARKER
-        + RULE_EXTRACTION_TRAILING_TEMPLATE;
-  }
-
-  protected static boolean ruleMarkerIsPresent(String ruleShortcut, String filenamePattern) {
-    if (filenamePattern == null || filenamePattern.isBlank()) {
-      return false;
-    }
-    var ruleExtractionPattern = Pattern.compile(generateTemplateExtractionPattern(ruleShortcut));
-    var matcher = ruleExtractionPattern.matcher(filenamePattern);
-    return matcher.find();
+  protected static boolean ruleMarkerIsPresent(String ruleShortcut, Template template) {
+    return template != null && template.containsRule(ruleShortcut);
   }
 
   @Override
   public String replaceTemplateWithSearchString(String pattern) {
-    return pattern.replaceAll(genericRulePattern, filenameRuleGroupName);
+    return replaceTemplateWith(pattern, filenameRuleGroupName);
+  }
+
+  /**
+   * @return the pattern where every rule template of this rule is replaced with the replacement as is.
+   */
+  protected String replaceTemplateWith(String pattern, String replacement) {
+    return TemplateTokenizer.tokenize(pattern).replaceRules(ruleAbbreviation, replacement);
   }
 
   @Override
-  public String apply(Path file, String outputPattern) {
-    var filename = file.getFileName().toString();
-    return apply(filename, outputPattern);
+  public void useMetadataCache(MetadataCache metadataCache) {
+    this.metadataCache = metadataCache;
   }
 
-  protected String apply(String file, String outputPattern) {
-    var message = String.format("apply(String, String) method not implemented for \"%s\" and apply(Path, String)"
-        + " method not overriden.", this.getClass().getSimpleName());
-    throw new MethodNotImplementedException(message);
+  /**
+   * @return the value cached for the file under the given key, or the value provided by the loader if the task has
+   * no {@link MetadataCache} or the file is not cached yet.
+   */
+  protected byte[] cachedMetadata(FileContext fileContext, String key, MetadataCache.Loader loader)
+      throws IOException {
+    return metadataCache == null ? loader.load() : metadataCache.get(fileContext, key, loader);
   }
 
   @Override
@@ -131,6 +96,7 @@ public abstract class AbstractTransformationRule implements TransformationRule {
     return identity;
   }
 
+  @Override
   public String getRuleAbbreviation() {
     return ruleAbbreviation;
   }
@@ -144,15 +110,11 @@ public abstract class AbstractTransformationRule implements TransformationRule {
   }
 
   public String getInputFilenamePattern() {
-    return inputFilenamePattern;
+    return inputTemplate.text();
   }
 
   public String getOutputFilenamePattern() {
-    return outputFilenamePattern;
-  }
-
-  protected String getGenericRulePattern() {
-    return genericRulePattern;
+    return outputTemplate.text();
   }
 
   protected String getFilenameRuleGroupName() {
@@ -1,13 +1,17 @@
 package at.kocmana.filerename.service.transformation.rules;
 
+import at.kocmana.filerename.model.FileContext;
+import at.kocmana.filerename.model.Template;
 import at.kocmana.filerename.model.exception.TransformationRuleException;
 import at.kocmana.filerename.service.transformation.TransformationRuleGenerator;
+import at.kocmana.filerename.service.transformation.helper.FormattingCache;
 import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.Optional;
 import java.util.TimeZone;
 
@@ -18,25 +22,34 @@ public class CreationDateTransformationRule extends AbstractTransformationRule {
   private static final DateTimeFormatter DEFAULT_DATE_TIME_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
   DateTimeFormatter dtf;
+  private final boolean formatsFractionOfSecond;
+  private final FormattingCache<Instant> formattingCache =
+      new FormattingCache<>("Creation date cache", FormattingCache.DEFAULT_CAPACITY);
 
   public static final TransformationRuleGenerator FACTORY_METHOD =
       CreationDateTransformationRule::generateIfRuleIsApplicable;
 
-  private static Optional<TransformationRule> generateIfRuleIsApplicable(String inputPattern, String outputPattern) {
-    if (!ruleMarkerIsPresent(RULE_SHORTCUT, outputPattern)) {
+  private static Optional<TransformationRule> generateIfRuleIsApplicable(Template inputTemplate,
+                                                                         Template outputTemplate) {
+    if (!ruleMarkerIsPresent(RULE_SHORTCUT, outputTemplate)) {
       return Optional.empty();
     }
-    return Optional.of(new CreationDateTransformationRule(RULE_SHORTCUT, inputPattern, outputPattern));
+    return Optional.of(new CreationDateTransformationRule(RULE_SHORTCUT, inputTemplate, outputTemplate));
   }
 
-  private CreationDateTransformationRule(String ruleShortcut, String inputFilenamePattern,
-                                         String outputFilenamePattern) {
-    super(ruleShortcut, inputFilenamePattern, outputFilenamePattern);
+  private CreationDateTransformationRule(String ruleShortcut, Template inputTemplate, Template outputTemplate) {
+    super(ruleShortcut, inputTemplate, outputTemplate);
     if (this.getOutputRuleArguments().isBlank()) {
       dtf = DEFAULT_DATE_TIME_FORMAT;
     } else {
       dtf = DateTimeFormatter.ofPattern(this.getOutputRuleArguments());
     }
+    formatsFractionOfSecond = formatsFractionOfSecond(dtf);
+  }
+
+  private static boolean formatsFractionOfSecond(DateTimeFormatter dtf) {
+    var timestamp = LocalDateTime.of(1990, 10, 15, 10, 35, 22);
+    return !dtf.format(timestamp).equals(dtf.format(timestamp.withNano(123_456_789)));
   }
 
   public String toString() {
@@ -47,18 +60,30 @@ public class CreationDateTransformationRule extends AbstractTransformationRule {
   }
 
   @Override
-  public String apply(Path file, String outputPattern) {
-    var creationTime = LocalDateTime.MIN;
+  public String resolve(FileContext fileContext) {
+    var file = fileContext.file();
+    Instant creationTime;
     try {
-      var fileAttributes = Files.readAttributes(file, BasicFileAttributes.class);
-      var creationTimeInstant = fileAttributes.creationTime().toInstant();
-      creationTime = LocalDateTime.ofInstant(creationTimeInstant, LOCAL_TIMEZONE);
+      var fileAttributes = fileContext.attributes() != null
+          ? fileContext.attributes()
+          : Files.readAttributes(file, BasicFileAttributes.class);
+      creationTime = fileAttributes.creationTime().toInstant();
     } catch (Exception exception) {
       var message = String.format("Could not determine creation time of file \"%s\": %s",
           file.getFileName().toString(), exception.getMessage());
       throw new TransformationRuleException(message, exception);
     }
-    var formattedCreationTime = creationTime.format(dtf);
-    return outputPattern.replaceAll(getGenericRulePattern(), formattedCreationTime);
+    // files created within the same second share their formatted creation date unless fractions are formatted
+    var cacheKey = formatsFractionOfSecond ? creationTime : creationTime.truncatedTo(ChronoUnit.SECONDS);
+    return formattingCache.get(cacheKey, this::format);
+  }
+
+  private String format(Instant creationTime) {
+    return LocalDateTime.ofInstant(creationTime, LOCAL_TIMEZONE).format(dtf);
+  }
+
+  @Override
+  public Optional<String> getStatistics() {
+    return Optional.of(formattingCache.toString());
   }
 }
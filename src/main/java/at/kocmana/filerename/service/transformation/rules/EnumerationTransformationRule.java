@@ -1,5 +1,7 @@
 package at.kocmana.filerename.service.transformation.rules;
 
+import at.kocmana.filerename.model.FileContext;
+import at.kocmana.filerename.model.Template;
 import at.kocmana.filerename.service.transformation.TransformationRuleGenerator;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -19,23 +21,23 @@ public class EnumerationTransformationRule extends AbstractTransformationRule {
   public static final TransformationRuleGenerator FACTORY_METHOD =
       EnumerationTransformationRule::generateIfRuleIsApplicable;
 
-  private static Optional<TransformationRule> generateIfRuleIsApplicable(String inputPattern,
-                                                                         String outputPattern) {
-    if (inputPattern == null || outputPattern == null) {
+  private static Optional<TransformationRule> generateIfRuleIsApplicable(Template inputTemplate,
+                                                                         Template outputTemplate) {
+    if (!ruleMarkerIsPresent(RULE_ABBREVIATION, outputTemplate)) {
       return Optional.empty();
     }
 
-    if (!ruleMarkerIsPresent(RULE_ABBREVIATION, outputPattern)) {
-      return Optional.empty();
-    }
-
-    return Optional.of(new EnumerationTransformationRule(inputPattern, outputPattern));
+    return Optional.of(new EnumerationTransformationRule(inputTemplate, outputTemplate));
   }
 
   public EnumerationTransformationRule(String inputPattern, String outputPattern) {
     super(RULE_ABBREVIATION, inputPattern, outputPattern);
-    var outputRuleArguments = this.getOutputRuleArguments();
-    enumerationFormat = extractNumberFormat(outputRuleArguments);
+    enumerationFormat = extractNumberFormat(this.getOutputRuleArguments());
+  }
+
+  private EnumerationTransformationRule(Template inputTemplate, Template outputTemplate) {
+    super(RULE_ABBREVIATION, inputTemplate, outputTemplate);
+    enumerationFormat = extractNumberFormat(this.getOutputRuleArguments());
   }
 
   public String toString() {
@@ -71,8 +73,13 @@ public class EnumerationTransformationRule extends AbstractTransformationRule {
   }
 
   @Override
-  public String apply(String filename, String outputPattern) {
-    var formattedIndex = String.format(enumerationFormat, this.currentIndex.getAndIncrement());
-    return outputPattern.replaceAll(getGenericRulePattern(), formattedIndex);
+  public String resolve(FileContext fileContext) {
+    if (!fileContext.isOrdered()) {
+      return String.format(enumerationFormat, currentIndex.getAndIncrement());
+    }
+    // files enumerated later on without an ordinal (e.g. while watching) continue after the ordered ones
+    var ordinal = fileContext.ordinal();
+    currentIndex.accumulateAndGet(Math.toIntExact(ordinal + 1), Math::max);
+    return String.format(enumerationFormat, ordinal);
   }
 }
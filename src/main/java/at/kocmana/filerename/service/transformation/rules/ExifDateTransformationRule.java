@@ -0,0 +1,77 @@
+package at.kocmana.filerename.service.transformation.rules;
+
+import at.kocmana.filerename.model.FileContext;
+import at.kocmana.filerename.model.Template;
+import at.kocmana.filerename.model.exception.TransformationRuleException;
+import at.kocmana.filerename.service.transformation.TransformationRuleGenerator;
+import at.kocmana.filerename.service.transformation.helper.ExifDateReader;
+import at.kocmana.filerename.service.transformation.helper.FormattingCache;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+
+public class ExifDateTransformationRule extends AbstractTransformationRule {
+
+  private static final String RULE_SHORTCUT = "EXIF";
+  private static final DateTimeFormatter DEFAULT_DATE_TIME_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+  private static final byte[] NO_CAPTURE_DATE = new byte[0];
+
+  DateTimeFormatter dtf;
+  private final FormattingCache<LocalDateTime> formattingCache =
+      new FormattingCache<>("EXIF date cache", FormattingCache.DEFAULT_CAPACITY);
+
+  public static final TransformationRuleGenerator FACTORY_METHOD =
+      ExifDateTransformationRule::generateIfRuleIsApplicable;
+
+  private static Optional<TransformationRule> generateIfRuleIsApplicable(Template inputTemplate,
+                                                                         Template outputTemplate) {
+    if (!ruleMarkerIsPresent(RULE_SHORTCUT, outputTemplate)) {
+      return Optional.empty();
+    }
+    return Optional.of(new ExifDateTransformationRule(RULE_SHORTCUT, inputTemplate, outputTemplate));
+  }
+
+  private ExifDateTransformationRule(String ruleShortcut, Template inputTemplate, Template outputTemplate) {
+    super(ruleShortcut, inputTemplate, outputTemplate);
+    if (this.getOutputRuleArguments().isBlank()) {
+      dtf = DEFAULT_DATE_TIME_FORMAT;
+    } else {
+      dtf = DateTimeFormatter.ofPattern(this.getOutputRuleArguments());
+    }
+  }
+
+  public String toString() {
+    var exampleCaptureTimestamp = LocalDateTime.of(1990, 10, 15, 10, 35, 22);
+    return String.format("EXIF Date Transformation Rule: Adding capture date, will be formatted as \"%s\".",
+        dtf.format(exampleCaptureTimestamp));
+  }
+
+  @Override
+  public String resolve(FileContext fileContext) {
+    var file = fileContext.file();
+    Optional<LocalDateTime> captureDate;
+    try {
+      var cachedCaptureDate = cachedMetadata(fileContext, RULE_SHORTCUT, () -> ExifDateReader.readCaptureDate(file)
+          .map(date -> date.toString().getBytes(StandardCharsets.US_ASCII))
+          .orElse(NO_CAPTURE_DATE));
+      captureDate = cachedCaptureDate.length == 0
+          ? Optional.empty()
+          : Optional.of(LocalDateTime.parse(new String(cachedCaptureDate, StandardCharsets.US_ASCII)));
+    } catch (Exception exception) {
+      var message = String.format("Could not read EXIF data of file \"%s\": %s",
+          file.getFileName().toString(), exception.getMessage());
+      throw new TransformationRuleException(message, exception);
+    }
+    // EXIF dates have a resolution of one second, so pictures taken in bursts share their formatted date
+    return captureDate
+        .map(date -> formattingCache.get(date, dtf::format))
+        .orElseThrow(() -> new TransformationRuleException(String.format("File \"%s\" has no EXIF capture date.",
+            file.getFileName().toString())));
+  }
+
+  @Override
+  public Optional<String> getStatistics() {
+    return Optional.of(formattingCache.toString());
+  }
+}
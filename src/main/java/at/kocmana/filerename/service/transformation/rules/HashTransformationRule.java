@@ -0,0 +1,113 @@
+package at.kocmana.filerename.service.transformation.rules;
+
+import at.kocmana.filerename.model.FileContext;
+import at.kocmana.filerename.model.Template;
+import at.kocmana.filerename.model.exception.TransformationRuleException;
+import at.kocmana.filerename.service.transformation.TransformationRuleGenerator;
+import at.kocmana.filerename.service.transformation.helper.ContentHasher;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+public class HashTransformationRule extends AbstractTransformationRule {
+
+  private static final String RULE_SHORTCUT = "H";
+  private static final String DEFAULT_ALGORITHM = "sha256";
+  private static final Map<String, String> ALGORITHMS = Map.of(
+      "md5", "MD5",
+      "sha1", "SHA-1",
+      "sha256", "SHA-256",
+      "sha512", "SHA-512");
+
+  private final String algorithm;
+  private final int length;
+  private final LongAdder hashedFiles = new LongAdder();
+  private final LongAdder hashedBytes = new LongAdder();
+
+  public static final TransformationRuleGenerator FACTORY_METHOD =
+      HashTransformationRule::generateIfRuleIsApplicable;
+
+  private static Optional<TransformationRule> generateIfRuleIsApplicable(Template inputTemplate,
+                                                                         Template outputTemplate) {
+    if (!ruleMarkerIsPresent(RULE_SHORTCUT, outputTemplate)) {
+      return Optional.empty();
+    }
+    return Optional.of(new HashTransformationRule(RULE_SHORTCUT, inputTemplate, outputTemplate));
+  }
+
+  private HashTransformationRule(String ruleShortcut, Template inputTemplate, Template outputTemplate) {
+    super(ruleShortcut, inputTemplate, outputTemplate);
+    var arguments = this.getOutputRuleArguments().isBlank()
+        ? new String[]{DEFAULT_ALGORITHM}
+        : this.getOutputRuleArguments().split(":", -1);
+    if (arguments.length > 2) {
+      throw new IllegalArgumentException(String.format(
+          "Hash rule arguments \"%s\" must have the form algorithm[:length]", this.getOutputRuleArguments()));
+    }
+    algorithm = ALGORITHMS.get(arguments[0].toLowerCase(Locale.ROOT));
+    if (algorithm == null) {
+      throw new IllegalArgumentException(String.format("Unknown hash algorithm \"%s\", supported are %s",
+          arguments[0], ALGORITHMS.keySet().stream().sorted().toList()));
+    }
+    var hexLength = 2 * newDigest().getDigestLength();
+    length = arguments.length == 2 ? parseLength(arguments[1], hexLength) : hexLength;
+  }
+
+  private static int parseLength(String argument, int hexLength) {
+    try {
+      var length = Integer.parseInt(argument);
+      if (length > 0 && length <= hexLength) {
+        return length;
+      }
+    } catch (NumberFormatException exception) {
+      // reported below
+    }
+    throw new IllegalArgumentException(String.format("Hash length \"%s\" must be a number between 1 and %d",
+        argument, hexLength));
+  }
+
+  private MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance(algorithm);
+    } catch (NoSuchAlgorithmException exception) {
+      throw new IllegalStateException("Hash algorithm " + algorithm + " is not available", exception);
+    }
+  }
+
+  public String toString() {
+    return String.format("Hash Transformation Rule: Adding the first %d hex digits of the %s hash of the file content.",
+        length, algorithm);
+  }
+
+  @Override
+  public String resolve(FileContext fileContext) {
+    var file = fileContext.file();
+    byte[] hash;
+    try {
+      hash = cachedMetadata(fileContext, RULE_SHORTCUT + "|" + algorithm, () -> hash(file));
+    } catch (Exception exception) {
+      var message = String.format("Could not hash content of file \"%s\": %s",
+          file.getFileName().toString(), exception.getMessage());
+      throw new TransformationRuleException(message, exception);
+    }
+    return HexFormat.of().formatHex(hash).substring(0, length);
+  }
+
+  private byte[] hash(Path file) throws IOException {
+    var digest = newDigest();
+    hashedBytes.add(ContentHasher.hash(file, digest));
+    hashedFiles.increment();
+    return digest.digest();
+  }
+
+  @Override
+  public Optional<String> getStatistics() {
+    return Optional.of(String.format("Hashed %d files (%d MB)", hashedFiles.sum(), hashedBytes.sum() >> 20));
+  }
+}
@@ -1,25 +1,26 @@
 package at.kocmana.filerename.service.transformation.rules;
 
+import at.kocmana.filerename.model.FileContext;
+import at.kocmana.filerename.model.Template;
 import at.kocmana.filerename.service.transformation.TransformationRuleGenerator;
 import java.util.Optional;
-import java.util.regex.Pattern;
 
 public class RegexTransformationRule extends AbstractTransformationRule {
 
   private static final String RULE_ABBREVIATION = "R";
 
   private final String regexGroup;
-  private final Pattern regexGroupPattern;
 
   public static final TransformationRuleGenerator FACTORY_METHOD =
       RegexTransformationRule::generateIfRuleIsApplicable;
 
-  private static Optional<TransformationRule> generateIfRuleIsApplicable(String inputPattern, String outputPattern) {
-    if (!ruleMarkerIsPresent(RULE_ABBREVIATION, inputPattern)) {
+  private static Optional<TransformationRule> generateIfRuleIsApplicable(Template inputTemplate,
+                                                                         Template outputTemplate) {
+    if (!ruleMarkerIsPresent(RULE_ABBREVIATION, inputTemplate)) {
       return Optional.empty();
     }
 
-    return Optional.of(new RegexTransformationRule(inputPattern, outputPattern));
+    return Optional.of(new RegexTransformationRule(inputTemplate, outputTemplate));
   }
 
   public RegexTransformationRule(String inputFilenamePattern,
@@ -27,7 +28,12 @@ public class RegexTransformationRule extends AbstractTransformationRule {
     super(RULE_ABBREVIATION, inputFilenamePattern, outputFilenamePattern);
 
     this.regexGroup = createRegexGroup();
-    this.regexGroupPattern = Pattern.compile(regexGroup);
+  }
+
+  private RegexTransformationRule(Template inputTemplate, Template outputTemplate) {
+    super(RULE_ABBREVIATION, inputTemplate, outputTemplate);
+
+    this.regexGroup = createRegexGroup();
   }
 
   @Override
@@ -38,7 +44,7 @@ public class RegexTransformationRule extends AbstractTransformationRule {
 
   @Override
   public String replaceTemplateWithSearchString(String pattern) {
-    return pattern.replaceAll(getGenericRulePattern(), regexGroup);
+    return replaceTemplateWith(pattern, regexGroup);
   }
 
   private String createRegexGroup() {
@@ -47,11 +53,12 @@ public class RegexTransformationRule extends AbstractTransformationRule {
   }
 
   @Override
-  protected String apply(String filename, String outputPattern) {
-    var inputMatcher = matcherFor(regexGroupPattern, filename)
-        .orElseThrow(() -> (new IllegalStateException(
-            String.format("Could not find %s in filename %s despite it matched.", regexGroup, filename))));
-    var inputString = inputMatcher.group(RULE_ABBREVIATION);
-    return outputPattern.replaceAll(getGenericRulePattern(), inputString);
+  public String resolve(FileContext fileContext) {
+    var inputString = fileContext.group(RULE_ABBREVIATION);
+    if (inputString == null) {
+      throw new IllegalStateException(
+          String.format("Could not find %s in filename %s despite it matched.", regexGroup, fileContext.filename()));
+    }
+    return inputString;
   }
 }
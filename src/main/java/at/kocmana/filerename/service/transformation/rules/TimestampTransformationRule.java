@@ -1,11 +1,18 @@
 package at.kocmana.filerename.service.transformation.rules;
 
+import at.kocmana.filerename.model.FileContext;
+import at.kocmana.filerename.model.Template;
 import at.kocmana.filerename.service.transformation.TransformationRuleGenerator;
+import at.kocmana.filerename.service.transformation.helper.FormattingCache;
+import at.kocmana.filerename.service.transformation.helper.NumericTimestampFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
 import java.util.Optional;
 
 public class TimestampTransformationRule extends AbstractTransformationRule {
@@ -13,32 +20,33 @@ public class TimestampTransformationRule extends AbstractTransformationRule {
   private static final Logger log = LoggerFactory.getLogger(TimestampTransformationRule.class);
 
   private static final String RULE_ABBREVIATION = "TS";
+  // keeps sort keys of negative years positive and of equal length
+  private static final long SORT_KEY_YEAR_OFFSET = 1_000_000_000L;
 
   private final DateTimeFormatter dtfIn;
   private final DateTimeFormatter dtfOut;
+  private final NumericTimestampFormat numericFormat;
+  private final FormattingCache<String> formattingCache =
+          new FormattingCache<>("Timestamp cache", FormattingCache.DEFAULT_CAPACITY);
 
   public static final TransformationRuleGenerator FACTORY_METHOD = TimestampTransformationRule::generateIfRuleIsApplicable;
 
-  private static Optional<TransformationRule> generateIfRuleIsApplicable(String inputPattern,
-                                                                         String outputPattern) {
-    if (inputPattern == null || outputPattern == null) {
+  private static Optional<TransformationRule> generateIfRuleIsApplicable(Template inputTemplate,
+                                                                         Template outputTemplate) {
+    if (!ruleMarkerIsPresent(RULE_ABBREVIATION, inputTemplate) || !ruleMarkerIsPresent(RULE_ABBREVIATION, outputTemplate)) {
       return Optional.empty();
     }
 
-    if (!ruleMarkerIsPresent(RULE_ABBREVIATION, inputPattern) || !ruleMarkerIsPresent(RULE_ABBREVIATION, outputPattern)) {
-      return Optional.empty();
-    }
-
-    return Optional.of(new TimestampTransformationRule(inputPattern, outputPattern));
+    return Optional.of(new TimestampTransformationRule(inputTemplate, outputTemplate));
   }
 
-  private TimestampTransformationRule(String inputPattern, String outputPattern) {
-    super(RULE_ABBREVIATION, inputPattern, outputPattern);
+  private TimestampTransformationRule(Template inputTemplate, Template outputTemplate) {
+    super(RULE_ABBREVIATION, inputTemplate, outputTemplate);
     if (getInputRuleArguments() == null || getInputRuleArguments().isBlank()) {
       throw new IllegalArgumentException("No input timestamp pattern provided for timestamp transformation rule " +
               "(eg. <<TS|yyyy-MM-dd>>)");
     }
-    if (ruleMarkerIsPresent(RULE_ABBREVIATION, outputPattern) &&
+    if (ruleMarkerIsPresent(RULE_ABBREVIATION, outputTemplate) &&
             (getOutputRuleArguments() == null || getOutputRuleArguments().isBlank())) {
       throw new IllegalArgumentException("No output timestamp pattern provided for timestamp transformation rule " +
               "(eg. <<TS|yyyy-MM-dd>>)");
@@ -46,6 +54,12 @@ public class TimestampTransformationRule extends AbstractTransformationRule {
 
     this.dtfIn = DateTimeFormatter.ofPattern(this.getInputRuleArguments());
     this.dtfOut = DateTimeFormatter.ofPattern(this.getOutputRuleArguments());
+    this.numericFormat = NumericTimestampFormat.forPatterns(getInputRuleArguments(), getOutputRuleArguments(),
+            dtfIn, dtfOut).orElse(null);
+    if (numericFormat != null) {
+      log.debug("Using numeric fast path to reformat timestamps from {} to {}.", getInputRuleArguments(),
+              getOutputRuleArguments());
+    }
   }
 
   public String toString() {
@@ -55,13 +69,60 @@ public class TimestampTransformationRule extends AbstractTransformationRule {
   }
 
   @Override
-  public String apply(String filename, String outputPattern) {
-    var inputMatcher = fileNameMatcherFor(filename)
-            .orElseThrow(() -> new IllegalArgumentException(String.format("Could not identify date pattern in filename \"%s\"", filename)));
+  public String resolve(FileContext fileContext) {
+    var inputTimestamp = fileContext.group(RULE_ABBREVIATION);
+    if (inputTimestamp == null) {
+      throw new IllegalArgumentException(
+              String.format("Could not identify date pattern in filename \"%s\"", fileContext.filename()));
+    }
+
+    return formattingCache.get(inputTimestamp, this::reformat);
+  }
+
+  private String reformat(String inputTimestamp) {
+    if (numericFormat != null) {
+      var outputTimestamp = numericFormat.reformat(inputTimestamp);
+      if (outputTimestamp != null) {
+        return outputTimestamp;
+      }
+    }
+    var inputDate = dtfIn.parse(inputTimestamp);
+    return dtfOut.format(inputDate);
+  }
+
+  /**
+   * @return a key ordering files chronologically by the timestamp in their name. Fields missing in the input pattern
+   * are treated as zero. Files whose timestamp can't be parsed get an empty key.
+   */
+  public String toSortKey(FileContext fileContext) {
+    var inputTimestamp = fileContext.group(RULE_ABBREVIATION);
+    if (inputTimestamp == null) {
+      return "";
+    }
+    try {
+      var timestamp = dtfIn.parse(inputTimestamp);
+      return String.format("%010d%02d%02d%02d%02d%02d%09d",
+              getField(timestamp, ChronoField.YEAR, ChronoField.YEAR_OF_ERA) + SORT_KEY_YEAR_OFFSET,
+              getField(timestamp, ChronoField.MONTH_OF_YEAR), getField(timestamp, ChronoField.DAY_OF_MONTH),
+              getField(timestamp, ChronoField.HOUR_OF_DAY), getField(timestamp, ChronoField.MINUTE_OF_HOUR),
+              getField(timestamp, ChronoField.SECOND_OF_MINUTE), getField(timestamp, ChronoField.NANO_OF_SECOND));
+    } catch (DateTimeException exception) {
+      return "";
+    }
+  }
 
-    var inputDate = dtfIn.parse(inputMatcher.group(RULE_ABBREVIATION));
-    var outputDate = dtfOut.format(inputDate);
-    return outputPattern.replaceAll(getGenericRulePattern(), outputDate);
+  private static long getField(TemporalAccessor timestamp, ChronoField... fields) {
+    for (var field : fields) {
+      if (timestamp.isSupported(field)) {
+        return timestamp.getLong(field);
+      }
+    }
+    return 0;
+  }
+
+  @Override
+  public Optional<String> getStatistics() {
+    return Optional.of(formattingCache.toString());
   }
 
   public DateTimeFormatter getDtfIn() {
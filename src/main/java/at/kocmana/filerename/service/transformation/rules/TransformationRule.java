@@ -1,8 +1,11 @@
 package at.kocmana.filerename.service.transformation.rules;
 
+import at.kocmana.filerename.model.FileContext;
 import at.kocmana.filerename.service.FileRenameJob;
 import at.kocmana.filerename.service.FileRenameTask;
-import java.nio.file.Path;
+import at.kocmana.filerename.service.cache.MetadataCache;
+import at.kocmana.filerename.service.transformation.OutputTemplate;
+import java.util.Optional;
 
 public interface TransformationRule {
 
@@ -64,22 +67,46 @@ public interface TransformationRule {
    */
   String replaceTemplateWithSearchString(String inputPattern);
 
+  /**
+   * @return the abbreviation identifying the rule template, e.g. {@code TS} for {@code <<TS|yyyyMMdd>>}.
+   */
+  String getRuleAbbreviation();
+
   /**
    * <p>This function is called by each {@link FileRenameJob} in order to prepare the
    * copy/move process for the file handled by the respective {@link FileRenameJob}.
-   * In this step, the file name of a file should be modified in a way that represents the rule to be implemented.</p>
+   * It returns the text that replaces the rule template in the output (<i>-o</i>) argument for the given file.
+   * The output template itself is parsed only once per task by {@link OutputTemplate}, which calls this function at
+   * most once per file, even if the rule template occurs several times.</p>
    *
-   * <p>Similar to {@link #replaceTemplateWithSearchString(String)} method, the outputPattern may deviate from the
-   * original output (<i>-o</i>) command line argument provided, depending on the applicability of other rules.</p>
+   * <p>Rules depending on file metadata should use the {@link FileContext#attributes()} instead of accessing the file
+   * system again.</p>
    *
    * <p><b>CAUTION:</b> This function may be called multiple times in parallel without any external synchronization.
    * If a common state is modified in the course of this call, sufficient precautions have to be taken.</p>
    *
-   * @param file The file that should be renamed or copied.
-   * @param outputPattern The output pattern in its current step of modification. Should be used as a basis for
-   *                      modification, instead of the original output command line argument.
-   * @return The output pattern provided modified according to the rule to be implemented.
+   * @param fileContext The file that should be renamed or copied, including its attributes.
+   * @return The text to be inserted in place of the rule template.
+   */
+  String resolve(FileContext fileContext);
+
+  /**
+   * <p>Called once per task before any file is resolved if the task uses a {@link MetadataCache}. Rules deriving
+   * information from the content of files can store it there, so unchanged files are not read again by later runs.</p>
+   *
+   * @param metadataCache the cache shared by all rules of the task.
    */
-  String apply(Path file, String outputPattern);
+  default void useMetadataCache(MetadataCache metadataCache) {
+  }
+
+  /**
+   * <p>Statistics collected by the rule while resolving values, e.g. the hit rate of a cache. They are logged once the
+   * files of a task were processed.</p>
+   *
+   * @return a human-readable summary or an empty {@link Optional} if the rule does not collect any statistics.
+   */
+  default Optional<String> getStatistics() {
+    return Optional.empty();
+  }
 
 }
@@ -3,9 +3,12 @@ package at.kocmana.filerename.controller;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 
+import at.kocmana.filerename.model.ExecutionStrategy;
+import at.kocmana.filerename.service.execution.JobExecutor;
 import java.nio.file.Path;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import picocli.CommandLine;
 
@@ -129,6 +132,100 @@ class CliControllerTest {
     assertThat(actualResult.get(0).dryRun()).isFalse();
   }
 
+  @ParameterizedTest
+  @ValueSource(strings = {"-s", "--streaming"})
+  void testCorrectStreamingArgumentValue(String parameterName) {
+    //given
+    var underTest = new CliController();
+    String[] args = {"-i", "foo", "-o", "bar", parameterName};
+
+    //when
+    new CommandLine(underTest).parseArgs(args);
+    var actualResult = underTest.mapArguments();
+
+    //then
+    assertThat(actualResult).hasSize(1);
+    assertThat(actualResult.get(0).streaming()).isTrue();
+  }
+
+  @Test
+  void testMissingStreamingArgumentValue() {
+    //given
+    var underTest = new CliController();
+    String[] args = {"-i", "foo", "-o", "bar"};
+
+    //when
+    new CommandLine(underTest).parseArgs(args);
+    var actualResult = underTest.mapArguments();
+
+    //then
+    assertThat(actualResult).hasSize(1);
+    assertThat(actualResult.get(0).streaming()).isFalse();
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"-w", "--watch"})
+  void testCorrectWatchArgumentValue(String parameterName) {
+    //given
+    var underTest = new CliController();
+    String[] args = {"-i", "foo", "-o", "bar", parameterName};
+
+    //when
+    new CommandLine(underTest).parseArgs(args);
+    var actualResult = underTest.mapArguments();
+
+    //then
+    assertThat(actualResult).hasSize(1);
+    assertThat(actualResult.get(0).watch()).isTrue();
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"-re", "--regexEngine"})
+  void testCorrectRegexEngineArgumentValue(String parameterName) {
+    //given
+    var underTest = new CliController();
+    String[] args = {"-i", "foo", "-o", "bar", parameterName, "LINEAR"};
+
+    //when
+    new CommandLine(underTest).parseArgs(args);
+    var actualResult = underTest.mapArguments();
+
+    //then
+    assertThat(actualResult).hasSize(1);
+    assertThat(actualResult.get(0).regexEngine()).isEqualTo(CliController.RegexEngine.LINEAR);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"-sb", "--sortBy"})
+  void testCorrectSortOrderArgumentValue(String parameterName) {
+    //given
+    var underTest = new CliController();
+    String[] args = {"-i", "foo", "-o", "bar", parameterName, "CREATION_DATE"};
+
+    //when
+    new CommandLine(underTest).parseArgs(args);
+    var actualResult = underTest.mapArguments();
+
+    //then
+    assertThat(actualResult).hasSize(1);
+    assertThat(actualResult.get(0).sortOrder()).isEqualTo(CliController.SortOrder.CREATION_DATE);
+  }
+
+  @Test
+  void testDefaultSortOrderArgumentValue() {
+    //given
+    var underTest = new CliController();
+    String[] args = {"-i", "foo", "-o", "bar"};
+
+    //when
+    new CommandLine(underTest).parseArgs(args);
+    var actualResult = underTest.mapArguments();
+
+    //then
+    assertThat(actualResult).hasSize(1);
+    assertThat(actualResult.get(0).sortOrder()).isEqualTo(CliController.SortOrder.NAME);
+  }
+
   @ParameterizedTest
   @ValueSource(strings = {"-p", "--path"})
   void testCorrectPathArgumentValue(String parameterName) {
@@ -145,6 +242,166 @@ class CliControllerTest {
     assertThat(actualResult.get(0).path()).endsWithRaw(Path.of("baz"));
   }
 
+  @ParameterizedTest
+  @ValueSource(strings = {"-ix", "--index"})
+  void testCorrectIndexArgumentValue(String parameterName) {
+    //given
+    var underTest = new CliController();
+    String[] args = {"-i", "foo", "-o", "bar", parameterName, "./baz.idx"};
+
+    //when
+    new CommandLine(underTest).parseArgs(args);
+    var actualResult = underTest.mapArguments();
+
+    //then
+    assertThat(actualResult).hasSize(1);
+    assertThat(actualResult.get(0).indexFile()).endsWithRaw(Path.of("baz.idx"));
+  }
+
+  @Test
+  void testMissingIndexArgumentValue() {
+    //given
+    var underTest = new CliController();
+    String[] args = {"-i", "foo", "-o", "bar"};
+
+    //when
+    new CommandLine(underTest).parseArgs(args);
+    var actualResult = underTest.mapArguments();
+
+    //then
+    assertThat(actualResult).hasSize(1);
+    assertThat(actualResult.get(0).indexFile()).isNull();
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"-mc", "--metadataCache"})
+  void testCorrectMetadataCacheArgumentValue(String parameterName) {
+    //given
+    var underTest = new CliController();
+    String[] args = {"-i", "foo", "-o", "bar", parameterName, "./baz.cache"};
+
+    //when
+    new CommandLine(underTest).parseArgs(args);
+    var actualResult = underTest.mapArguments();
+
+    //then
+    assertThat(actualResult).hasSize(1);
+    assertThat(actualResult.get(0).metadataCache()).endsWithRaw(Path.of("baz.cache"));
+  }
+
+  @Test
+  void testMissingMetadataCacheArgumentValue() {
+    //given
+    var underTest = new CliController();
+    String[] args = {"-i", "foo", "-o", "bar"};
+
+    //when
+    new CommandLine(underTest).parseArgs(args);
+    var actualResult = underTest.mapArguments();
+
+    //then
+    assertThat(actualResult).hasSize(1);
+    assertThat(actualResult.get(0).metadataCache()).isNull();
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+      "-ex, forkjoin, FORKJOIN, 0",
+      "--executor, fixed:32, FIXED, 32",
+      "-ex, FIXED:4, FIXED, 4"
+  })
+  void testCorrectExecutorArgumentValue(String parameterName, String parameterValue,
+                                        ExecutionStrategy.Type expectedType, int expectedThreads) {
+    //given
+    var underTest = new CliController();
+    String[] args = {"-i", "foo", "-o", "bar", parameterName, parameterValue};
+
+    //when
+    new CommandLine(underTest).parseArgs(args);
+    var actualResult = underTest.mapArguments();
+
+    //then
+    assertThat(actualResult).hasSize(1);
+    assertThat(actualResult.get(0).executionStrategy())
+        .isEqualTo(new ExecutionStrategy(expectedType, expectedThreads));
+  }
+
+  @Test
+  void testDefaultExecutorArgumentValue() {
+    //given
+    var underTest = new CliController();
+    String[] args = {"-i", "foo", "-o", "bar"};
+
+    //when
+    new CommandLine(underTest).parseArgs(args);
+    var actualResult = underTest.mapArguments();
+
+    //then
+    assertThat(actualResult).hasSize(1);
+    assertThat(actualResult.get(0).executionStrategy()).isEqualTo(ExecutionStrategy.FORK_JOIN);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"-du", "--durability"})
+  void testCorrectDurabilityArgumentValue(String parameterName) {
+    //given
+    var underTest = new CliController();
+    String[] args = {"-i", "foo", "-o", "bar", parameterName, "BATCH"};
+
+    //when
+    new CommandLine(underTest).parseArgs(args);
+    var actualResult = underTest.mapArguments();
+
+    //then
+    assertThat(actualResult).hasSize(1);
+    assertThat(actualResult.get(0).durability()).isEqualTo(CliController.Durability.BATCH);
+  }
+
+  @Test
+  void testDefaultDurabilityArgumentValue() {
+    //given
+    var underTest = new CliController();
+    String[] args = {"-i", "foo", "-o", "bar"};
+
+    //when
+    new CommandLine(underTest).parseArgs(args);
+    var actualResult = underTest.mapArguments();
+
+    //then
+    assertThat(actualResult).hasSize(1);
+    assertThat(actualResult.get(0).durability()).isEqualTo(CliController.Durability.NONE);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"fixed", "fixed:0", "fixed:x", "threads"})
+  void testInvalidExecutorArgumentValue(String parameterValue) {
+    //given
+    var underTest = new CliController();
+    String[] args = {"-i", "foo", "-o", "bar", "-ex", parameterValue};
+
+    //when + then
+    assertThatExceptionOfType(CommandLine.ParameterException.class)
+        .isThrownBy(() -> new CommandLine(underTest).parseArgs(args));
+  }
+
+  @Test
+  void testVirtualExecutorArgumentValueDependsOnRuntime() {
+    //given
+    var underTest = new CliController();
+    String[] args = {"-i", "foo", "-o", "bar", "-ex", "virtual"};
+
+    //when + then
+    if (JobExecutor.supportsVirtualThreads()) {
+      new CommandLine(underTest).parseArgs(args);
+      assertThat(underTest.mapArguments().get(0).executionStrategy().type())
+          .isEqualTo(ExecutionStrategy.Type.VIRTUAL);
+    } else {
+      assertThatExceptionOfType(CommandLine.ParameterException.class)
+          .isThrownBy(() -> new CommandLine(underTest).parseArgs(args))
+          .withMessageContaining("Virtual threads are not supported by this Java runtime");
+    }
+  }
+
   @Test
   void testMultipleArgumentGroups() {
     //given
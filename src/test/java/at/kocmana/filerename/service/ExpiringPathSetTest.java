@@ -0,0 +1,47 @@
+package at.kocmana.filerename.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class ExpiringPathSetTest {
+
+  private static final Duration EXPIRY = Duration.ofMillis(100);
+
+  @Test
+  void pathsDoNotExpireBeforeExpiringIsStarted() throws InterruptedException {
+    //given
+    var underTest = new ExpiringPathSet(EXPIRY);
+    underTest.add(Path.of("a.txt"));
+
+    //when
+    Thread.sleep(EXPIRY.toMillis() * 2);
+    var actualResult = underTest.add(Path.of("a.txt"));
+
+    //then
+    assertThat(actualResult).isFalse();
+    assertThat(underTest.remove(Path.of("a.txt"))).isTrue();
+    assertThat(underTest.isEmpty()).isTrue();
+  }
+
+  @Test
+  void expiredPathsAreForgotten() throws InterruptedException {
+    //given
+    var underTest = new ExpiringPathSet(EXPIRY);
+    underTest.add(Path.of("a.txt"));
+    underTest.add(Path.of("b.txt"));
+    underTest.startExpiring();
+
+    //when
+    Thread.sleep(EXPIRY.toMillis() * 2);
+    var addedAgain = underTest.add(Path.of("a.txt"));
+
+    //then
+    assertThat(addedAgain).isTrue();
+    assertThat(underTest.size()).isEqualTo(1);
+    assertThat(underTest.remove(Path.of("b.txt"))).isFalse();
+  }
+
+}
@@ -0,0 +1,134 @@
+package at.kocmana.filerename.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.kocmana.filerename.controller.CliController.CollisionResolutionStrategy;
+import at.kocmana.filerename.controller.CliController.Durability;
+import at.kocmana.filerename.model.FileContext;
+import at.kocmana.filerename.model.JobArguments;
+import at.kocmana.filerename.service.FileRenameJob.JobStatus;
+import at.kocmana.filerename.service.planning.TargetNameRegistry;
+import at.kocmana.filerename.service.transformation.OutputTemplate;
+import at.kocmana.filerename.service.transformation.TransformationRuleFactory;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileRenameJobTest {
+
+  @TempDir
+  Path temporaryDirectory;
+
+  @Test
+  void processPreparesAndExecutesJob() throws IOException {
+    //given
+    var file = Files.createFile(temporaryDirectory.resolve("image.jpg"));
+    var underTest = createJob(file, "image.jpg", "picture.jpg");
+
+    //when
+    var actualResult = underTest.process();
+
+    //then
+    assertThat(actualResult).isEqualTo(JobStatus.SUCCESS);
+    assertThat(underTest.getOutputFile()).isEqualTo(temporaryDirectory.resolve("picture.jpg"));
+    assertThat(file).doesNotExist();
+  }
+
+  @Test
+  void processMarksJobAsFailedIfOutputNameCantBeDetermined() throws IOException {
+    //given
+    var file = Files.writeString(temporaryDirectory.resolve("image.jpg"), "no EXIF data");
+    var underTest = createJob(file, "image.jpg", "picture_<<EXIF>>.jpg");
+
+    //when
+    var actualResult = underTest.process();
+
+    //then
+    assertThat(actualResult).isEqualTo(JobStatus.FAILED);
+    assertThat(underTest.getOutputFile()).isNull();
+    assertThat(file).exists();
+  }
+
+  @Test
+  void prepareEnumeratesNameOfExistingFile() throws IOException {
+    //given
+    var file = Files.createFile(temporaryDirectory.resolve("image.jpg"));
+    Files.createFile(temporaryDirectory.resolve("picture.jpg"));
+    var underTest = createJob(file, "image.jpg", "picture.jpg", CollisionResolutionStrategy.ENUMERATE,
+        new TargetNameRegistry());
+
+    //when
+    underTest.prepare();
+    var actualResult = underTest.call();
+
+    //then
+    assertThat(actualResult).isEqualTo(JobStatus.SUCCESS);
+    assertThat(underTest.getOutputFile()).isEqualTo(temporaryDirectory.resolve("picture-1.jpg"));
+  }
+
+  @Test
+  void callFailsWithoutTouchingFileIfNameIsTaken() throws IOException {
+    //given
+    var file = Files.createFile(temporaryDirectory.resolve("image.jpg"));
+    Files.writeString(temporaryDirectory.resolve("picture.jpg"), "existing");
+    var underTest = createJob(file, "image.jpg", "picture.jpg", CollisionResolutionStrategy.FAIL,
+        new TargetNameRegistry());
+
+    //when
+    underTest.prepare();
+    var actualResult = underTest.call();
+
+    //then
+    assertThat(actualResult).isEqualTo(JobStatus.FAILED);
+    assertThat(file).exists();
+    assertThat(temporaryDirectory.resolve("picture.jpg")).hasContent("existing");
+  }
+
+  @Test
+  void callEnumeratesNameOfFileCreatedAfterPlanning() throws IOException {
+    //given
+    var file = Files.createFile(temporaryDirectory.resolve("image.jpg"));
+    var underTest = createJob(file, "image.jpg", "picture.jpg", CollisionResolutionStrategy.ENUMERATE,
+        new TargetNameRegistry());
+    underTest.prepare();
+    Files.createFile(temporaryDirectory.resolve("picture.jpg"));
+
+    //when
+    var actualResult = underTest.call();
+
+    //then
+    assertThat(actualResult).isEqualTo(JobStatus.SUCCESS);
+    assertThat(underTest.getOutputFile()).isEqualTo(temporaryDirectory.resolve("picture-1.jpg"));
+  }
+
+  @Test
+  void callFailsOnOtherErrorsDespiteEnumeration() {
+    //given
+    var missingFile = temporaryDirectory.resolve("image.jpg");
+    var underTest = createJob(missingFile, "image.jpg", "picture.jpg", CollisionResolutionStrategy.ENUMERATE,
+        new TargetNameRegistry());
+
+    //when
+    underTest.prepare();
+    var actualResult = underTest.call();
+
+    //then
+    assertThat(actualResult).isEqualTo(JobStatus.FAILED);
+  }
+
+  private FileRenameJob createJob(Path file, String inputTemplate, String outputTemplate) {
+    return createJob(file, inputTemplate, outputTemplate, CollisionResolutionStrategy.FAIL, new TargetNameRegistry());
+  }
+
+  private FileRenameJob createJob(Path file, String inputTemplate, String outputTemplate,
+                                  CollisionResolutionStrategy collisionResolutionStrategy,
+                                  TargetNameRegistry targetNameRegistry) {
+    var rules = TransformationRuleFactory.generateApplicableTransformationRules(inputTemplate, outputTemplate);
+    var jobArguments = new JobArguments(new FileContext(file, null), OutputTemplate.parse(outputTemplate, rules),
+        false, false, collisionResolutionStrategy, targetNameRegistry, Durability.NONE);
+    return new FileRenameJob(jobArguments);
+  }
+
+}
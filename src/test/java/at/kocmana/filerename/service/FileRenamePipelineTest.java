@@ -0,0 +1,124 @@
+package at.kocmana.filerename.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+import at.kocmana.filerename.controller.CliController.CollisionResolutionStrategy;
+import at.kocmana.filerename.controller.CliController.Durability;
+import at.kocmana.filerename.model.JobArguments;
+import at.kocmana.filerename.service.FileRenameJob.JobStatus;
+import at.kocmana.filerename.service.planning.TargetNameRegistry;
+import at.kocmana.filerename.service.transformation.FilenameMatcher;
+import at.kocmana.filerename.service.transformation.OutputTemplate;
+import at.kocmana.filerename.service.transformation.TransformationRuleFactory;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileRenamePipelineTest {
+
+  private static final String INPUT_TEMPLATE = "image<<R|[0-9]+>>.jpg";
+  private static final String OUTPUT_TEMPLATE = "picture<<R>>.jpg";
+
+  @TempDir
+  Path temporaryDirectory;
+
+  private final TargetNameRegistry targetNameRegistry = new TargetNameRegistry();
+
+  @Test
+  void awaitCompletionReturnsResultsOfAllSubmittedJobs() throws IOException, InterruptedException {
+    //given
+    var completedJobs = new AtomicInteger();
+    Map<JobStatus, Long> actualResult;
+
+    //when
+    try (var underTest = new FileRenamePipeline(2, 2, job -> completedJobs.incrementAndGet())) {
+      for (int i = 0; i < 10; i++) {
+        underTest.submit(createJob(Files.createFile(temporaryDirectory.resolve("image" + i + ".jpg"))));
+      }
+      underTest.submit(createJob(temporaryDirectory.resolve("image99.jpg")));
+      actualResult = underTest.awaitCompletion();
+    }
+
+    //then
+    assertThat(actualResult).containsExactlyInAnyOrderEntriesOf(Map.of(JobStatus.SUCCESS, 10L, JobStatus.FAILED, 1L));
+    assertThat(completedJobs).hasValue(11);
+    assertThat(temporaryDirectory.resolve("picture9.jpg")).exists();
+  }
+
+  @Test
+  void failingCompletionCallbackDoesNotStopWorkers() throws IOException, InterruptedException {
+    //given
+    Map<JobStatus, Long> actualResult;
+
+    //when
+    try (var underTest = new FileRenamePipeline(1, 1, job -> {
+      throw new IllegalStateException("callback failed");
+    })) {
+      for (int i = 0; i < 5; i++) {
+        underTest.submit(createJob(Files.createFile(temporaryDirectory.resolve("image" + i + ".jpg"))));
+      }
+      actualResult = underTest.awaitCompletion();
+    }
+
+    //then
+    assertThat(actualResult).containsExactly(Map.entry(JobStatus.SUCCESS, 5L));
+  }
+
+  @Test
+  void submitFailsOnceCompletionIsAwaited() throws InterruptedException {
+    //given
+    var underTest = new FileRenamePipeline(1, 1, job -> {
+    });
+
+    //when
+    underTest.awaitCompletion();
+
+    //then
+    assertThatIllegalStateException()
+        .isThrownBy(() -> underTest.submit(createJob(temporaryDirectory.resolve("image1.jpg"))));
+  }
+
+  @Test
+  void workersAreOnlyStartedForSubmittedJobs() throws IOException, InterruptedException {
+    //given
+    var startedTasks = new AtomicInteger();
+    ExecutorService workers = new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>()) {
+      @Override
+      public void execute(Runnable command) {
+        startedTasks.incrementAndGet();
+        super.execute(command);
+      }
+    };
+
+    //when
+    try (var underTest = new FileRenamePipeline(1, 2, workers, job -> { })) {
+      Thread.sleep(100);
+      assertThat(startedTasks).hasValue(0);
+      for (int i = 0; i < 3; i++) {
+        underTest.submit(createJob(Files.createFile(temporaryDirectory.resolve("image" + i + ".jpg"))));
+      }
+      underTest.awaitCompletion();
+    }
+
+    //then
+    assertThat(startedTasks).hasValue(3);
+  }
+
+  private FileRenameJob createJob(Path file) {
+    var rules = TransformationRuleFactory.generateApplicableTransformationRules(INPUT_TEMPLATE, OUTPUT_TEMPLATE);
+    var fileContext = FilenameMatcher.forInputTemplate(INPUT_TEMPLATE, rules).match(file, null);
+    var jobArguments = new JobArguments(fileContext, OutputTemplate.parse(OUTPUT_TEMPLATE, rules), false, false,
+        CollisionResolutionStrategy.FAIL, targetNameRegistry, Durability.NONE);
+    return new FileRenameJob(jobArguments);
+  }
+
+}
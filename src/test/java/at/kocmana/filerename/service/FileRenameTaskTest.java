@@ -0,0 +1,124 @@
+package at.kocmana.filerename.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.kocmana.filerename.controller.CliController.CollisionResolutionStrategy;
+import at.kocmana.filerename.controller.CliController.Durability;
+import at.kocmana.filerename.controller.CliController.RegexEngine;
+import at.kocmana.filerename.controller.CliController.SortOrder;
+import at.kocmana.filerename.model.CommandLineArguments;
+import at.kocmana.filerename.model.ExecutionStrategy;
+import at.kocmana.filerename.service.FileRenameTask.TaskStatus;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class FileRenameTaskTest {
+
+  private static final int FILE_COUNT = 2_000;
+  private static final Duration WATCH_TIMEOUT = Duration.ofSeconds(20);
+
+  @TempDir
+  Path temporaryDirectory;
+
+  @ParameterizedTest
+  @ValueSource(booleans = {true, false})
+  void outputsMatchingTheInputPatternAreNotRenamedAgain(boolean streaming) throws IOException {
+    //given
+    for (int i = 0; i < FILE_COUNT; i++) {
+      Files.createFile(temporaryDirectory.resolve("f" + i + ".txt"));
+    }
+    var underTest = new FileRenameTask(arguments("f<<R|[0-9a]+>>.txt", "f<<R>>a.txt", streaming));
+
+    //when
+    var actualResult = underTest.call();
+
+    //then
+    assertThat(actualResult).isEqualTo(TaskStatus.SUCCESS);
+    try (var files = Files.list(temporaryDirectory)) {
+      var expectedNames = IntStream.range(0, FILE_COUNT)
+          .mapToObj(i -> "f" + i + "a.txt")
+          .collect(Collectors.toSet());
+      assertThat(files.map(file -> file.getFileName().toString()))
+          .containsExactlyInAnyOrderElementsOf(expectedNames);
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {10, 1_000})
+  void renumberingDoesNotDependOnFilesSortedInMemory(int maxSortedFilesInMemory) throws IOException {
+    //given
+    for (int i = 1; i <= 30; i++) {
+      Files.writeString(temporaryDirectory.resolve("f" + i + ".txt"), "f" + i);
+    }
+    var underTest = new FileRenameTask(arguments("f<<R|\\d+>>.txt", "f<<E>>.txt", false), maxSortedFilesInMemory);
+
+    //when
+    var actualResult = underTest.call();
+
+    //then
+    assertThat(actualResult).isEqualTo(TaskStatus.SUCCESS);
+    var sortedNames = IntStream.rangeClosed(1, 30).mapToObj(i -> "f" + i).sorted().toList();
+    for (int i = 0; i < sortedNames.size(); i++) {
+      assertThat(temporaryDirectory.resolve("f" + i + ".txt")).hasContent(sortedNames.get(i));
+    }
+    try (var files = Files.list(temporaryDirectory)) {
+      assertThat(files).hasSize(30);
+    }
+  }
+
+  @Test
+  void watchedFilesContinueTheEnumerationOfTheSortedFiles() throws Exception {
+    //given
+    for (int i = 1; i <= 3; i++) {
+      Files.writeString(temporaryDirectory.resolve("in" + i + ".txt"), "in" + i);
+    }
+    var underTest = new FileRenameTask(arguments("in<<R|\\d+>>.txt", "out<<E|%03d>>.txt", false, true));
+    var watchingThread = new Thread(underTest::call);
+
+    //when
+    watchingThread.start();
+    try {
+      awaitFile(temporaryDirectory.resolve("out002.txt"));
+      Files.writeString(temporaryDirectory.resolve("in4.txt"), "in4");
+      awaitFile(temporaryDirectory.resolve("out003.txt"));
+    } finally {
+      watchingThread.interrupt();
+      watchingThread.join(WATCH_TIMEOUT.toMillis());
+    }
+
+    //then
+    for (int i = 0; i < 4; i++) {
+      assertThat(temporaryDirectory.resolve(String.format("out%03d.txt", i))).hasContent("in" + (i + 1));
+    }
+    try (var files = Files.list(temporaryDirectory)) {
+      assertThat(files).hasSize(4);
+    }
+  }
+
+  private void awaitFile(Path file) throws InterruptedException {
+    var deadline = System.nanoTime() + WATCH_TIMEOUT.toNanos();
+    while (!Files.exists(file) && System.nanoTime() - deadline < 0) {
+      Thread.sleep(50);
+    }
+  }
+
+  private CommandLineArguments arguments(String inputTemplate, String outputTemplate, boolean streaming) {
+    return arguments(inputTemplate, outputTemplate, streaming, false);
+  }
+
+  private CommandLineArguments arguments(String inputTemplate, String outputTemplate, boolean streaming,
+      boolean watch) {
+    return new CommandLineArguments(temporaryDirectory, false, inputTemplate, outputTemplate, false, false,
+        CollisionResolutionStrategy.FAIL, streaming, null, null, watch, SortOrder.NAME, RegexEngine.JAVA,
+        ExecutionStrategy.FORK_JOIN, Durability.NONE);
+  }
+
+}
@@ -0,0 +1,217 @@
+package at.kocmana.filerename.service.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+
+import at.kocmana.filerename.model.FileContext;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MetadataCacheTest {
+
+  private static final byte[] VALUE = "value".getBytes(StandardCharsets.US_ASCII);
+
+  @TempDir
+  Path temporaryDirectory;
+
+  @Test
+  void getLoadsValueOnlyOnce() throws IOException {
+    //given
+    var file = fileContext("image.jpg", "content");
+    var loads = new AtomicInteger();
+
+    //when
+    try (var underTest = MetadataCache.open(temporaryDirectory.resolve("metadata.cache"), 64)) {
+      underTest.get(file, "H", () -> {
+        loads.incrementAndGet();
+        return VALUE;
+      });
+      var actualResult = underTest.get(file, "H", () -> {
+        loads.incrementAndGet();
+        return new byte[0];
+      });
+
+      //then
+      assertThat(actualResult).isEqualTo(VALUE);
+      assertThat(loads).hasValue(1);
+    }
+  }
+
+  @Test
+  void getKeepsValuesOfNamespacesApart() throws IOException {
+    //given
+    var file = fileContext("image.jpg", "content");
+
+    //when
+    try (var underTest = MetadataCache.open(temporaryDirectory.resolve("metadata.cache"), 64)) {
+      underTest.get(file, "H", () -> VALUE);
+      var actualResult = underTest.get(file, "EXIF", () -> new byte[]{1});
+
+      //then
+      assertThat(actualResult).containsExactly(1);
+    }
+  }
+
+  @Test
+  void valuesArePersistedAcrossRuns() throws IOException {
+    //given
+    var cacheFile = temporaryDirectory.resolve("metadata.cache");
+    var file = fileContext("image.jpg", "content");
+    try (var cache = MetadataCache.open(cacheFile, 64)) {
+      cache.get(file, "H", () -> VALUE);
+    }
+
+    //when
+    try (var underTest = MetadataCache.open(cacheFile, 64)) {
+      var actualResult = underTest.get(file, "H", () -> new byte[0]);
+
+      //then
+      assertThat(actualResult).isEqualTo(VALUE);
+    }
+  }
+
+  @Test
+  void modifiedFilesAreLoadedAgain() throws IOException {
+    //given
+    var file = fileContext("image.jpg", "content");
+    try (var underTest = MetadataCache.open(temporaryDirectory.resolve("metadata.cache"), 64)) {
+      underTest.get(file, "H", () -> VALUE);
+      Files.writeString(file.file(), "modified content");
+      var modifiedFile = new FileContext(file.file(), Files.readAttributes(file.file(), BasicFileAttributes.class));
+
+      //when
+      var actualResult = underTest.get(modifiedFile, "H", () -> new byte[]{1});
+
+      //then
+      assertThat(actualResult).containsExactly(1);
+    }
+  }
+
+  @Test
+  void leastRecentlyUsedEntryIsEvictedFromFullBucket() throws IOException {
+    //given
+    var file = fileContext("image.jpg", "content");
+    try (var underTest = MetadataCache.open(temporaryDirectory.resolve("metadata.cache"),
+        MetadataCache.BUCKET_SIZE)) {
+      for (int i = 0; i < MetadataCache.BUCKET_SIZE; i++) {
+        var value = new byte[]{(byte) i};
+        underTest.get(file, "namespace" + i, () -> value);
+      }
+      // namespace0 was used recently, namespace1 is the least recently used entry now
+      underTest.get(file, "namespace0", () -> new byte[0]);
+
+      //when
+      underTest.get(file, "namespace" + MetadataCache.BUCKET_SIZE, () -> VALUE);
+
+      //then
+      assertThat(underTest.get(file, "namespace0", () -> new byte[0])).containsExactly(0);
+      assertThat(underTest.get(file, "namespace1", () -> new byte[0])).isEmpty();
+    }
+  }
+
+  @Test
+  void cacheFileDoesNotGrow() throws IOException {
+    //given
+    var cacheFile = temporaryDirectory.resolve("metadata.cache");
+    var file = fileContext("image.jpg", "content");
+
+    //when
+    try (var underTest = MetadataCache.open(cacheFile, 64)) {
+      var initialSize = Files.size(cacheFile);
+      for (int i = 0; i < 1000; i++) {
+        underTest.get(file, "namespace" + i, () -> VALUE);
+      }
+
+      //then
+      assertThat(Files.size(cacheFile)).isEqualTo(initialSize);
+    }
+  }
+
+  @Test
+  void oversizedValuesAreNotCached() throws IOException {
+    //given
+    var file = fileContext("image.jpg", "content");
+    var oversizedValue = new byte[MetadataCache.MAX_VALUE_SIZE + 1];
+
+    //when
+    try (var underTest = MetadataCache.open(temporaryDirectory.resolve("metadata.cache"), 64)) {
+      underTest.get(file, "H", () -> oversizedValue);
+      var actualResult = underTest.get(file, "H", () -> VALUE);
+
+      //then
+      assertThat(actualResult).isEqualTo(VALUE);
+    }
+  }
+
+  @Test
+  void corruptedValuesAreLoadedAgain() throws IOException {
+    //given
+    var cacheFile = temporaryDirectory.resolve("metadata.cache");
+    var file = fileContext("image.jpg", "content");
+    try (var cache = MetadataCache.open(cacheFile, 64)) {
+      cache.get(file, "H", () -> VALUE);
+    }
+    var content = Files.readAllBytes(cacheFile);
+    var valueOffset = new String(content, StandardCharsets.ISO_8859_1).indexOf("value");
+    content[valueOffset] = 'V';
+    Files.write(cacheFile, content);
+
+    //when
+    try (var underTest = MetadataCache.open(cacheFile, 64)) {
+      var actualResult = underTest.get(file, "H", () -> new byte[]{1});
+
+      //then
+      assertThat(actualResult).containsExactly(1);
+    }
+  }
+
+  @Test
+  void openRefusesToOverwriteOtherFiles() throws IOException {
+    //given
+    var otherFile = Files.writeString(temporaryDirectory.resolve("notes.txt"), "not a metadata cache");
+
+    //when //then
+    assertThatIOException().isThrownBy(() -> MetadataCache.open(otherFile, 64))
+        .withMessageContaining("is not a metadata cache");
+    assertThat(otherFile).hasContent("not a metadata cache");
+  }
+
+  @Test
+  void openRefusesCacheOfOtherSize() throws IOException {
+    //given
+    var cacheFile = temporaryDirectory.resolve("metadata.cache");
+    MetadataCache.open(cacheFile, 64).close();
+    var size = Files.size(cacheFile);
+
+    //when //then
+    assertThatIOException().isThrownBy(() -> MetadataCache.open(cacheFile, 128))
+        .withMessageContaining("delete it");
+    assertThat(Files.size(cacheFile)).isEqualTo(size);
+  }
+
+  @Test
+  void openReturnsSharedInstanceWithinProcess() throws IOException {
+    //given
+    var cacheFile = temporaryDirectory.resolve("metadata.cache");
+
+    //when
+    try (var first = MetadataCache.open(cacheFile, 64);
+         var second = MetadataCache.open(cacheFile, 64)) {
+
+      //then
+      assertThat(second).isSameAs(first);
+    }
+  }
+
+  private FileContext fileContext(String filename, String content) throws IOException {
+    var file = Files.writeString(temporaryDirectory.resolve(filename), content);
+    return new FileContext(file, Files.readAttributes(file, BasicFileAttributes.class));
+  }
+
+}
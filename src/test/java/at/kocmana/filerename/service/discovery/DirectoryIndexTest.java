@@ -0,0 +1,140 @@
+package at.kocmana.filerename.service.discovery;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BiPredicate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DirectoryIndexTest {
+
+  private static final String SIGNATURE = "task";
+  private static final BiPredicate<Path, BasicFileAttributes> ALL_FILES =
+      (path, attributes) -> attributes.isRegularFile();
+  private static final FileTime AN_HOUR_AGO = FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS));
+  private static final FileTime TWO_HOURS_AGO = FileTime.from(Instant.now().minus(2, ChronoUnit.HOURS));
+
+  @TempDir
+  Path temporaryDirectory;
+
+  private Path root;
+  private Path subdirectory;
+  private Path indexFile;
+
+  @BeforeEach
+  void createDirectoryTree() throws IOException {
+    root = Files.createDirectories(temporaryDirectory.resolve("root"));
+    subdirectory = Files.createDirectories(root.resolve("sub"));
+    Files.createFile(root.resolve("a.jpg"));
+    Files.createFile(subdirectory.resolve("b.jpg"));
+    indexFile = temporaryDirectory.resolve("index");
+    setLastModified(TWO_HOURS_AGO, root, subdirectory);
+  }
+
+  @Test
+  void unchangedDirectoriesAreSkippedByTheNextRun() throws IOException {
+    //given
+    walkAndSave(DirectoryIndex.load(indexFile, SIGNATURE));
+    var underTest = DirectoryIndex.load(indexFile, SIGNATURE);
+
+    //when
+    var actualResult = walk(underTest);
+
+    //then
+    assertThat(actualResult).isEmpty();
+    assertThat(underTest.getSkippedDirectoryCount()).isEqualTo(2);
+  }
+
+  @Test
+  void changedDirectoriesAreScannedAgain() throws IOException {
+    //given
+    walkAndSave(DirectoryIndex.load(indexFile, SIGNATURE));
+    Files.createFile(subdirectory.resolve("c.jpg"));
+    setLastModified(AN_HOUR_AGO, subdirectory);
+    var underTest = DirectoryIndex.load(indexFile, SIGNATURE);
+
+    //when
+    var actualResult = walk(underTest);
+
+    //then
+    assertThat(actualResult).containsExactlyInAnyOrder(subdirectory.resolve("b.jpg"), subdirectory.resolve("c.jpg"));
+    assertThat(underTest.getSkippedDirectoryCount()).isEqualTo(1);
+  }
+
+  @Test
+  void processedFilesAreSkippedWhileUnchanged() throws IOException {
+    //given
+    var previousIndex = DirectoryIndex.load(indexFile, SIGNATURE);
+    walk(previousIndex);
+    previousIndex.markProcessed(subdirectory.resolve("b.jpg"));
+    previousIndex.save();
+    Files.createFile(subdirectory.resolve("c.jpg"));
+    setLastModified(AN_HOUR_AGO, subdirectory);
+    var underTest = DirectoryIndex.load(indexFile, SIGNATURE);
+
+    //when
+    var actualResult = walk(underTest);
+
+    //then
+    assertThat(actualResult).containsExactly(subdirectory.resolve("c.jpg"));
+  }
+
+  @Test
+  void directoriesWithFailedJobsAreScannedAgain() throws IOException {
+    //given
+    var previousIndex = DirectoryIndex.load(indexFile, SIGNATURE);
+    walk(previousIndex);
+    previousIndex.markFailed(subdirectory.resolve("b.jpg"));
+    previousIndex.save();
+    var underTest = DirectoryIndex.load(indexFile, SIGNATURE);
+
+    //when
+    var actualResult = walk(underTest);
+
+    //then
+    assertThat(actualResult).containsExactly(subdirectory.resolve("b.jpg"));
+  }
+
+  @Test
+  void indexOfOtherTaskIsIgnored() throws IOException {
+    //given
+    walkAndSave(DirectoryIndex.load(indexFile, SIGNATURE));
+    var underTest = DirectoryIndex.load(indexFile, "other task");
+
+    //when
+    var actualResult = walk(underTest);
+
+    //then
+    assertThat(actualResult).hasSize(2);
+    assertThat(underTest.getSkippedDirectoryCount()).isZero();
+  }
+
+  private void walkAndSave(DirectoryIndex directoryIndex) throws IOException {
+    walk(directoryIndex);
+    directoryIndex.save();
+  }
+
+  private List<Path> walk(DirectoryIndex directoryIndex) throws IOException {
+    var foundFiles = new ConcurrentLinkedQueue<Path>();
+    ParallelFileWalker.withDefaultPool().walk(root, Integer.MAX_VALUE, ALL_FILES, directoryIndex,
+        (file, attributes) -> foundFiles.add(file));
+    return List.copyOf(foundFiles);
+  }
+
+  private static void setLastModified(FileTime lastModified, Path... directories) throws IOException {
+    for (var directory : directories) {
+      Files.setLastModifiedTime(directory, lastModified);
+    }
+  }
+
+}
@@ -0,0 +1,77 @@
+package at.kocmana.filerename.service.discovery;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DirectoryWatcherTest {
+
+  private static final BiPredicate<Path, BasicFileAttributes> JPG_FILES =
+      (path, attributes) -> attributes.isRegularFile() && path.getFileName().toString().endsWith(".jpg");
+  private static final Duration QUIET_PERIOD = Duration.ofMillis(100);
+
+  @TempDir
+  Path root;
+
+  private final BlockingQueue<Path> reportedFiles = new LinkedBlockingQueue<>();
+  private Thread watcherThread;
+
+  @AfterEach
+  void stopWatcher() throws InterruptedException {
+    watcherThread.interrupt();
+    watcherThread.join();
+  }
+
+  @Test
+  void watchReportsNewMatchingFiles() throws Exception {
+    //given
+    startWatcher(false);
+
+    //when
+    Files.createFile(root.resolve("a.txt"));
+    Files.createFile(root.resolve("b.jpg"));
+
+    //then
+    assertThat(reportedFiles.poll(10, TimeUnit.SECONDS)).isEqualTo(root.resolve("b.jpg"));
+    assertThat(reportedFiles.poll(500, TimeUnit.MILLISECONDS)).isNull();
+  }
+
+  @Test
+  void watchReportsFilesInNewSubdirectoriesIfRecursive() throws Exception {
+    //given
+    startWatcher(true);
+
+    //when
+    var subdirectory = Files.createDirectories(root.resolve("sub"));
+    Files.createFile(subdirectory.resolve("c.jpg"));
+
+    //then
+    assertThat(reportedFiles.poll(10, TimeUnit.SECONDS)).isEqualTo(subdirectory.resolve("c.jpg"));
+  }
+
+  private void startWatcher(boolean recursive) throws IOException {
+    var underTest = new DirectoryWatcher(root, recursive, QUIET_PERIOD);
+    watcherThread = new Thread(() -> {
+      try (underTest) {
+        underTest.watch(JPG_FILES, (file, attributes) -> reportedFiles.add(file));
+      } catch (InterruptedException exception) {
+        Thread.currentThread().interrupt();
+      } catch (IOException exception) {
+        throw new IllegalStateException(exception);
+      }
+    });
+    watcherThread.start();
+  }
+
+}
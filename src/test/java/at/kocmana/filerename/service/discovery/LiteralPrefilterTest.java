@@ -0,0 +1,90 @@
+package at.kocmana.filerename.service.discovery;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class LiteralPrefilterTest {
+
+  private static final List<String> FILENAMES = List.of(
+      "IMG_20211220_125401.jpg", "IMG_20211220_125401.png", "image.jpg", "img_20211220.jpg", "VID_0001.mp4",
+      "foo.bar", "foobar", "fo.bar", "foo<bar>.foo", "IMG_.jpg", "xIMG_1.jpgx", "a+b.txt", "ab.txt", "b.txt",
+      "IMAGE_001.jpg", "IMAGE001.jpg", "birthday_1999-12-7-127.png", "[test].jpg", "test.jpg", "Q.E.D.txt", "xxy.txt",
+      "\u0001b.txt", "_1.jpg", "ab12.txt");
+
+  static Stream<Arguments> regexesWithExpectedLiterals() {
+    return Stream.of(
+        Arguments.of("IMG_(?<TS>.*?).jpg", List.of("IMG_", "jpg")),
+        Arguments.of("IMG_(?<TS>.*?)\\.jpg", List.of("IMG_", ".jpg")),
+        Arguments.of("foo.bar", List.of("foo", "bar")),
+        Arguments.of("IMAGE_(?<R>[0-9]{3}).jpg", List.of("IMAGE_", "jpg")),
+        Arguments.of("ab?c", List.of("a", "c")),
+        Arguments.of("ab*?c", List.of("a", "c")),
+        Arguments.of("ab{2}c", List.of("a", "c")),
+        Arguments.of("ab+c", List.of("ab", "c")),
+        Arguments.of("a\\+b\\.txt", List.of("a+b.txt")),
+        Arguments.of("\\Q[test]\\E.jpg", List.of("[test]", "jpg")),
+        Arguments.of("[test]\\.jpg", List.of(".jpg")),
+        Arguments.of("\\d+_x", List.of("_x")),
+        Arguments.of("^IMG_\\w+$", List.of("IMG_")),
+        Arguments.of("foo|bar", List.of()),
+        Arguments.of("(?i)img", List.of()),
+        Arguments.of("IMG\\x5F(?<TS>.*?)\\.jpg", List.of("IMG", ".jpg")),
+        Arguments.of("IMG\\x{5F}(?<TS>.*?)\\.jpg", List.of("IMG", ".jpg")),
+        Arguments.of("IMG\\u005F(?<TS>.*?)\\.jpg", List.of("IMG", ".jpg")),
+        Arguments.of("IMG\\0137(?<TS>.*?)\\.jpg", List.of("IMG", ".jpg")),
+        Arguments.of("\\cAb\\.txt", List.of("b.txt")),
+        Arguments.of("(?<R>x)\\k<R>y", List.of("y")),
+        Arguments.of("(x)\\12\\.txt", List.of(".txt")),
+        Arguments.of("\\p{Alpha}+_1\\.jpg", List.of("_1.jpg")),
+        Arguments.of("\\pL+_1\\.jpg", List.of("_1.jpg")),
+        Arguments.of("", List.of())
+    );
+  }
+
+  @ParameterizedTest
+  @MethodSource("regexesWithExpectedLiterals")
+  void forRegexExtractsRequiredLiterals(String regex, List<String> expectedLiterals) {
+    //when
+    var underTest = LiteralPrefilter.forRegex(regex);
+
+    //then
+    assertThat(underTest.getRequiredLiterals()).isEqualTo(expectedLiterals);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"IMG_(?<TS>.*?).jpg", "IMG_(?<TS>.*?)\\.jpg", "foo.bar", "IMAGE_(?<R>[0-9]{3}).jpg",
+      "ab?", "a\\+b\\.txt", "\\Q[test]\\E.jpg", "[test]\\.jpg", "birthday_(?<R>(.+)).png", "Q\\.E\\.D", "foo<bar>",
+      "(?i)img", "IMG|VID", "(IMG)?_\\d+", "o{2}", "\\.(jpg|png)", "IMG\\x5F(?<TS>.*?)\\.jpg",
+      "IMG\\u005F.*", "IMG\\0137.*", "\\cAb\\.txt", "(?<R>x)\\k<R>y\\.txt", "(a)b\\d2\\.txt", "\\pL+_1\\.jpg",
+      "\\x{5F}1\\.jpg"})
+  void prefilterNeverRejectsMatchingFilenames(String regex) {
+    //given
+    var pattern = Pattern.compile(regex).asPredicate();
+    var underTest = LiteralPrefilter.forRegex(regex);
+
+    //when + then
+    FILENAMES.stream()
+        .filter(pattern)
+        .forEach(filename -> assertThat(underTest.test(filename)).as(filename).isTrue());
+  }
+
+  @Test
+  void prefilterRejectsFilenamesWithLiteralsInWrongOrder() {
+    //given
+    var underTest = LiteralPrefilter.forRegex("IMG_(?<TS>.*?)\\.jpg");
+
+    //when + then
+    assertThat(underTest.test("IMG_20211220.jpg")).isTrue();
+    assertThat(underTest.test("20211220.jpg")).isFalse();
+    assertThat(underTest.test(".jpgIMG_20211220")).isFalse();
+  }
+
+}
@@ -0,0 +1,65 @@
+package at.kocmana.filerename.service.discovery;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BiPredicate;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ParallelFileWalkerTest {
+
+  private static final BiPredicate<Path, BasicFileAttributes> JPG_FILES =
+      (path, attributes) -> attributes.isRegularFile() && path.getFileName().toString().endsWith(".jpg");
+
+  @TempDir
+  Path root;
+
+  @BeforeEach
+  void createDirectoryTree() throws IOException {
+    Files.createFile(root.resolve("a.jpg"));
+    Files.createFile(root.resolve("b.png"));
+    var firstLevel = Files.createDirectories(root.resolve("sub1"));
+    Files.createFile(firstLevel.resolve("c.jpg"));
+    var secondLevel = Files.createDirectories(firstLevel.resolve("sub2.jpg"));
+    Files.createFile(secondLevel.resolve("d.jpg"));
+    Files.createFile(secondLevel.resolve("e.txt"));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 2, 3, Integer.MAX_VALUE})
+  void walkFindsTheSameFilesAsFilesFind(int maxDepth) throws IOException {
+    //given
+    var underTest = ParallelFileWalker.withDefaultPool();
+    var actualResult = new ConcurrentLinkedQueue<Path>();
+
+    //when
+    underTest.walk(root, maxDepth, JPG_FILES, (path, attributes) -> actualResult.add(path));
+
+    //then
+    try (var expectedResult = Files.find(root, maxDepth, JPG_FILES)) {
+      assertThat(actualResult).containsExactlyInAnyOrderElementsOf(expectedResult.collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  void walkThrowsExceptionIfStartDirectoryDoesNotExist() {
+    //given
+    var underTest = ParallelFileWalker.withDefaultPool();
+
+    //when + then
+    assertThatIOException().isThrownBy(
+        () -> underTest.walk(root.resolve("missing"), Integer.MAX_VALUE, JPG_FILES, (path, attributes) -> {
+        }));
+  }
+
+}
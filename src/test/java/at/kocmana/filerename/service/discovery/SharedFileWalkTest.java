@@ -0,0 +1,103 @@
+package at.kocmana.filerename.service.discovery;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SharedFileWalkTest {
+
+  private static final BiPredicate<Path, BasicFileAttributes> JPG_FILES =
+      (path, attributes) -> attributes.isRegularFile() && path.getFileName().toString().endsWith(".jpg");
+  private static final BiPredicate<Path, BasicFileAttributes> PNG_FILES =
+      (path, attributes) -> attributes.isRegularFile() && path.getFileName().toString().endsWith(".png");
+
+  @TempDir
+  Path root;
+
+  private Path subdirectory;
+
+  @BeforeEach
+  void createDirectoryTree() throws IOException {
+    Files.createFile(root.resolve("a.jpg"));
+    Files.createFile(root.resolve("b.png"));
+    subdirectory = Files.createDirectories(root.resolve("sub"));
+    Files.createFile(subdirectory.resolve("c.jpg"));
+    Files.createFile(subdirectory.resolve("d.png"));
+  }
+
+  @Test
+  void everyParticipantReceivesTheFilesMatchingItsDirectoryAndCriteria() throws Exception {
+    //given
+    var underTest = new SharedFileWalk(ParallelFileWalker.withDefaultPool(), root, Integer.MAX_VALUE);
+    var allJpgFiles = underTest.join(root, true);
+    var pngFilesInRoot = underTest.join(root, false);
+    var pngFilesInSubdirectory = underTest.join(subdirectory, true);
+
+    //when
+    var jpgResult = discoverAsync(allJpgFiles, JPG_FILES);
+    var pngResult = discoverAsync(pngFilesInRoot, PNG_FILES);
+    var subdirectoryResult = discoverAsync(pngFilesInSubdirectory, PNG_FILES);
+
+    //then
+    assertThat(jpgResult.get(10, TimeUnit.SECONDS))
+        .containsExactlyInAnyOrder(path("a.jpg"), path("sub/c.jpg"));
+    assertThat(pngResult.get(10, TimeUnit.SECONDS))
+        .containsExactly(path("b.png"));
+    assertThat(subdirectoryResult.get(10, TimeUnit.SECONDS))
+        .containsExactly(path("sub/d.png"));
+  }
+
+  @Test
+  void walkStartsOnceRemainingParticipantsWithdrew() throws Exception {
+    //given
+    var underTest = new SharedFileWalk(ParallelFileWalker.withDefaultPool(), root, 1);
+    var participant = underTest.join(root, false);
+    var withdrawingParticipant = underTest.join(root, false);
+
+    //when
+    var actualResult = discoverAsync(participant, JPG_FILES);
+    withdrawingParticipant.close();
+
+    //then
+    assertThat(actualResult.get(10, TimeUnit.SECONDS)).containsExactly(path("a.jpg"));
+  }
+
+  @Test
+  void joinRejectsDirectoriesOutsideOfTheWalk() {
+    //given
+    var underTest = new SharedFileWalk(ParallelFileWalker.withDefaultPool(), subdirectory, Integer.MAX_VALUE);
+
+    //when + then
+    assertThatIllegalArgumentException().isThrownBy(() -> underTest.join(root, true));
+  }
+
+  private Path path(String relativePath) {
+    return root.toAbsolutePath().normalize().resolve(relativePath);
+  }
+
+  private static CompletableFuture<Collection<Path>> discoverAsync(FileDiscovery fileDiscovery,
+                                                                   BiPredicate<Path, BasicFileAttributes> criteria) {
+    return CompletableFuture.supplyAsync(() -> {
+      var foundFiles = new ConcurrentLinkedQueue<Path>();
+      try (fileDiscovery) {
+        fileDiscovery.discover(criteria, (file, attributes) -> foundFiles.add(file));
+      } catch (IOException | InterruptedException exception) {
+        throw new IllegalStateException(exception);
+      }
+      return foundFiles;
+    }, runnable -> new Thread(runnable).start());
+  }
+
+}
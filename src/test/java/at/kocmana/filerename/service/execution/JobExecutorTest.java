@@ -0,0 +1,131 @@
+package at.kocmana.filerename.service.execution;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+import at.kocmana.filerename.model.ExecutionStrategy;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class JobExecutorTest {
+
+  static Stream<Arguments> availableStrategies() {
+    var strategies = Stream.of(ExecutionStrategy.FORK_JOIN, new ExecutionStrategy(ExecutionStrategy.Type.FIXED, 3));
+    if (JobExecutor.supportsVirtualThreads()) {
+      strategies = Stream.concat(strategies, Stream.of(new ExecutionStrategy(ExecutionStrategy.Type.VIRTUAL, 0)));
+    }
+    return strategies.map(Arguments::of);
+  }
+
+  @ParameterizedTest
+  @MethodSource("availableStrategies")
+  void forEachProcessesAllItems(ExecutionStrategy strategy) {
+    //given
+    var underTest = new JobExecutor(strategy);
+    var items = IntStream.range(0, 1000).boxed().toList();
+    var processedItems = ConcurrentHashMap.<Integer>newKeySet();
+
+    //when
+    underTest.forEach(items, processedItems::add);
+
+    //then
+    assertThat(processedItems).containsExactlyInAnyOrderElementsOf(items);
+  }
+
+  @ParameterizedTest
+  @MethodSource("availableStrategies")
+  void forEachRethrowsFailureAfterProcessingAllItems(ExecutionStrategy strategy) {
+    //given
+    var underTest = new JobExecutor(strategy);
+    var processedItems = new AtomicInteger();
+
+    //when + then
+    assertThatIllegalStateException().isThrownBy(() -> underTest.forEach(List.of(1, 2, 3, 4), item -> {
+      if (item == 2) {
+        throw new IllegalStateException("failed");
+      }
+      processedItems.incrementAndGet();
+    })).withMessageContaining("failed");
+    if (strategy.type() != ExecutionStrategy.Type.FORKJOIN) {
+      assertThat(processedItems).hasValue(3);
+    }
+  }
+
+  @Test
+  void fixedPoolRunsConfiguredNumberOfJobsConcurrently() throws InterruptedException {
+    //given
+    var threads = 16;
+    var underTest = new JobExecutor(new ExecutionStrategy(ExecutionStrategy.Type.FIXED, threads));
+    var allJobsStarted = new CountDownLatch(threads);
+    var threadNames = ConcurrentHashMap.<String>newKeySet();
+
+    //when
+    underTest.forEach(IntStream.range(0, threads).boxed().toList(), item -> {
+      threadNames.add(Thread.currentThread().getName());
+      allJobsStarted.countDown();
+      try {
+        // blocks like I/O would, all jobs only finish if they run at the same time
+        allJobsStarted.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException exception) {
+        Thread.currentThread().interrupt();
+      }
+    });
+
+    //then
+    assertThat(allJobsStarted.getCount()).isZero();
+    assertThat(threadNames).hasSize(threads);
+  }
+
+  @Test
+  void forEachLimitsJobsInFlight() {
+    //given
+    var underTest = new JobExecutor(new ExecutionStrategy(ExecutionStrategy.Type.FIXED, 16));
+    var runningJobs = new AtomicInteger();
+    var maxRunningJobs = new AtomicInteger();
+
+    //when
+    underTest.forEach(IntStream.range(0, 200).boxed().toList(), item -> {
+      maxRunningJobs.accumulateAndGet(runningJobs.incrementAndGet(), Math::max);
+      Thread.yield();
+      runningJobs.decrementAndGet();
+    }, 3);
+
+    //then
+    assertThat(maxRunningJobs.get()).isBetween(1, 3);
+  }
+
+  @Test
+  void pipelineWorkerCountDependsOnStrategy() {
+    //given
+    var forkJoin = new JobExecutor(ExecutionStrategy.FORK_JOIN);
+    var fixed = new JobExecutor(new ExecutionStrategy(ExecutionStrategy.Type.FIXED, 64));
+
+    //when + then
+    assertThat(forkJoin.pipelineWorkerCount(8, 2048)).isEqualTo(8);
+    assertThat(fixed.pipelineWorkerCount(8, 2048)).isEqualTo(64);
+  }
+
+  @Test
+  void constructorRejectsVirtualThreadsIfUnsupported() {
+    //given
+    assumeFalse(JobExecutor.supportsVirtualThreads());
+    var strategy = new ExecutionStrategy(ExecutionStrategy.Type.VIRTUAL, 0);
+
+    //when + then
+    assertThatIllegalArgumentException().isThrownBy(() -> new JobExecutor(strategy))
+        .withMessage("Virtual threads are not supported by this Java runtime");
+  }
+
+}
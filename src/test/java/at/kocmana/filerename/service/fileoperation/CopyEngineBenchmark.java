@@ -0,0 +1,84 @@
+package at.kocmana.filerename.service.fileoperation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares copying files with the {@link CopyEngine} with {@link Files#copy(Path, Path, java.nio.file.CopyOption...)}
+ * for files below and above the threshold for copying ranges in parallel. The files are created in the default
+ * temporary directory, set {@code java.io.tmpdir} to benchmark another file system. Run with:
+ * <pre>
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+ *   java -cp target/classes:target/test-classes:$(cat target/classpath.txt) org.openjdk.jmh.Main CopyEngineBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CopyEngineBenchmark {
+
+  private static final int CHUNK_SIZE = 1024 * 1024;
+
+  @Param({"1", "64", "1024"})
+  public int fileSizeInMegabytes;
+
+  private Path directory;
+  private Path source;
+  private Path target;
+
+  @Setup
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("filerename-copy");
+    source = directory.resolve("source.bin");
+    target = directory.resolve("target.bin");
+    var chunk = new byte[CHUNK_SIZE];
+    var random = new Random(42);
+    try (var output = Files.newOutputStream(source)) {
+      for (int i = 0; i < fileSizeInMegabytes; i++) {
+        random.nextBytes(chunk);
+        output.write(chunk);
+      }
+    }
+  }
+
+  @TearDown(Level.Invocation)
+  public void deleteTarget() throws IOException {
+    Files.deleteIfExists(target);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(source);
+    Files.deleteIfExists(directory);
+  }
+
+  @Benchmark
+  public long copyEngine() throws IOException {
+    return CopyEngine.copy(source, target);
+  }
+
+  @Benchmark
+  public Path filesCopy() throws IOException {
+    return Files.copy(source, target);
+  }
+
+}
@@ -0,0 +1,86 @@
+package at.kocmana.filerename.service.fileoperation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class CopyEngineTest {
+
+  private static final long PARALLEL_THRESHOLD = 64 * 1024;
+  private static final long RANGE_SIZE = 10_000;
+
+  @TempDir
+  Path temporaryDirectory;
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 4096, 64 * 1024, 64 * 1024 + 1, 250_000})
+  void copyProducesIdenticalFile(int size) throws IOException {
+    //given
+    var content = new byte[size];
+    new Random(size).nextBytes(content);
+    var source = Files.write(temporaryDirectory.resolve("source.bin"), content);
+    var target = temporaryDirectory.resolve("target.bin");
+
+    //when
+    var copiedBytes = CopyEngine.copy(source, target, PARALLEL_THRESHOLD, RANGE_SIZE);
+
+    //then
+    assertThat(copiedBytes).isEqualTo(size);
+    assertThat(target).hasBinaryContent(content);
+    assertThat(source).hasBinaryContent(content);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"rwxrw-rw-", "r--r-----"})
+  void copyKeepsPosixPermissionsOfSource(String permissions) throws IOException {
+    //given
+    assumeTrue(temporaryDirectory.getFileSystem().supportedFileAttributeViews().contains("posix"));
+    var source = Files.writeString(temporaryDirectory.resolve("source.txt"), "content");
+    Files.setPosixFilePermissions(source, PosixFilePermissions.fromString(permissions));
+    var target = temporaryDirectory.resolve("target.txt");
+
+    //when
+    CopyEngine.copy(source, target);
+
+    //then
+    assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(target))).isEqualTo(permissions);
+    assertThat(target).hasContent("content");
+  }
+
+  @Test
+  void copyFailsWithoutTouchingExistingTarget() throws IOException {
+    //given
+    var source = Files.writeString(temporaryDirectory.resolve("source.txt"), "new");
+    var target = Files.writeString(temporaryDirectory.resolve("target.txt"), "existing");
+
+    //when //then
+    assertThatExceptionOfType(FileAlreadyExistsException.class)
+        .isThrownBy(() -> CopyEngine.copy(source, target));
+    assertThat(target).hasContent("existing");
+  }
+
+  @Test
+  void copyFailsWithoutCreatingTargetIfSourceIsMissing() {
+    //given
+    var source = temporaryDirectory.resolve("missing.txt");
+    var target = temporaryDirectory.resolve("target.txt");
+
+    //when //then
+    assertThatExceptionOfType(NoSuchFileException.class)
+        .isThrownBy(() -> CopyEngine.copy(source, target));
+    assertThat(target).doesNotExist();
+  }
+
+}
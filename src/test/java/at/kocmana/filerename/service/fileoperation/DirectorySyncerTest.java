@@ -0,0 +1,95 @@
+package at.kocmana.filerename.service.fileoperation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+import at.kocmana.filerename.controller.CliController.Durability;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class DirectorySyncerTest {
+
+  @TempDir
+  Path temporaryDirectory;
+
+  @Test
+  void batchCollectsOperationsUntilFlushed() throws IOException {
+    //given
+    var underTest = new DirectorySyncer(Durability.BATCH);
+    var file = Files.createFile(temporaryDirectory.resolve("image.jpg"));
+
+    //when
+    underTest.register(file, temporaryDirectory, false);
+    underTest.register(file, temporaryDirectory, true);
+    var pendingBeforeFlush = underTest.pendingOperationCount();
+    underTest.flush();
+
+    //then
+    assertThat(pendingBeforeFlush).isEqualTo(2);
+    assertThat(underTest.pendingOperationCount()).isZero();
+  }
+
+  @Test
+  void batchIsSyncedOnceFull() throws IOException {
+    //given
+    var underTest = new DirectorySyncer(Durability.BATCH);
+    var file = Files.createFile(temporaryDirectory.resolve("image.jpg"));
+
+    //when
+    for (int i = 0; i < DirectorySyncer.BATCH_SIZE + 1; i++) {
+      underTest.register(file, temporaryDirectory, false);
+    }
+
+    //then
+    assertThat(underTest.pendingOperationCount()).isLessThanOrEqualTo(1);
+  }
+
+  @Test
+  void batchIsSyncedAfterMaxDelayWithoutFurtherOperations() throws IOException, InterruptedException {
+    //given
+    var underTest = new DirectorySyncer(Durability.BATCH);
+    var file = Files.createFile(temporaryDirectory.resolve("image.jpg"));
+
+    //when
+    underTest.register(file, temporaryDirectory, true);
+    var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (underTest.pendingOperationCount() > 0 && System.nanoTime() < deadline) {
+      Thread.sleep(50);
+    }
+
+    //then
+    assertThat(underTest.pendingOperationCount()).isZero();
+  }
+
+  @ParameterizedTest
+  @EnumSource(value = Durability.class, names = {"NONE", "STRICT"})
+  void otherModesDoNotCollectOperations(Durability durability) throws IOException {
+    //given
+    var underTest = new DirectorySyncer(durability);
+    var file = Files.createFile(temporaryDirectory.resolve("image.jpg"));
+
+    //when
+    underTest.register(file, temporaryDirectory, true);
+
+    //then
+    assertThat(underTest.pendingOperationCount()).isZero();
+  }
+
+  @Test
+  void removedFilesAreSkipped() {
+    //given
+    var underTest = new DirectorySyncer(Durability.STRICT);
+    var removedDirectory = temporaryDirectory.resolve("removed");
+
+    //when //then
+    assertThatCode(() -> underTest.register(removedDirectory.resolve("image.jpg"), removedDirectory, true))
+        .doesNotThrowAnyException();
+  }
+
+}
@@ -0,0 +1,114 @@
+package at.kocmana.filerename.service.fileoperation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileMoverTest {
+
+  @TempDir
+  Path temporaryDirectory;
+
+  @Test
+  void moveRenamesFileWithinFileStore() throws IOException {
+    //given
+    var source = Files.writeString(temporaryDirectory.resolve("source.txt"), "content");
+    var target = temporaryDirectory.resolve("target.txt");
+
+    //when
+    FileMover.move(source, target);
+
+    //then
+    assertThat(source).doesNotExist();
+    assertThat(target).hasContent("content");
+  }
+
+  @Test
+  void directoriesOfSameFileStoreAreDetected() throws IOException {
+    //given
+    var subdirectory = Files.createDirectory(temporaryDirectory.resolve("subdirectory"));
+
+    //when
+    var actualResult = FileMover.isSameFileStore(temporaryDirectory, subdirectory);
+
+    //then
+    assertThat(actualResult).isTrue();
+  }
+
+  @Test
+  void moveAcrossFileStoresDeletesSourceAfterCopy() throws IOException {
+    //given
+    var source = Files.writeString(temporaryDirectory.resolve("source.txt"), "content");
+    var lastModifiedTime = FileTime.from(Instant.parse("2021-12-20T12:54:01Z"));
+    Files.setLastModifiedTime(source, lastModifiedTime);
+    var target = temporaryDirectory.resolve("target.txt");
+
+    //when
+    FileMover.moveAcrossFileStores(source, target, false);
+
+    //then
+    assertThat(source).doesNotExist();
+    assertThat(target).hasContent("content");
+    assertThat(Files.getLastModifiedTime(target)).isEqualTo(lastModifiedTime);
+  }
+
+  @Test
+  void moveAcrossFileStoresSyncsCopyBeforeDeletingSource() throws IOException {
+    //given
+    var source = Files.writeString(temporaryDirectory.resolve("source.txt"), "content");
+    var target = temporaryDirectory.resolve("target.txt");
+
+    //when
+    FileMover.moveAcrossFileStores(source, target, true);
+
+    //then
+    assertThat(source).doesNotExist();
+    assertThat(target).hasContent("content");
+  }
+
+  @Test
+  void moveAcrossFileStoresKeepsPermissionsAndOwner() throws IOException {
+    //given
+    assumeTrue(temporaryDirectory.getFileSystem().supportedFileAttributeViews().contains("posix"));
+    var source = Files.writeString(temporaryDirectory.resolve("source.sh"), "content");
+    var permissions = PosixFilePermissions.fromString("rwxrw-r--");
+    Files.setPosixFilePermissions(source, permissions);
+    var sourceAttributes = Files.readAttributes(source, PosixFileAttributes.class);
+    var target = temporaryDirectory.resolve("target.sh");
+
+    //when
+    FileMover.moveAcrossFileStores(source, target, false);
+
+    //then
+    var targetAttributes = Files.readAttributes(target, PosixFileAttributes.class);
+    assertThat(targetAttributes.permissions()).isEqualTo(permissions);
+    assertThat(targetAttributes.owner()).isEqualTo(sourceAttributes.owner());
+    assertThat(targetAttributes.group()).isEqualTo(sourceAttributes.group());
+    assertThat(targetAttributes.lastAccessTime()).isEqualTo(sourceAttributes.lastAccessTime());
+  }
+
+  @Test
+  void moveAcrossFileStoresKeepsSourceIfTargetExists() throws IOException {
+    //given
+    var source = Files.writeString(temporaryDirectory.resolve("source.txt"), "content");
+    var target = Files.writeString(temporaryDirectory.resolve("target.txt"), "existing");
+
+    //when //then
+    assertThatExceptionOfType(FileAlreadyExistsException.class)
+        .isThrownBy(() -> FileMover.moveAcrossFileStores(source, target, false));
+    assertThat(source).hasContent("content");
+    assertThat(target).hasContent("existing");
+  }
+
+}
@@ -0,0 +1,71 @@
+package at.kocmana.filerename.service.ordering;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import at.kocmana.filerename.model.FileContext;
+import at.kocmana.filerename.service.ordering.ExternalMergeSorter.Entry;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class ExternalMergeSorterTest {
+
+  @Test
+  void entriesAreSortedInMemory() throws Exception {
+    //given
+    try (var underTest = new ExternalMergeSorter(10)) {
+      add(underTest, "c", "b", "a");
+
+      //when
+      var actualResult = toList(underTest);
+
+      //then
+      assertThat(underTest.hasSpilled()).isFalse();
+      assertThat(actualResult).extracting(Entry::key).containsExactly("a", "b", "c");
+      assertThat(actualResult).extracting(Entry::fileContext).doesNotContainNull();
+    }
+  }
+
+  @Test
+  void entriesAreMergedAfterSpillingToDisk() throws Exception {
+    //given
+    var keys = IntStream.range(0, 25)
+        .mapToObj(i -> String.format("%02d", (i * 7) % 25))
+        .toArray(String[]::new);
+    try (var underTest = new ExternalMergeSorter(4)) {
+      add(underTest, keys);
+
+      //when
+      var actualResult = toList(underTest);
+
+      //then
+      assertThat(underTest.hasSpilled()).isTrue();
+      assertThat(underTest.size()).isEqualTo(25);
+      assertThat(actualResult).extracting(Entry::key).isSorted().hasSize(25);
+      assertThat(actualResult).extracting(Entry::file)
+          .contains(Path.of("file00.jpg"), Path.of("file24.jpg"));
+    }
+  }
+
+  @Test
+  void invalidCapacityIsRejected() {
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> new ExternalMergeSorter(0));
+  }
+
+  private static void add(ExternalMergeSorter sorter, String... keys) {
+    for (var key : keys) {
+      sorter.add(key, new FileContext(Path.of("file" + key + ".jpg"), null));
+    }
+  }
+
+  private static List<Entry> toList(ExternalMergeSorter sorter) throws Exception {
+    var entries = new ArrayList<Entry>();
+    sorter.sorted().forEachRemaining(entries::add);
+    return entries;
+  }
+
+}
@@ -0,0 +1,180 @@
+package at.kocmana.filerename.service.planning;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.kocmana.filerename.controller.CliController.CollisionResolutionStrategy;
+import at.kocmana.filerename.controller.CliController.Durability;
+import at.kocmana.filerename.model.FileContext;
+import at.kocmana.filerename.model.JobArguments;
+import at.kocmana.filerename.service.FileRenameJob;
+import at.kocmana.filerename.service.FileRenameJob.JobStatus;
+import at.kocmana.filerename.service.transformation.OutputTemplate;
+import at.kocmana.filerename.service.transformation.TransformationRuleFactory;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RenamePlannerTest {
+
+  @TempDir
+  Path temporaryDirectory;
+
+  private final TargetNameRegistry targetNameRegistry = new TargetNameRegistry();
+
+  @Test
+  void independentJobsAreExecutedRightAway() throws IOException {
+    //given
+    var jobs = List.of(createJob("a.txt", "x.txt"), createJob("b.txt", "y.txt"));
+    var underTest = new RenamePlanner(jobs, targetNameRegistry);
+
+    //when
+    var actualResult = jobs.stream().map(underTest::processOrDefer).toList();
+
+    //then
+    assertThat(actualResult).containsOnly(true);
+    assertThat(underTest.planDeferredJobs()).isEmpty();
+    assertThat(jobs).extracting(FileRenameJob::getJobStatus).containsOnly(JobStatus.SUCCESS);
+    assertThat(temporaryDirectory.resolve("x.txt")).hasContent("a.txt");
+    assertThat(temporaryDirectory.resolve("y.txt")).hasContent("b.txt");
+  }
+
+  @Test
+  void chainIsExecutedFromItsEnd() throws IOException {
+    //given
+    var jobs = List.of(createJob("1.txt", "2.txt"), createJob("2.txt", "3.txt"), createJob("3.txt", "4.txt"));
+    var underTest = new RenamePlanner(jobs, targetNameRegistry);
+
+    //when
+    jobs.forEach(underTest::processOrDefer);
+    var chains = underTest.planDeferredJobs();
+    var executedJobs = execute(chains);
+
+    //then
+    assertThat(chains).hasSize(1);
+    assertThat(executedJobs).extracting(job -> job.getJobArguments().inputFile().getFileName().toString())
+        .containsExactly("2.txt", "1.txt");
+    assertThat(jobs).extracting(FileRenameJob::getJobStatus).containsOnly(JobStatus.SUCCESS);
+    assertThat(temporaryDirectory.resolve("1.txt")).doesNotExist();
+    assertThat(temporaryDirectory.resolve("2.txt")).hasContent("1.txt");
+    assertThat(temporaryDirectory.resolve("3.txt")).hasContent("2.txt");
+    assertThat(temporaryDirectory.resolve("4.txt")).hasContent("3.txt");
+  }
+
+  @Test
+  void cycleIsBrokenByTemporaryName() throws IOException {
+    //given
+    var jobs = List.of(createJob("a.txt", "b.txt"), createJob("b.txt", "c.txt"), createJob("c.txt", "a.txt"));
+    var underTest = new RenamePlanner(jobs, targetNameRegistry);
+
+    //when
+    jobs.forEach(underTest::processOrDefer);
+    var chains = underTest.planDeferredJobs();
+    execute(chains);
+
+    //then
+    assertThat(chains).singleElement()
+        .satisfies(chain -> assertThat(chain.temporaryName()).isEqualTo(".a.txt.filerename"));
+    assertThat(jobs).extracting(FileRenameJob::getJobStatus).containsOnly(JobStatus.SUCCESS);
+    assertThat(temporaryDirectory.resolve("a.txt")).hasContent("c.txt");
+    assertThat(temporaryDirectory.resolve("b.txt")).hasContent("a.txt");
+    assertThat(temporaryDirectory.resolve("c.txt")).hasContent("b.txt");
+    assertThat(temporaryDirectory.resolve(".a.txt.filerename")).doesNotExist();
+  }
+
+  @Test
+  void jobsWaitingForCycleAreExecutedAfterIt() throws IOException {
+    //given
+    var jobs = List.of(createJob("a.txt", "b.txt"), createJob("b.txt", "a.txt"), createJob("x.txt", "a.txt"));
+    var underTest = new RenamePlanner(jobs, targetNameRegistry);
+
+    //when
+    jobs.forEach(underTest::processOrDefer);
+    var chains = underTest.planDeferredJobs();
+    execute(chains);
+
+    //then
+    assertThat(chains).hasSize(1);
+    assertThat(jobs.subList(0, 2)).extracting(FileRenameJob::getJobStatus).containsOnly(JobStatus.SUCCESS);
+    assertThat(jobs.get(2).getJobStatus()).isEqualTo(JobStatus.FAILED);
+    assertThat(temporaryDirectory.resolve("a.txt")).hasContent("b.txt");
+    assertThat(temporaryDirectory.resolve("b.txt")).hasContent("a.txt");
+    assertThat(temporaryDirectory.resolve("x.txt")).hasContent("x.txt");
+  }
+
+  @Test
+  void dryRunReservesNamesFreedByOtherJobs() throws IOException {
+    //given
+    var jobs = List.of(createJob("1.txt", "2.txt"), createJob("2.txt", "3.txt"), createJob("x.txt", "x.txt"));
+    jobs.forEach(FileRenameJob::renderOutputFileName);
+    var underTest = new RenamePlanner(jobs, targetNameRegistry);
+
+    //when
+    underTest.reserveAssumingAllMoved(jobs);
+
+    //then
+    assertThat(jobs).extracting(FileRenameJob::getOutputFileName).containsExactly("2.txt", "3.txt", "x.txt");
+    assertThat(jobs).extracting(FileRenameJob::getJobStatus).containsOnly(JobStatus.READY);
+  }
+
+  @Test
+  void dryRunOfJobsCreatedOneAfterAnotherFreesNamesWithoutMovingFiles() throws IOException {
+    //given
+    var jobs = List.of(createJob("1.txt", "2.txt", true), createJob("2.txt", "1.txt", true),
+        createJob("3.txt", "4.txt", true), createJob("4.txt", "5.txt", true));
+    var underTest = new RenamePlanner(targetNameRegistry);
+    jobs.forEach(job -> underTest.addInputFile(job.getJobArguments().inputFile()));
+
+    //when
+    jobs.forEach(underTest::processOrDefer);
+    execute(underTest.planDeferredJobs());
+
+    //then
+    assertThat(jobs).extracting(FileRenameJob::getOutputFileName).containsExactly("2.txt", "1.txt", "4.txt", "5.txt");
+    assertThat(jobs).extracting(FileRenameJob::getJobStatus).containsOnly(JobStatus.SUCCESS);
+    assertThat(temporaryDirectory.resolve("1.txt")).hasContent("1.txt");
+    assertThat(temporaryDirectory.resolve("2.txt")).hasContent("2.txt");
+    assertThat(temporaryDirectory.resolve("5.txt")).doesNotExist();
+  }
+
+  @Test
+  void jobsTargetingRemovedInputFilesAreNotDeferred() throws IOException {
+    //given
+    var job = createJob("1.txt", "2.txt");
+    var underTest = new RenamePlanner(targetNameRegistry);
+    underTest.addInputFile(job.getJobArguments().inputFile());
+    underTest.addInputFile(temporaryDirectory.resolve("2.txt"));
+
+    //when
+    underTest.removeInputFile(temporaryDirectory.resolve("2.txt"));
+    var actualResult = underTest.processOrDefer(job);
+
+    //then
+    assertThat(actualResult).isTrue();
+    assertThat(underTest.planDeferredJobs()).isEmpty();
+    assertThat(job.getJobStatus()).isEqualTo(JobStatus.SUCCESS);
+    assertThat(temporaryDirectory.resolve("2.txt")).hasContent("1.txt");
+  }
+
+  private List<FileRenameJob> execute(List<RenamePlanner.RenameChain> chains) {
+    var executedJobs = new ArrayList<FileRenameJob>();
+    chains.forEach(chain -> chain.execute(executedJobs::add));
+    return executedJobs;
+  }
+
+  private FileRenameJob createJob(String inputFileName, String outputFileName) throws IOException {
+    return createJob(inputFileName, outputFileName, false);
+  }
+
+  private FileRenameJob createJob(String inputFileName, String outputFileName, boolean dryRun) throws IOException {
+    var file = Files.writeString(temporaryDirectory.resolve(inputFileName), inputFileName);
+    var rules = TransformationRuleFactory.generateApplicableTransformationRules(inputFileName, outputFileName);
+    var jobArguments = new JobArguments(new FileContext(file, null), OutputTemplate.parse(outputFileName, rules),
+        dryRun, false, CollisionResolutionStrategy.FAIL, targetNameRegistry, Durability.NONE);
+    return new FileRenameJob(jobArguments);
+  }
+
+}
@@ -0,0 +1,128 @@
+package at.kocmana.filerename.service.planning;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TargetNameRegistryTest {
+
+  @TempDir
+  Path temporaryDirectory;
+
+  @Test
+  void reserveReturnsFreeName() {
+    //given
+    var underTest = new TargetNameRegistry();
+
+    //when
+    var actualResult = underTest.reserve(temporaryDirectory, "image.jpg", false);
+
+    //then
+    assertThat(actualResult).isEqualTo("image.jpg");
+    assertThat(underTest.isTaken(temporaryDirectory, "image.jpg")).isTrue();
+  }
+
+  @Test
+  void reserveRejectsNameOfExistingFile() throws IOException {
+    //given
+    Files.createFile(temporaryDirectory.resolve("image.jpg"));
+    var underTest = new TargetNameRegistry();
+
+    //when
+    var actualResult = underTest.reserve(temporaryDirectory, "image.jpg", false);
+
+    //then
+    assertThat(actualResult).isNull();
+  }
+
+  @Test
+  void reserveEnumeratesTakenNames() throws IOException {
+    //given
+    Files.createFile(temporaryDirectory.resolve("image.jpg"));
+    Files.createFile(temporaryDirectory.resolve("image-2.jpg"));
+    var underTest = new TargetNameRegistry();
+
+    //when
+    var actualResult = IntStream.range(0, 3)
+        .mapToObj(i -> underTest.reserve(temporaryDirectory, "image.jpg", true))
+        .toList();
+
+    //then
+    assertThat(actualResult).containsExactly("image-1.jpg", "image-3.jpg", "image-4.jpg");
+  }
+
+  @Test
+  void reserveHandsOutEveryNameOnlyOnceToConcurrentJobs() {
+    //given
+    var underTest = new TargetNameRegistry();
+    var jobCount = 1000;
+
+    //when
+    var actualResult = IntStream.range(0, jobCount).parallel()
+        .mapToObj(i -> underTest.reserve(temporaryDirectory, "image.jpg", true))
+        .collect(Collectors.toSet());
+
+    //then
+    assertThat(actualResult)
+        .hasSize(jobCount)
+        .contains("image.jpg", "image-1.jpg", "image-" + (jobCount - 1) + ".jpg");
+  }
+
+  @Test
+  void releaseMakesNameAvailableAgain() throws IOException {
+    //given
+    Files.createFile(temporaryDirectory.resolve("image.jpg"));
+    var underTest = new TargetNameRegistry();
+
+    //when
+    underTest.release(temporaryDirectory, "image.jpg");
+    var actualResult = underTest.reserve(temporaryDirectory, "image.jpg", false);
+
+    //then
+    assertThat(actualResult).isEqualTo("image.jpg");
+  }
+
+  @Test
+  void namesAreCheckedOnDiskAfterSwitching() throws IOException {
+    //given
+    var removedFile = Files.createFile(temporaryDirectory.resolve("removed.jpg"));
+    var underTest = new TargetNameRegistry();
+    underTest.reserve(temporaryDirectory, "created.jpg", false);
+    Files.delete(removedFile);
+    underTest.checkDiskForTakenNames();
+    Files.createFile(temporaryDirectory.resolve("existing.jpg"));
+
+    //when
+    var reservedName = underTest.reserve(temporaryDirectory, "removed.jpg", false);
+
+    //then
+    assertThat(reservedName).isEqualTo("removed.jpg");
+    assertThat(underTest.reserve(temporaryDirectory, "removed.jpg", false)).isNull();
+    assertThat(underTest.reserve(temporaryDirectory, "existing.jpg", false)).isNull();
+    assertThat(underTest.isTaken(temporaryDirectory, "created.jpg")).isFalse();
+  }
+
+  @Test
+  void confirmedNamesAreOnlyKeptOnDisk() throws IOException {
+    //given
+    var underTest = new TargetNameRegistry();
+    underTest.checkDiskForTakenNames();
+    underTest.reserve(temporaryDirectory, "image.jpg", false);
+    var file = Files.createFile(temporaryDirectory.resolve("image.jpg"));
+
+    //when
+    underTest.confirm(temporaryDirectory, "image.jpg");
+
+    //then
+    assertThat(underTest.isTaken(temporaryDirectory, "image.jpg")).isTrue();
+    Files.delete(file);
+    assertThat(underTest.isTaken(temporaryDirectory, "image.jpg")).isFalse();
+  }
+
+}
@@ -0,0 +1,69 @@
+package at.kocmana.filerename.service.transformation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import at.kocmana.filerename.controller.CliController.RegexEngine;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+
+class FilenameMatcherTest {
+
+  private static final String INPUT_PATTERN = "IMG_<<TS|yyyyMMdd_HHmmss>>_<<R|[A-Z]+>>.jpg";
+
+  @Test
+  void matchProvidesGroupsOfAllRules() {
+    //given
+    var rules = TransformationRuleFactory.generateApplicableTransformationRules(INPUT_PATTERN, "<<TS|yyyy>><<R>>.jpg");
+    var underTest = FilenameMatcher.forInputTemplate(INPUT_PATTERN, rules);
+
+    //when
+    var actualResult = underTest.match(Path.of("dir", "IMG_20211220_125401_HDR.jpg"), null);
+
+    //then
+    assertThat(underTest.getSearchPattern()).isEqualTo("IMG_(?<TS>.*?)_(?<R>[A-Z]+).jpg");
+    assertThat(actualResult).isNotNull();
+    assertThat(actualResult.group("TS")).isEqualTo("20211220_125401");
+    assertThat(actualResult.group("R")).isEqualTo("HDR");
+  }
+
+  @Test
+  void matchReturnsNullForOtherFilenames() {
+    //given
+    var rules = TransformationRuleFactory.generateApplicableTransformationRules(INPUT_PATTERN, "<<TS|yyyy>><<R>>.jpg");
+    var underTest = FilenameMatcher.forInputTemplate(INPUT_PATTERN, rules);
+
+    //when
+    var actualResult = underTest.match(Path.of("IMG_20211220_125401.jpg"), null);
+
+    //then
+    assertThat(underTest.mayMatch("IMG_20211220_125401.jpg")).isTrue();
+    assertThat(actualResult).isNull();
+  }
+
+  @Test
+  void linearEngineProvidesSameGroups() {
+    //given
+    var rules = TransformationRuleFactory.generateApplicableTransformationRules(INPUT_PATTERN, "<<TS|yyyy>><<R>>.jpg");
+    var underTest = FilenameMatcher.forInputTemplate(INPUT_PATTERN, rules, RegexEngine.LINEAR);
+
+    //when
+    var actualResult = underTest.match(Path.of("dir", "IMG_20211220_125401_HDR.jpg"), null);
+
+    //then
+    assertThat(actualResult).isNotNull();
+    assertThat(actualResult.group("TS")).isEqualTo("20211220_125401");
+    assertThat(actualResult.group("R")).isEqualTo("HDR");
+  }
+
+  @Test
+  void linearEngineRejectsUnsupportedUserPatterns() {
+    //given
+    var inputPattern = "<<R|(a)\\1>>.jpg";
+    var rules = TransformationRuleFactory.generateApplicableTransformationRules(inputPattern, "<<R>>.jpg");
+
+    //when + then
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> FilenameMatcher.forInputTemplate(inputPattern, rules, RegexEngine.LINEAR));
+  }
+}
@@ -0,0 +1,69 @@
+package at.kocmana.filerename.service.transformation;
+
+import at.kocmana.filerename.model.FileContext;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares rendering output file names through the compiled handle of {@link OutputTemplate} with appending the
+ * segments one by one. Run with:
+ * <pre>
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+ *   java -cp target/classes:target/test-classes:$(cat target/classpath.txt) org.openjdk.jmh.Main OutputTemplateBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutputTemplateBenchmark {
+
+  private static final String INPUT_PATTERN = "IMG_<<TS|yyyyMMdd_HHmmss>>_<<R|[A-Z]+>>.jpg";
+  private static final String OUTPUT_PATTERN = "<<CD|yyyy>>/<<TS|yyyy-MM-dd_HH-mm-ss>>_<<R>>_<<E|%05d>>.jpg";
+
+  private Path file;
+  private OutputTemplate outputTemplate;
+  private FileContext fileContext;
+
+  @Setup
+  public void setUp() throws IOException {
+    file = Files.createTempFile("IMG_20211220_125401_HDR", ".jpg");
+    var rules = TransformationRuleFactory.generateApplicableTransformationRules(INPUT_PATTERN, OUTPUT_PATTERN);
+    outputTemplate = OutputTemplate.parse(OUTPUT_PATTERN, rules);
+    var attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    fileContext = FilenameMatcher.forInputTemplate(INPUT_PATTERN, rules)
+        .match(Path.of("IMG_20211220_125401_HDR.jpg"), attributes);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  @Benchmark
+  public String compiledHandle() {
+    return outputTemplate.render(fileContext);
+  }
+
+  @Benchmark
+  public String segmentLoop() {
+    return outputTemplate.renderSegments(fileContext);
+  }
+
+}
@@ -0,0 +1,84 @@
+package at.kocmana.filerename.service.transformation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.kocmana.filerename.model.FileContext;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class OutputTemplateTest {
+
+  private static final Path FILE = Path.of("IMG_20211220_125401_HDR.jpg");
+
+  @ParameterizedTest
+  @CsvSource(delimiter = ';', value = {
+      "IMG_<<TS|yyyyMMdd_HHmmss>>_<<R|[A-Z]+>>.jpg; <<TS|yyyy-MM-dd>> <<R>>.jpg; 2021-12-20 HDR.jpg",
+      "IMG_\\d+_\\d+_<<R|[A-Z]+>>.jpg; <<R>>_<<E|%02d>>_<<R>>.jpg; HDR_00_HDR.jpg",
+      "IMG_\\w+.jpg; image_<<E|%03d>>.jpg; image_000.jpg",
+      "IMG_\\w+.jpg; <<X|foo>>_<<E>>.jpg; <<X|foo>>_0.jpg",
+  })
+  void renderReplacesRuleTemplatesWithResolvedValues(String inputPattern, String outputPattern,
+                                                     String expectedResult) {
+    //given
+    var rules = TransformationRuleFactory.generateApplicableTransformationRules(inputPattern, outputPattern);
+    var fileContext = FilenameMatcher.forInputTemplate(inputPattern, rules).match(FILE, null);
+    var underTest = OutputTemplate.parse(outputPattern, rules);
+
+    //when
+    var actualResult = underTest.render(fileContext);
+
+    //then
+    assertThat(underTest.isCompiled()).isTrue();
+    assertThat(actualResult).isEqualTo(expectedResult);
+  }
+
+  @Test
+  void renderFallsBackToSegmentsForTooManyRuleTemplates() {
+    //given
+    var outputPattern = "<<E>>".repeat(201) + ".jpg";
+    var rules = TransformationRuleFactory.generateApplicableTransformationRules("IMG.jpg", outputPattern);
+    var underTest = OutputTemplate.parse(outputPattern, rules);
+
+    //when
+    var actualResult = underTest.render(new FileContext(FILE, null));
+
+    //then
+    assertThat(underTest.isCompiled()).isFalse();
+    assertThat(actualResult).isEqualTo("0".repeat(201) + ".jpg");
+  }
+
+  @Test
+  void renderWithoutRulesReturnsLiteral() {
+    //given
+    var underTest = OutputTemplate.parse("image.jpg", List.of());
+
+    //when
+    var actualResult = underTest.render(new FileContext(FILE, null));
+
+    //then
+    assertThat(underTest.isCompiled()).isTrue();
+    assertThat(actualResult).isEqualTo("image.jpg");
+  }
+
+  @Test
+  void renderResolvesRulesOncePerFile() {
+    //given
+    var outputPattern = "<<E>>-<<E>>.jpg";
+    var rules = TransformationRuleFactory.generateApplicableTransformationRules("IMG.jpg", outputPattern);
+    var underTest = OutputTemplate.parse(outputPattern, rules);
+    var fileContext = new FileContext(FILE, null);
+
+    //when
+    var firstResult = underTest.render(fileContext);
+    var secondResult = underTest.render(fileContext);
+
+    //then
+    assertThat(firstResult).isEqualTo("0-0.jpg");
+    assertThat(secondResult).isEqualTo("1-1.jpg");
+    assertThat(underTest.getRules()).hasSize(1);
+  }
+
+}
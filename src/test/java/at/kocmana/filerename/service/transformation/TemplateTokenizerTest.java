@@ -0,0 +1,87 @@
+package at.kocmana.filerename.service.transformation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.kocmana.filerename.model.Region;
+import at.kocmana.filerename.model.TemplateToken;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class TemplateTokenizerTest {
+
+  @Test
+  void tokenizeSplitsLiteralsAndRuleTemplates() {
+    //given
+    var template = "IMG_<<TS|yyyyMMdd_HHmmss>>_<<E>>.jpg";
+
+    //when
+    var actualResult = TemplateTokenizer.tokenize(template);
+
+    //then
+    assertThat(actualResult.tokens()).containsExactly(
+        TemplateToken.literal("IMG_", 0),
+        TemplateToken.rule("<<TS|yyyyMMdd_HHmmss>>", 4, "TS", "yyyyMMdd_HHmmss"),
+        TemplateToken.literal("_", 26),
+        TemplateToken.rule("<<E>>", 27, "E", ""),
+        TemplateToken.literal(".jpg", 32));
+    assertThat(actualResult.findRule("TS")).map(TemplateToken::region).contains(new Region(4, 26));
+  }
+
+  @Test
+  void argumentsEndAtFirstEndMarker() {
+    //given
+    var template = "<<R|[a-z]{2}>>>>";
+
+    //when
+    var actualResult = TemplateTokenizer.tokenize(template);
+
+    //then
+    assertThat(actualResult.tokens()).containsExactly(
+        TemplateToken.rule("<<R|[a-z]{2}>>", 0, "R", "[a-z]{2}"),
+        TemplateToken.literal(">>", 14));
+  }
+
+  @Test
+  void ruleTemplatesWithoutFileSuffixAreRecognized() {
+    //given + when
+    var actualResult = TemplateTokenizer.tokenize("<<TS|yyyyMMdd>>");
+
+    //then
+    assertThat(actualResult.containsRule("TS")).isTrue();
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"image<<E|>>.jpg", "image<<E.jpg", "image<<>>.jpg", "image<<E|%02d.jpg", "<<1>>"})
+  void malformedRuleTemplatesAreLiterals(String template) {
+    //given + when
+    var actualResult = TemplateTokenizer.tokenize(template);
+
+    //then
+    assertThat(actualResult.tokens()).containsExactly(TemplateToken.literal(template, 0));
+  }
+
+  @Test
+  void ruleTemplateMayFollowStartMarker() {
+    //given + when
+    var actualResult = TemplateTokenizer.tokenize("<<<E>>");
+
+    //then
+    assertThat(actualResult.tokens()).containsExactly(
+        TemplateToken.literal("<", 0),
+        TemplateToken.rule("<<E>>", 1, "E", ""));
+  }
+
+  @Test
+  void replaceRulesInsertsReplacementLiterally() {
+    //given
+    var underTest = TemplateTokenizer.tokenize("a<<R|x>>b<<R>>c<<E>>");
+
+    //when
+    var actualResult = underTest.replaceRules("R", "\\d$1");
+
+    //then
+    assertThat(actualResult).isEqualTo("a\\d$1b\\d$1c<<E>>");
+  }
+
+}
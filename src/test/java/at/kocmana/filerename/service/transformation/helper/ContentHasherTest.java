@@ -0,0 +1,38 @@
+package at.kocmana.filerename.service.transformation.helper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ContentHasherTest {
+
+  @TempDir
+  Path temporaryDirectory;
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 4096, ContentHasher.BUFFER_SIZE, ContentHasher.BUFFER_SIZE + 1,
+      3 * ContentHasher.BUFFER_SIZE, 3 * ContentHasher.BUFFER_SIZE - 17})
+  void hashProducesSameDigestAsHashingAllBytes(int size) throws IOException, NoSuchAlgorithmException {
+    //given
+    var content = new byte[size];
+    new Random(size).nextBytes(content);
+    var file = Files.write(temporaryDirectory.resolve("file.bin"), content);
+    var digest = MessageDigest.getInstance("SHA-256");
+
+    //when
+    var hashedBytes = ContentHasher.hash(file, digest);
+
+    //then
+    assertThat(hashedBytes).isEqualTo(size);
+    assertThat(digest.digest()).isEqualTo(MessageDigest.getInstance("SHA-256").digest(content));
+  }
+
+}
@@ -0,0 +1,66 @@
+package at.kocmana.filerename.service.transformation.helper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class DirectBufferPoolTest {
+
+  @Test
+  void releasedBuffersAreReusedCleared() throws InterruptedIOException {
+    //given
+    var underTest = new DirectBufferPool(16, 2);
+    var buffers = underTest.acquire(2);
+    buffers[0].put((byte) 1);
+    underTest.release(buffers);
+
+    //when
+    var actualResult = underTest.acquire(2);
+
+    //then
+    assertThat(actualResult).containsExactlyInAnyOrder(buffers);
+    assertThat(actualResult).allSatisfy(buffer -> {
+      assertThat(buffer.isDirect()).isTrue();
+      assertThat(buffer.remaining()).isEqualTo(16);
+    });
+  }
+
+  @Test
+  void acquireWaitsUntilBufferIsReleased() throws Exception {
+    //given
+    var underTest = new DirectBufferPool(16, 1);
+    var buffer = underTest.acquire();
+
+    //when
+    var waitingThread = CompletableFuture.supplyAsync(() -> {
+      try {
+        return underTest.acquire();
+      } catch (InterruptedIOException exception) {
+        throw new IllegalStateException(exception);
+      }
+    });
+    Thread.sleep(100);
+    var completedBeforeRelease = waitingThread.isDone();
+    underTest.release(buffer);
+    ByteBuffer actualResult = waitingThread.get(10, TimeUnit.SECONDS);
+
+    //then
+    assertThat(completedBeforeRelease).isFalse();
+    assertThat(actualResult).isSameAs(buffer);
+  }
+
+  @Test
+  void acquireRejectsMoreBuffersThanPooled() {
+    //given
+    var underTest = new DirectBufferPool(16, 2);
+
+    //when + then
+    assertThatIllegalArgumentException().isThrownBy(() -> underTest.acquire(3));
+  }
+
+}
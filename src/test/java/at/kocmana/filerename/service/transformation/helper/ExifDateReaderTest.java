@@ -0,0 +1,174 @@
+package at.kocmana.filerename.service.transformation.helper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ExifDateReaderTest {
+
+  private static final int DATE_TIME = 0x0132;
+  private static final int DATE_TIME_ORIGINAL = 0x9003;
+  private static final int DATE_TIME_DIGITIZED = 0x9004;
+
+  @TempDir
+  Path temporaryDirectory;
+
+  @ParameterizedTest
+  @ValueSource(booleans = {true, false})
+  void readCaptureDateReadsDateTimeOriginalFromJpeg(boolean littleEndian) throws IOException {
+    //given
+    var order = littleEndian ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+    var file = write("image.jpg", jpeg(tiff(order, DATE_TIME_ORIGINAL, true, "2021:12:20 12:54:01")));
+
+    //when
+    var actualResult = ExifDateReader.readCaptureDate(file);
+
+    //then
+    assertThat(actualResult).contains(LocalDateTime.of(2021, 12, 20, 12, 54, 1));
+  }
+
+  @Test
+  void readCaptureDateReadsTiff() throws IOException {
+    //given
+    var file = write("image.nef", tiff(ByteOrder.BIG_ENDIAN, DATE_TIME_ORIGINAL, true, "1999:02:28 23:05:09"));
+
+    //when
+    var actualResult = ExifDateReader.readCaptureDate(file);
+
+    //then
+    assertThat(actualResult).contains(LocalDateTime.of(1999, 2, 28, 23, 5, 9));
+  }
+
+  @Test
+  void readCaptureDateFallsBackToDateTimeDigitized() throws IOException {
+    //given
+    var file = write("image.jpg", jpeg(tiff(ByteOrder.LITTLE_ENDIAN, DATE_TIME_DIGITIZED, true,
+        "2004:02:29 00:00:00")));
+
+    //when
+    var actualResult = ExifDateReader.readCaptureDate(file);
+
+    //then
+    assertThat(actualResult).contains(LocalDateTime.of(2004, 2, 29, 0, 0, 0));
+  }
+
+  @Test
+  void readCaptureDateFallsBackToDateTimeOfImage() throws IOException {
+    //given
+    var file = write("image.jpg", jpeg(tiff(ByteOrder.LITTLE_ENDIAN, DATE_TIME, false, "2010:10:10 10:10:10")));
+
+    //when
+    var actualResult = ExifDateReader.readCaptureDate(file);
+
+    //then
+    assertThat(actualResult).contains(LocalDateTime.of(2010, 10, 10, 10, 10, 10));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"0000:00:00 00:00:00", "    :  :     :  :  "})
+  void readCaptureDateIgnoresUnknownDates(String date) throws IOException {
+    //given
+    var file = write("image.jpg", jpeg(tiff(ByteOrder.LITTLE_ENDIAN, DATE_TIME_ORIGINAL, true, date)));
+
+    //when
+    var actualResult = ExifDateReader.readCaptureDate(file);
+
+    //then
+    assertThat(actualResult).isEmpty();
+  }
+
+  @Test
+  void readCaptureDateReturnsEmptyResultForFilesWithoutExifData() throws IOException {
+    //given
+    var jpegWithoutExif = write("image.jpg", new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xD9});
+    var textFile = write("notes.txt", "no image".getBytes(StandardCharsets.US_ASCII));
+    var emptyFile = write("empty.jpg", new byte[0]);
+
+    //when + then
+    assertThat(ExifDateReader.readCaptureDate(jpegWithoutExif)).isEmpty();
+    assertThat(ExifDateReader.readCaptureDate(textFile)).isEmpty();
+    assertThat(ExifDateReader.readCaptureDate(emptyFile)).isEmpty();
+  }
+
+  @Test
+  void readCaptureDateDoesNotReadBeyondHeader() throws IOException {
+    //given
+    var exif = jpeg(tiff(ByteOrder.LITTLE_ENDIAN, DATE_TIME_ORIGINAL, true, "2021:12:20 12:54:01"));
+    var largeImage = Arrays.copyOf(exif, ExifDateReader.HEADER_SIZE * 4);
+    var file = write("large.jpg", largeImage);
+
+    //when
+    var actualResult = ExifDateReader.readCaptureDate(file);
+
+    //then
+    assertThat(actualResult).contains(LocalDateTime.of(2021, 12, 20, 12, 54, 1));
+  }
+
+  @Test
+  void readCaptureDateIgnoresTruncatedExifData() throws IOException {
+    //given
+    var exif = jpeg(tiff(ByteOrder.LITTLE_ENDIAN, DATE_TIME_ORIGINAL, true, "2021:12:20 12:54:01"));
+    var file = write("truncated.jpg", Arrays.copyOf(exif, exif.length - 12));
+
+    //when
+    var actualResult = ExifDateReader.readCaptureDate(file);
+
+    //then
+    assertThat(actualResult).isEmpty();
+  }
+
+  private Path write(String filename, byte[] content) throws IOException {
+    return Files.write(temporaryDirectory.resolve(filename), content);
+  }
+
+  /**
+   * @return a JPEG consisting of an APP0 segment, an APP1 segment containing the EXIF data and the end of the image.
+   */
+  private static byte[] jpeg(byte[] tiff) {
+    var buffer = ByteBuffer.allocate(2 + 18 + 10 + tiff.length + 2).order(ByteOrder.BIG_ENDIAN);
+    buffer.putShort((short) 0xFFD8);
+    buffer.putShort((short) 0xFFE0).putShort((short) 16).put("JFIF\0".getBytes(StandardCharsets.US_ASCII))
+        .put(new byte[9]);
+    buffer.putShort((short) 0xFFE1).putShort((short) (2 + 6 + tiff.length))
+        .put("Exif\0\0".getBytes(StandardCharsets.US_ASCII)).put(tiff);
+    buffer.putShort((short) 0xFFD9);
+    return buffer.array();
+  }
+
+  /**
+   * @return TIFF data containing the date as the only tag, either in the image directory or in the EXIF directory.
+   */
+  private static byte[] tiff(ByteOrder order, int tag, boolean inExifDirectory, String date) {
+    var buffer = ByteBuffer.allocate(64).order(order);
+    buffer.put(order == ByteOrder.LITTLE_ENDIAN ? "II".getBytes(StandardCharsets.US_ASCII)
+        : "MM".getBytes(StandardCharsets.US_ASCII));
+    buffer.putShort((short) 42).putInt(8);
+    var dateOffset = inExifDirectory ? 44 : 26;
+    if (inExifDirectory) {
+      putEntry(buffer, 0x8769, 4, 1, 26);
+      putEntry(buffer, tag, 2, 20, dateOffset);
+    } else {
+      putEntry(buffer, tag, 2, 20, dateOffset);
+    }
+    buffer.position(dateOffset).put(date.getBytes(StandardCharsets.US_ASCII)).put((byte) 0);
+    return Arrays.copyOf(buffer.array(), buffer.position());
+  }
+
+  private static void putEntry(ByteBuffer buffer, int tag, int type, int count, int value) {
+    buffer.putShort((short) 1);
+    buffer.putShort((short) tag).putShort((short) type).putInt(count).putInt(value);
+    buffer.putInt(0);
+  }
+
+}
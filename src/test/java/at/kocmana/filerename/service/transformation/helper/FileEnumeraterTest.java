@@ -49,4 +49,18 @@ class FileEnumeraterTest {
       assertThat(actualFilename).isEqualTo(expectedFilename);
     }
   }
+
+  @Test
+  void enumerateFilenameWithoutSuffixAppendsNumber() {
+    //given
+    var underTest = FileEnumerater.forFilename("foo");
+
+    //when
+    var firstResult = underTest.enumerateFilename();
+    var secondResult = underTest.enumerateFilename();
+
+    //then
+    assertThat(firstResult).isEqualTo("foo-1");
+    assertThat(secondResult).isEqualTo("foo-2");
+  }
 }
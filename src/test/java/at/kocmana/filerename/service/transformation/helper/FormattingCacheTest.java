@@ -0,0 +1,45 @@
+package at.kocmana.filerename.service.transformation.helper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class FormattingCacheTest {
+
+  @Test
+  void getFormatsEveryKeyOnlyOnce() {
+    //given
+    var underTest = new FormattingCache<Integer>("test", 10);
+    var formatterCalls = new AtomicInteger();
+
+    //when
+    for (int i = 0; i < 6; i++) {
+      underTest.get(i % 2, key -> "#" + key + "/" + formatterCalls.incrementAndGet());
+    }
+
+    //then
+    assertThat(underTest.get(0, key -> "other")).isEqualTo("#0/1");
+    assertThat(underTest.get(1, key -> "other")).isEqualTo("#1/2");
+    assertThat(formatterCalls).hasValue(2);
+    assertThat(underTest.getHitCount()).isEqualTo(6);
+    assertThat(underTest.getMissCount()).isEqualTo(2);
+  }
+
+  @Test
+  void getFormatsAgainOnceCapacityIsExceeded() {
+    //given
+    var underTest = new FormattingCache<Integer>("test", 2);
+    underTest.get(1, String::valueOf);
+    underTest.get(2, String::valueOf);
+    underTest.get(3, String::valueOf);
+
+    //when
+    var actualResult = underTest.get(1, key -> "formatted again");
+
+    //then
+    assertThat(actualResult).isEqualTo("formatted again");
+    assertThat(underTest.getMissCount()).isEqualTo(4);
+  }
+
+}
@@ -0,0 +1,80 @@
+package at.kocmana.filerename.service.transformation.helper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class NumericTimestampFormatTest {
+
+  @ParameterizedTest
+  @CsvSource(delimiter = ';', value = {
+      "yyyyMMdd_HHmmss; yyyy-MM-dd HH.mm.ss",
+      "yyyyMMddHHmmssSSS; yyyy-MM-dd_HHmmss.SSSSSS",
+      "yyyyMMdd_HHmmss; yy-MM",
+      "yy-MM-dd; yyyyMMdd",
+      "uuuuMMdd; dd.MM.uuuu",
+      "HH:mm:ss; HHmmss.S",
+      "yyyyMMdd_HHmmssSSSSSSSSS; SSSSSSSSS_ss"
+  })
+  void reformatProducesTheSameResultAsDateTimeFormatter(String inputPattern, String outputPattern) {
+    //given
+    var dtfIn = DateTimeFormatter.ofPattern(inputPattern);
+    var dtfOut = DateTimeFormatter.ofPattern(outputPattern);
+    var underTest = NumericTimestampFormat.forPatterns(inputPattern, outputPattern, dtfIn, dtfOut).orElseThrow();
+    var random = new Random(42);
+
+    for (int i = 0; i < 1000; i++) {
+      var timestamp = LocalDateTime.of(2000 + random.nextInt(99), 1 + random.nextInt(12), 1 + random.nextInt(28),
+          random.nextInt(24), random.nextInt(60), random.nextInt(60), random.nextInt(1_000_000_000));
+      var input = dtfIn.format(timestamp);
+
+      //when
+      var actualResult = underTest.reformat(input);
+
+      //then
+      assertThat(actualResult).as(input).isEqualTo(dtfOut.format(dtfIn.parse(input)));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"20210229_101010", "20211301_101010", "20211200_101010", "20211231_241010",
+      "20211231_106010", "00001231_101010", "2021123_1101010", "20211231-101010", "20211231_10101", "x0211231_101010"})
+  void reformatRejectsInvalidTimestamps(String input) {
+    //given
+    var underTest = NumericTimestampFormat.forPatterns("yyyyMMdd_HHmmss", "yyyy-MM-dd",
+        DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"), DateTimeFormatter.ofPattern("yyyy-MM-dd")).orElseThrow();
+
+    //when
+    var actualResult = underTest.reformat(input);
+
+    //then
+    assertThat(actualResult).isNull();
+  }
+
+  @ParameterizedTest
+  @CsvSource(delimiter = ';', value = {
+      "yyyyMMdd; yyyy-MM-dd'T'",
+      "yyyyMMMdd; yyyyMMdd",
+      "yyyyMd; yyyyMMdd",
+      "yyyyMM; yyyy",
+      "yyyyMMdd; HHmm",
+      "dd MMMM yyyy; yyyyMMdd",
+      "yyyyMMdd a; yyyyMMdd",
+      "yyyyMMdd[HH]; yyyyMMdd",
+      "yyyyMMdd; ddMMyyyy EEE"
+  })
+  void forPatternsReturnsEmptyForUnsupportedPatterns(String inputPattern, String outputPattern) {
+    //when
+    var actualResult = NumericTimestampFormat.forPatterns(inputPattern, outputPattern,
+        DateTimeFormatter.ofPattern(inputPattern), DateTimeFormatter.ofPattern(outputPattern));
+
+    //then
+    assertThat(actualResult).isEmpty();
+  }
+
+}
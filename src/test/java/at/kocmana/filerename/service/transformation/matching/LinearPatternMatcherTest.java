@@ -0,0 +1,134 @@
+package at.kocmana.filerename.service.transformation.matching;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class LinearPatternMatcherTest {
+
+  @ParameterizedTest
+  @CsvSource(delimiter = ';', value = {
+      "IMG_(?<TS>.*?)_(?<R>[A-Z]+).jpg; IMG_20211220_125401_HDR.jpg",
+      "IMG_(?<TS>.*?)_(?<R>[A-Z]+).jpg; IMG_20211220_125401_hdr.jpg",
+      "(?<R>)(?<TS>.*?).jpg; IMG_1.jpg.jpg",
+      "(?<R>)(?<TS>.*).jpg; IMG_1.jpg.jpg",
+      "(?<R>\\d{2,4})(?<TS>\\d*); 1234567",
+      "(?<R>\\d{2,4}?)(?<TS>\\d*); 1234567",
+      "(?<R>a|ab)(?<TS>c|bcd); abcd",
+      "(?<R>[^_]+)_(?<TS>\\w+?)\\.(?:jpg|png)$; foo_bar_baz.png",
+      "^(?<R>\\s*)(?<TS>[a-c-]+); ' \t-abc-d'",
+      "(?<R>x*)(?<TS>y?); zzz",
+      "(?<R>(?:ab)+)(?<TS>.?); xxababab!",
+      "(?<R>\\Q.*\\E)(?<TS>.+); a.*b",
+      "(?<R>\\x41\\u00e4)(?<TS>[\\.]); Aä.",
+      "(?<R>.)(?<TS>.); 😀x",
+      "(?<R>a{3})(?<TS>a{0,2}); aaaaaaa",
+      "(?<R>\\D+)(?<TS>\\W); ab12-",
+      "(?<R>(a)|b)*(?<TS>c); abac",
+      "(?<R>a+)*(?<TS>b); aaab",
+      "\\A(?<R>a)\\z(?<TS>); a",
+  })
+  void findReturnsSameGroupsAsJavaRegex(String regex, String input) {
+    //given
+    var javaMatcher = Pattern.compile(regex).matcher(input);
+    var underTest = LinearPatternMatcher.compile(regex);
+
+    //when
+    var actualResult = underTest.find(input);
+
+    //then
+    if (!javaMatcher.find()) {
+      assertThat(actualResult).isNull();
+      return;
+    }
+    assertThat(actualResult).isNotNull();
+    assertThat(actualResult.group("R")).isEqualTo(javaMatcher.group("R"));
+    assertThat(actualResult.group("TS")).isEqualTo(javaMatcher.group("TS"));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"(?<R>a|ab|b)+?(?<TS>_?\\d*)\\.", "(?<R>[ab]{1,3}?)(?<TS>b*1?)$", "(?<R>.*)_(?<TS>.*?)1",
+      "(?<R>(?:a|_)*?)(?<TS>b+|1)"})
+  void findReturnsSameGroupsAsJavaRegexForRandomInputs(String regex) {
+    //given
+    var random = new Random(regex.hashCode());
+    var javaPattern = Pattern.compile(regex);
+    var underTest = LinearPatternMatcher.compile(regex);
+
+    for (int i = 0; i < 500; i++) {
+      var input = random.ints(random.nextInt(12), 0, 5)
+          .mapToObj(index -> String.valueOf("ab_1.".charAt(index)))
+          .collect(Collectors.joining());
+      var javaMatcher = javaPattern.matcher(input);
+
+      //when
+      var actualResult = underTest.find(input);
+
+      //then
+      assertThat(actualResult != null).as(input).isEqualTo(javaMatcher.find());
+      if (actualResult != null) {
+        assertThat(actualResult.group("R")).as(input).isEqualTo(javaMatcher.group("R"));
+        assertThat(actualResult.group("TS")).as(input).isEqualTo(javaMatcher.group("TS"));
+      }
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"abc", "abc\n", "abc\r\n", "abc\n\n", "abc\r"})
+  void dollarMatchesBeforeFinalLineTerminatorLikeJavaRegex(String input) {
+    //given
+    var regex = "(?<R>[a-z]+)$(?<TS>\\s*)";
+    var javaMatcher = Pattern.compile(regex).matcher(input);
+    var underTest = LinearPatternMatcher.compile(regex);
+
+    //when
+    var actualResult = underTest.find(input);
+
+    //then
+    assertThat(javaMatcher.find()).isEqualTo(actualResult != null);
+    if (actualResult != null) {
+      assertThat(actualResult.group("R")).isEqualTo(javaMatcher.group("R"));
+      assertThat(actualResult.group("TS")).isEqualTo(javaMatcher.group("TS"));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"(a)\\1", "a(?=b)", "(?<!a)b", "(?>a+)", "a++", "(?i)a", "\\bword", "[a[b]]", "[a&&b]",
+      "\\p{Alpha}", "a{1001}", "a**", "(a", "a)", "[a", "*a", "\\k<R>"})
+  void unsupportedOrInvalidPatternsAreRejected(String regex) {
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> LinearPatternMatcher.compile(regex));
+  }
+
+  @Test
+  void unknownGroupNameIsRejected() {
+    //given
+    var match = LinearPatternMatcher.compile("(?<R>a)").find("a");
+
+    //when + then
+    assertThat(match).isNotNull();
+    assertThatIllegalArgumentException().isThrownBy(() -> match.group("TS"));
+  }
+
+  @Test
+  void patternsCausingCatastrophicBacktrackingAreMatchedInLinearTime() {
+    //given
+    var underTest = LinearPatternMatcher.compile("(?<R>(a|a)*)*(?<TS>b)");
+    var input = "a".repeat(50_000);
+
+    //when + then
+    assertThatNoException().isThrownBy(() -> Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10),
+        () -> assertThat(underTest.find(input)).isNull()));
+  }
+
+}
@@ -4,9 +4,14 @@ import static at.kocmana.filerename.testutil.TestFileUtils.openTestFile;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 
+import at.kocmana.filerename.model.FileContext;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EmptySource;
 import org.junit.jupiter.params.provider.ValueSource;
@@ -51,4 +56,20 @@ class CreationDateTransformationRuleTest {
         .withMessage("Unknown pattern letter: T");
   }
 
+  @Test
+  void applyUsesAttributesFromFileContext(@TempDir Path temporaryDirectory) throws IOException {
+    //given
+    var file = Files.createFile(temporaryDirectory.resolve("image.jpg"));
+    var attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    Files.delete(file);
+    var underTest = CreationDateTransformationRule.FACTORY_METHOD.generate("image.jpg", "image<<CD|yyyy>>.jpg")
+        .orElseThrow();
+
+    //when
+    var actualResult = underTest.resolve(new FileContext(file, attributes));
+
+    //then
+    assertThat(actualResult).matches("\\d{4}");
+  }
+
 }
@@ -1,5 +1,7 @@
 package at.kocmana.filerename.service.transformation.rules;
 
+import at.kocmana.filerename.model.FileContext;
+import java.nio.file.Path;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -61,4 +63,49 @@ class EnumerationTransformationRuleTest {
   @Test
   void apply() {
   }
-}
\ No newline at end of file
+
+  @Test
+  void resolveUsesOrdinalOfOrderedFiles() {
+    //given
+    var underTest = new EnumerationTransformationRule("image.jpg", "image<<E|%03d>>.jpg");
+    var file = new FileContext(Path.of("image.jpg"), null);
+
+    //when
+    var first = underTest.resolve(file.withOrdinal(7));
+    var second = underTest.resolve(file.withOrdinal(2));
+
+    //then
+    assertThat(first).isEqualTo("007");
+    assertThat(second).isEqualTo("002");
+  }
+
+  @Test
+  void resolveCountsUnorderedFiles() {
+    //given
+    var underTest = new EnumerationTransformationRule("image.jpg", "image<<E>>.jpg");
+    var file = new FileContext(Path.of("image.jpg"), null);
+
+    //when
+    var first = underTest.resolve(file);
+    var second = underTest.resolve(file);
+
+    //then
+    assertThat(first).isEqualTo("0");
+    assertThat(second).isEqualTo("1");
+  }
+
+  @Test
+  void resolveContinuesUnorderedFilesAfterOrderedFiles() {
+    //given
+    var underTest = new EnumerationTransformationRule("image.jpg", "image<<E>>.jpg");
+    var file = new FileContext(Path.of("image.jpg"), null);
+    underTest.resolve(file.withOrdinal(4));
+    underTest.resolve(file.withOrdinal(1));
+
+    //when
+    var actualResult = underTest.resolve(file);
+
+    //then
+    assertThat(actualResult).isEqualTo("5");
+  }
+}
@@ -0,0 +1,84 @@
+package at.kocmana.filerename.service.transformation.rules;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import at.kocmana.filerename.model.FileContext;
+import at.kocmana.filerename.model.exception.TransformationRuleException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ExifDateTransformationRuleTest {
+
+  @ParameterizedTest
+  @ValueSource(strings = {"<<EXIF|yyyyMMdd>>", "<<EXIF>>", "<<EXIF|yyyyMMdd>><<E>>"})
+  void factoryMethodReturnsInstanceIfPatternIsPresent(String ruleTemplate) {
+    //given + when
+    var outputPattern = String.format("image%s.jpg", ruleTemplate);
+    var underTest = ExifDateTransformationRule.FACTORY_METHOD.generate("image.jpg", outputPattern);
+
+    //then
+    assertThat(underTest)
+        .isPresent()
+        .containsInstanceOf(ExifDateTransformationRule.class);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"<<EX>>", "<<CD>>", "<<E>>"})
+  @EmptySource
+  void factoryMethodReturnsEmptyResultIfPatternIsNotPresent(String ruleTemplate) {
+    //given + when
+    var outputPattern = String.format("image%s.jpg", ruleTemplate);
+    var underTest = ExifDateTransformationRule.FACTORY_METHOD.generate("image<<EXIF>>.jpg", outputPattern);
+
+    //then
+    assertThat(underTest)
+        .isEmpty();
+  }
+
+  @Test
+  void resolveFormatsCaptureDate(@TempDir Path temporaryDirectory) throws IOException {
+    //given
+    var file = Files.write(temporaryDirectory.resolve("image.tif"), tiffWithDate("2021:12:20 12:54:01"));
+    var underTest = ExifDateTransformationRule.FACTORY_METHOD
+        .generate("image.tif", "image_<<EXIF|yyyy-MM-dd_HHmmss>>")
+        .orElseThrow();
+
+    //when
+    var actualResult = underTest.resolve(new FileContext(file, null));
+
+    //then
+    assertThat(actualResult).isEqualTo("2021-12-20_125401");
+  }
+
+  @Test
+  void resolveThrowsExceptionIfNoCaptureDateIsAvailable(@TempDir Path temporaryDirectory) throws IOException {
+    //given
+    var file = Files.write(temporaryDirectory.resolve("image.png"), new byte[]{(byte) 0x89, 'P', 'N', 'G'});
+    var underTest = ExifDateTransformationRule.FACTORY_METHOD.generate("image.png", "image_<<EXIF>>.png")
+        .orElseThrow();
+
+    //when + then
+    assertThatExceptionOfType(TransformationRuleException.class)
+        .isThrownBy(() -> underTest.resolve(new FileContext(file, null)))
+        .withMessage("File \"image.png\" has no EXIF capture date.");
+  }
+
+  private static byte[] tiffWithDate(String date) {
+    var buffer = ByteBuffer.allocate(46).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.put("II".getBytes(StandardCharsets.US_ASCII)).putShort((short) 42).putInt(8);
+    buffer.putShort((short) 1).putShort((short) 0x0132).putShort((short) 2).putInt(20).putInt(26).putInt(0);
+    buffer.put(date.getBytes(StandardCharsets.US_ASCII)).put((byte) 0);
+    return buffer.array();
+  }
+
+}
@@ -0,0 +1,122 @@
+package at.kocmana.filerename.service.transformation.rules;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import at.kocmana.filerename.model.FileContext;
+import at.kocmana.filerename.model.exception.TransformationRuleException;
+import at.kocmana.filerename.service.cache.MetadataCache;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.EmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class HashTransformationRuleTest {
+
+  @ParameterizedTest
+  @ValueSource(strings = {"<<H|sha256:12>>", "<<H>>", "<<H|md5>>", "<<H|SHA1:8>><<E>>"})
+  void factoryMethodReturnsInstanceIfPatternIsPresent(String ruleTemplate) {
+    //given + when
+    var outputPattern = String.format("image%s.jpg", ruleTemplate);
+    var underTest = HashTransformationRule.FACTORY_METHOD.generate("image.jpg", outputPattern);
+
+    //then
+    assertThat(underTest)
+        .isPresent()
+        .containsInstanceOf(HashTransformationRule.class);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"<<HASH>>", "<<CD>>", "<<E>>"})
+  @EmptySource
+  void factoryMethodReturnsEmptyResultIfPatternIsNotPresent(String ruleTemplate) {
+    //given + when
+    var outputPattern = String.format("image%s.jpg", ruleTemplate);
+    var underTest = HashTransformationRule.FACTORY_METHOD.generate("image<<H>>.jpg", outputPattern);
+
+    //then
+    assertThat(underTest)
+        .isEmpty();
+  }
+
+  @ParameterizedTest
+  @CsvSource(value = {
+      "<<H|crc32>>;Unknown hash algorithm \"crc32\", supported are [md5, sha1, sha256, sha512]",
+      "<<H|sha256:0>>;Hash length \"0\" must be a number between 1 and 64",
+      "<<H|md5:33>>;Hash length \"33\" must be a number between 1 and 32",
+      "<<H|sha256:x>>;Hash length \"x\" must be a number between 1 and 64",
+      "<<H|sha256:1:2>>;Hash rule arguments \"sha256:1:2\" must have the form algorithm[:length]"
+  }, delimiter = ';')
+  void factoryMethodThrowsExceptionForInvalidArguments(String ruleTemplate, String expectedMessage) {
+    //given
+    var outputPattern = String.format("image%s.jpg", ruleTemplate);
+
+    //when + then
+    assertThatIllegalArgumentException().isThrownBy(
+            () -> HashTransformationRule.FACTORY_METHOD.generate("image.jpg", outputPattern))
+        .withMessage(expectedMessage);
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+      "<<H>>, 2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824",
+      "<<H|sha256:12>>, 2cf24dba5fb0",
+      "<<H|md5>>, 5d41402abc4b2a76b9719d911017c592"
+  })
+  void resolveReturnsTruncatedHashOfContent(String ruleTemplate, String expectedResult,
+                                            @TempDir Path temporaryDirectory) throws IOException {
+    //given
+    var file = Files.writeString(temporaryDirectory.resolve("file.txt"), "hello", StandardCharsets.US_ASCII);
+    var underTest = HashTransformationRule.FACTORY_METHOD.generate("file.txt", ruleTemplate + ".txt")
+        .orElseThrow();
+
+    //when
+    var actualResult = underTest.resolve(new FileContext(file, null));
+
+    //then
+    assertThat(actualResult).isEqualTo(expectedResult);
+  }
+
+  @Test
+  void resolveReadsUnchangedFilesOnlyOnceWithMetadataCache(@TempDir Path temporaryDirectory) throws IOException {
+    //given
+    var file = Files.writeString(temporaryDirectory.resolve("file.txt"), "hello", StandardCharsets.US_ASCII);
+    var fileContext = new FileContext(file, Files.readAttributes(file, BasicFileAttributes.class));
+    var underTest = HashTransformationRule.FACTORY_METHOD.generate("file.txt", "<<H|sha256:12>>.txt")
+        .orElseThrow();
+
+    try (var metadataCache = MetadataCache.open(temporaryDirectory.resolve("metadata.cache"))) {
+      underTest.useMetadataCache(metadataCache);
+
+      //when
+      underTest.resolve(fileContext);
+      var actualResult = underTest.resolve(fileContext);
+
+      //then
+      assertThat(actualResult).isEqualTo("2cf24dba5fb0");
+      assertThat(underTest.getStatistics()).contains("Hashed 1 files (0 MB)");
+    }
+  }
+
+  @Test
+  void resolveThrowsExceptionIfFileCantBeRead(@TempDir Path temporaryDirectory) {
+    //given
+    var file = temporaryDirectory.resolve("missing.txt");
+    var underTest = HashTransformationRule.FACTORY_METHOD.generate("missing.txt", "<<H>>.txt")
+        .orElseThrow();
+
+    //when + then
+    assertThatExceptionOfType(TransformationRuleException.class)
+        .isThrownBy(() -> underTest.resolve(new FileContext(file, null)))
+        .withMessageStartingWith("Could not hash content of file \"missing.txt\"");
+  }
+
+}
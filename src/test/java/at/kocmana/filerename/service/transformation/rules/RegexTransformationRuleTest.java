@@ -56,4 +56,15 @@ class RegexTransformationRuleTest {
     assertThat(actualResult).isEqualTo("foo(?<R>[a-zA-Z]{3}).bar");
   }
 
+  @Test
+  void userRegexIsInsertedIntoSearchPatternAsIs() {
+    var underTest = FACTORY_METHOD.generate("foo<<R|\\d+$>>", "<<R>>");
+    assertThat(underTest).isPresent();
+    var transformationRule = underTest.orElseThrow(UnknownError::new);
+
+    var actualResult = transformationRule.replaceTemplateWithSearchString("foo<<R|\\d+$>>");
+
+    assertThat(actualResult).isEqualTo("foo(?<R>\\d+$)");
+  }
+
 }
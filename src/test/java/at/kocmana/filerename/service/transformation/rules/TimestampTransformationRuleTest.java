@@ -4,6 +4,9 @@ import static at.kocmana.filerename.service.transformation.rules.TimestampTransf
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 
+import at.kocmana.filerename.service.transformation.FilenameMatcher;
+import at.kocmana.filerename.service.transformation.TransformationRuleFactory;
+import java.nio.file.Path;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
@@ -48,4 +51,22 @@ class TimestampTransformationRuleTest {
 
     assertThat(actualResult).isEqualTo("foo(?<TS>.*?).bar");
   }
+
+  @Test
+  void sortKeysOrderFilesChronologically() {
+    //given
+    var inputPattern = "IMG_<<TS|dd.MM.yyyy_HHmm>>.jpg";
+    var rules = TransformationRuleFactory.generateApplicableTransformationRules(inputPattern, "<<TS|yyyyMMdd>>.jpg");
+    var underTest = (TimestampTransformationRule) rules.get(0);
+    var matcher = FilenameMatcher.forInputTemplate(inputPattern, rules);
+
+    //when
+    var earlier = underTest.toSortKey(matcher.match(Path.of("IMG_31.12.2020_2359.jpg"), null));
+    var later = underTest.toSortKey(matcher.match(Path.of("IMG_01.01.2021_0000.jpg"), null));
+    var invalid = underTest.toSortKey(matcher.match(Path.of("IMG_99.99.2021_0000.jpg"), null));
+
+    //then
+    assertThat(earlier).isLessThan(later);
+    assertThat(invalid).isEmpty();
+  }
 }